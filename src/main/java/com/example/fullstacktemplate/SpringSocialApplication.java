@@ -10,6 +10,7 @@ import com.example.fullstacktemplate.service.UserService;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Profile;
@@ -22,15 +23,18 @@ import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Random;
 
 @SpringBootApplication
 @EnableConfigurationProperties(AppProperties.class)
 @EnableScheduling
 public class SpringSocialApplication {
 
+    private static final int STARTUP_EVENTS_CAPACITY = 4096;
+
     public static void main(String[] args) {
-        SpringApplication.run(SpringSocialApplication.class, args);
+        SpringApplication application = new SpringApplication(SpringSocialApplication.class);
+        application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_EVENTS_CAPACITY));
+        application.run(args);
     }
 
     @Bean
@@ -46,10 +50,12 @@ public class SpringSocialApplication {
 
     ) {
         return args -> {
+            if (userRepository.count() > 0) {
+                return;
+            }
             List<JwtToken> tokens = new LinkedList<>();
             List<FileDb> files = new LinkedList<>();
             List<User> users = new LinkedList<>();
-            Random random = new Random();
             for (Integer i = 1; i <= 10; i++) {
                 String suffix = i == 1 ? "" : i.toString();
                InputStream inputStream = resourceLoader.getResource("classpath:images\\blank-profile-picture.png").getInputStream();
@@ -75,7 +81,7 @@ public class SpringSocialApplication {
                 userRepository.saveAll(users);
 
                 for (Integer j = 1; j <= 1000; j++) {
-                    tokenService.createToken(user, Duration.of(0L, ChronoUnit.MILLIS), TokenType.values()[random.nextInt(TokenType.values().length)]);
+                    tokenService.createToken(user, Duration.of(0L, ChronoUnit.MILLIS), TokenType.REFRESH);
                 }
 
             }
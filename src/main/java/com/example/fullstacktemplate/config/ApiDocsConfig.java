@@ -0,0 +1,27 @@
+package com.example.fullstacktemplate.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import springfox.documentation.builders.PathSelectors;
+import springfox.documentation.builders.RequestHandlerSelectors;
+import springfox.documentation.spi.DocumentationType;
+import springfox.documentation.spring.web.plugins.Docket;
+
+/**
+ * Runtime api documentation, disabled in production where the document generated by the {@code api-docs} maven
+ * profile is served as the static resource {@code /openapi.json} instead.
+ */
+@Configuration
+@ConditionalOnProperty(value = "springfox.documentation.enabled", havingValue = "true", matchIfMissing = true)
+public class ApiDocsConfig {
+
+    @Bean
+    public Docket api() {
+        return new Docket(DocumentationType.OAS_30)
+                .select()
+                .apis(RequestHandlerSelectors.basePackage("com.example.fullstacktemplate.controller"))
+                .paths(PathSelectors.any())
+                .build();
+    }
+}
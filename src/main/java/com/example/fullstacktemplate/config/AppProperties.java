@@ -5,7 +5,9 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.scheduling.annotation.EnableAsync;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @ConfigurationProperties(prefix = "app")
 @Getter
@@ -13,19 +15,31 @@ import java.util.List;
 @EnableAsync
 public class AppProperties {
     private final Auth auth = new Auth();
+    private final RateLimit rateLimit = new RateLimit();
+    private final ReplicaDataSource replicaDatasource = new ReplicaDataSource();
+    private final WarmUp warmUp = new WarmUp();
+    private final Audit audit = new Audit();
+    private final AccountDeletion accountDeletion = new AccountDeletion();
+    private final Idempotency idempotency = new Idempotency();
     private List<String> authorizedRedirectUris;
     private List<String> allowedOrigins;
+    private long corsMaxAgeSecs = 86400;
     private String accountActivationUri;
     private String emailChangeConfirmationUri;
     private String passwordResetUri;
     private String appName;
-    private int maxRequestSize;
+    private long maxRequestSize;
+    private Map<String, Long> maxRequestSizePerRoute = new LinkedHashMap<>();
 
     public static class Auth {
         private String tokenSecret;
         private long accessTokenExpirationMsec;
         private long refreshTokenExpirationMsec;
         private long verificationTokenExpirationMsec;
+        private int maxSessionsPerUser = 10;
+        private long refreshTokenReuseGraceMsec = 10000;
+        private long signingKeyRotationPeriodMsec = 604800000;
+        private long signingKeyReloadMsec = 300000;
 
         public String getTokenSecret() {
             return tokenSecret;
@@ -58,6 +72,101 @@ public class AppProperties {
         public void setVerificationTokenExpirationMsec(long verificationTokenExpirationMsec) {
             this.verificationTokenExpirationMsec = verificationTokenExpirationMsec;
         }
+
+        public int getMaxSessionsPerUser() {
+            return maxSessionsPerUser;
+        }
+
+        public void setMaxSessionsPerUser(int maxSessionsPerUser) {
+            this.maxSessionsPerUser = maxSessionsPerUser;
+        }
+
+        public long getRefreshTokenReuseGraceMsec() {
+            return refreshTokenReuseGraceMsec;
+        }
+
+        public void setRefreshTokenReuseGraceMsec(long refreshTokenReuseGraceMsec) {
+            this.refreshTokenReuseGraceMsec = refreshTokenReuseGraceMsec;
+        }
+
+        public long getSigningKeyRotationPeriodMsec() {
+            return signingKeyRotationPeriodMsec;
+        }
+
+        public void setSigningKeyRotationPeriodMsec(long signingKeyRotationPeriodMsec) {
+            this.signingKeyRotationPeriodMsec = signingKeyRotationPeriodMsec;
+        }
+
+        public long getSigningKeyReloadMsec() {
+            return signingKeyReloadMsec;
+        }
+
+        public void setSigningKeyReloadMsec(long signingKeyReloadMsec) {
+            this.signingKeyReloadMsec = signingKeyReloadMsec;
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class RateLimit {
+        private boolean enabled = true;
+        private List<String> paths = List.of();
+        private int clientCapacity = 20;
+        private long clientPeriodMsec = 60000;
+        private int accountCapacity = 5;
+        private long accountPeriodMsec = 60000;
+        private int shards = 16;
+        private int maxKeysPerShard = 10000;
+        private boolean replicated;
+    }
+
+    @Getter
+    @Setter
+    public static class ReplicaDataSource {
+        private String url;
+        private String username;
+        private String password;
+        private boolean migrate;
+        private long maxLagMsec = 1000;
+        private String lagQuery;
+    }
+
+    @Getter
+    @Setter
+    public static class AccountDeletion {
+        private boolean deferred;
+        private int purgeBatchSize = 100;
+    }
+
+    @Getter
+    @Setter
+    public static class Idempotency {
+        private boolean enabled = true;
+        private long ttlMsec = 86400000;
+        private long pendingLeaseMsec = 60000;
+        private int maxCachedResponses = 10000;
+        private List<String> paths = List.of();
+    }
+
+    @Getter
+    @Setter
+    public static class Audit {
+        private boolean enabled = true;
+        private int queueCapacity = 10000;
+        private int batchSize = 200;
+        private long captureBudgetMicros = 100;
+    }
+
+    @Getter
+    @Setter
+    public static class WarmUp {
+        private boolean enabled = true;
+        private int maxRounds = 20;
+        private long maxDurationMsec = 30000;
+        private int iterationsPerRound = 500;
+        private int passwordChecksPerRound = 2;
+        private int requestsPerRound = 20;
+        private long stableCompilationMsec = 10;
     }
 
 }
@@ -0,0 +1,64 @@
+package com.example.fullstacktemplate.config;
+
+import com.example.fullstacktemplate.service.CompactJwsCodec;
+import com.example.fullstacktemplate.service.EmailTemplateService;
+import com.example.fullstacktemplate.service.JwtClaims;
+import com.example.fullstacktemplate.service.MessageService;
+import com.example.fullstacktemplate.service.UserService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+
+/**
+ * Touches the caches needed by the first requests before the instance reports ready. Part of the readiness health
+ * group, so the instance only receives traffic once message bundles, the signing keyset, the default profile image
+ * and the email templates are loaded and the signature code paths have run once.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class CacheWarmer implements ApplicationRunner, HealthIndicator {
+
+    private final MessageService messageService;
+    private final CompactJwsCodec compactJwsCodec;
+    private final UserService userService;
+    private final EmailTemplateService emailTemplateService;
+    private volatile boolean warm;
+
+    public CacheWarmer(MessageService messageService, CompactJwsCodec compactJwsCodec, UserService userService, EmailTemplateService emailTemplateService) {
+        this.messageService = messageService;
+        this.compactJwsCodec = compactJwsCodec;
+        this.userService = userService;
+        this.emailTemplateService = emailTemplateService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        long start = System.nanoTime();
+        for (Locale locale : i18nConfig.SUPPORTED_LOCALES) {
+            messageService.getMessage("somethingWrong", null, null, locale);
+        }
+        JwtClaims claims = new JwtClaims();
+        claims.setSubject("warm-up");
+        claims.setExpiresAt(Instant.now().plus(Duration.ofMinutes(1)));
+        compactJwsCodec.verify(compactJwsCodec.sign(claims), Instant.now());
+        userService.getDefaultProfileImage();
+        emailTemplateService.warmUp();
+        warm = true;
+        log.info("Caches warmed in {} ms", Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+
+    @Override
+    public Health health() {
+        return warm ? Health.up().build() : Health.outOfService().build();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.fullstacktemplate.config;
+
+import com.example.fullstacktemplate.service.UserService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Purges accounts marked deleted by a deferred cancellation, only scheduled while deferred deletion is enabled.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "app.account-deletion", name = "deferred", havingValue = "true")
+public class DeletedAccountPurgeTask {
+    private final UserService userService;
+    private final AppProperties appProperties;
+
+    @Autowired
+    public DeletedAccountPurgeTask(UserService userService, AppProperties appProperties) {
+        this.userService = userService;
+        this.appProperties = appProperties;
+    }
+
+    @Scheduled(fixedDelayString = "${app.account-deletion.purge-delay-msec:60000}")
+    public void purgeDeletedAccounts() {
+        List<Long> deletedUserIds = userService.findDeletedUserIds(appProperties.getAccountDeletion().getPurgeBatchSize());
+        for (Long userId : deletedUserIds) {
+            userService.deleteUserAccount(userId);
+        }
+        if (!deletedUserIds.isEmpty()) {
+            log.info("{} cancelled accounts were purged", deletedUserIds.size());
+        }
+    }
+}
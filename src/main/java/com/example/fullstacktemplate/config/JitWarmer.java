@@ -0,0 +1,179 @@
+package com.example.fullstacktemplate.config;
+
+import com.example.fullstacktemplate.dto.AuthResponseDto;
+import com.example.fullstacktemplate.dto.LoginRequestDto;
+import com.example.fullstacktemplate.dto.UserDto;
+import com.example.fullstacktemplate.service.TokenService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the authentication hot paths with synthetic data that is never persisted until the jit compiler settles, i.e.
+ * a round of iterations adds less than {@code app.warm-up.stable-compilation-msec} of compilation time. Token signing
+ * and verification, subject encryption, BCrypt and json (de)serialization of the auth dtos are exercised directly, the
+ * filter chain and the auth endpoints through loopback requests: a login with invalid credentials and a refresh with
+ * an invalid access token but without a refresh token. The loopback requests carry a key only known to
+ * this instance, which exempts them from rate limiting until the warm-up is over. Part of the readiness health group.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+@Slf4j
+public class JitWarmer implements ApplicationRunner, HealthIndicator {
+
+    public static final String WARM_UP_HEADER = "X-Warm-Up";
+
+    private static final String SYNTHETIC_EMAIL = "warm-up@localhost";
+    private static final String SYNTHETIC_PASSWORD = "warm-up-password";
+    private static final long SYNTHETIC_USER_ID = -1L;
+
+    private final AppProperties appProperties;
+    private final TokenService tokenService;
+    private final PasswordEncoder passwordEncoder;
+    private final ObjectMapper objectMapper;
+    private final ApplicationContext applicationContext;
+    private final Timer warmUpTimer;
+    private final String warmUpKey;
+    private volatile boolean warm;
+
+    public JitWarmer(AppProperties appProperties, TokenService tokenService, PasswordEncoder passwordEncoder, ObjectMapper objectMapper, ApplicationContext applicationContext, MeterRegistry meterRegistry) {
+        this.appProperties = appProperties;
+        this.tokenService = tokenService;
+        this.passwordEncoder = passwordEncoder;
+        this.objectMapper = objectMapper;
+        this.applicationContext = applicationContext;
+        this.warmUpTimer = Timer.builder("application.warm.up")
+                .description("Duration of the jit warm-up before the instance reports ready")
+                .register(meterRegistry);
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.warmUpKey = Base64.getUrlEncoder().withoutPadding().encodeToString(key);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        AppProperties.WarmUp config = appProperties.getWarmUp();
+        if (!config.isEnabled()) {
+            warm = true;
+            return;
+        }
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(config.getMaxDurationMsec());
+        CompilationMXBean compilation = ManagementFactory.getCompilationMXBean();
+        boolean compilationMonitored = compilation != null && compilation.isCompilationTimeMonitoringSupported();
+        long compilationMsec = compilationMonitored ? compilation.getTotalCompilationTime() : 0;
+        String passwordHash = passwordEncoder.encode(SYNTHETIC_PASSWORD);
+        HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        String loopbackUri = getLoopbackUri();
+        int rounds = 0;
+        while (rounds < config.getMaxRounds() && System.nanoTime() < deadline) {
+            rounds++;
+            for (int i = 0; i < config.getIterationsPerRound(); i++) {
+                exerciseTokensAndJson();
+            }
+            for (int i = 0; i < config.getPasswordChecksPerRound(); i++) {
+                passwordEncoder.matches(SYNTHETIC_PASSWORD, passwordHash);
+            }
+            for (int i = 0; loopbackUri != null && i < config.getRequestsPerRound(); i++) {
+                exerciseEndpoint(httpClient, loopbackUri, i);
+            }
+            if (compilationMonitored) {
+                long roundCompilationMsec = compilation.getTotalCompilationTime() - compilationMsec;
+                compilationMsec += roundCompilationMsec;
+                if (roundCompilationMsec <= config.getStableCompilationMsec()) {
+                    break;
+                }
+            }
+        }
+        long durationNanos = System.nanoTime() - start;
+        warmUpTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+        warm = true;
+        log.info("Jit warm-up finished after {} rounds in {} ms", rounds, TimeUnit.NANOSECONDS.toMillis(durationNanos));
+    }
+
+    @Override
+    public Health health() {
+        return warm ? Health.up().build() : Health.outOfService().build();
+    }
+
+    /**
+     * @return whether the request is one of the loopback requests of a warm-up that is still running
+     */
+    public boolean isWarmUpRequest(HttpServletRequest request) {
+        String key = request.getHeader(WARM_UP_HEADER);
+        return !warm && key != null && MessageDigest.isEqual(warmUpKey.getBytes(StandardCharsets.US_ASCII), key.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private void exerciseTokensAndJson() throws IOException {
+        String accessToken = tokenService.createJwtTokenValue(SYNTHETIC_USER_ID, Duration.ofMinutes(1));
+        tokenService.getValidAccessTokenClaims(accessToken).map(tokenService::getUserId);
+        AuthResponseDto authResponseDto = new AuthResponseDto();
+        authResponseDto.setAccessToken(accessToken);
+        authResponseDto.setTwoFactorRequired(false);
+        objectMapper.readValue(objectMapper.writeValueAsBytes(authResponseDto), AuthResponseDto.class);
+        UserDto userDto = new UserDto();
+        userDto.setName("warm-up");
+        userDto.setEmail("warm-up@localhost");
+        userDto.setTwoFactorEnabled(false);
+        objectMapper.readValue(objectMapper.writeValueAsBytes(userDto), UserDto.class);
+    }
+
+    private void exerciseEndpoint(HttpClient httpClient, String loopbackUri, int iteration) throws IOException, InterruptedException {
+        HttpRequest.Builder request;
+        if (iteration % 2 == 0) {
+            // no such account, authentication fails after the user lookup
+            LoginRequestDto loginRequestDto = new LoginRequestDto();
+            loginRequestDto.setEmail(SYNTHETIC_EMAIL);
+            loginRequestDto.setPassword(SYNTHETIC_PASSWORD);
+            request = HttpRequest.newBuilder(URI.create(loopbackUri + "/auth/login"))
+                    .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(loginRequestDto)));
+        } else {
+            // trailing bytes invalidate the signature, the token filter verifies it and the refresh fails without a cookie
+            String accessToken = tokenService.createJwtTokenValue(SYNTHETIC_USER_ID, Duration.ofMinutes(1));
+            request = HttpRequest.newBuilder(URI.create(loopbackUri + "/auth/access-token"))
+                    .header("Authorization", "Bearer " + accessToken + "AA")
+                    .GET();
+        }
+        try {
+            httpClient.send(request.header(WARM_UP_HEADER, warmUpKey).timeout(Duration.ofSeconds(5)).build(), HttpResponse.BodyHandlers.discarding());
+        } catch (IOException e) {
+            log.debug("Warm-up request failed", e);
+        }
+    }
+
+    private String getLoopbackUri() {
+        if (!(applicationContext instanceof WebServerApplicationContext)) {
+            return null;
+        }
+        int port = ((WebServerApplicationContext) applicationContext).getWebServer().getPort();
+        return port > 0 ? "http://localhost:" + port : null;
+    }
+}
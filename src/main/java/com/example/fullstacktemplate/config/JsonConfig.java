@@ -0,0 +1,115 @@
+package com.example.fullstacktemplate.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+
+@Configuration
+public class JsonConfig {
+
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper, ServerProperties serverProperties) {
+        return new ContentLengthJackson2HttpMessageConverter(objectMapper, (int) serverProperties.getCompression().getMinResponseSize().toBytes());
+    }
+
+    /**
+     * Buffers bodies smaller than server.compression.min-response-size, so they carry a Content-Length. Tomcat
+     * compresses every response of unknown length, only with a known length are responses below the threshold sent as
+     * they are. Once a body reaches the threshold it is streamed, it gets compressed either way.
+     */
+    static class ContentLengthJackson2HttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+        private static final int INITIAL_BUFFER_SIZE = 256;
+
+        private final int maxBufferedSize;
+
+        ContentLengthJackson2HttpMessageConverter(ObjectMapper objectMapper, int maxBufferedSize) {
+            super(objectMapper);
+            this.maxBufferedSize = maxBufferedSize;
+        }
+
+        @Override
+        protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException, HttpMessageNotWritableException {
+            BufferingOutputStream body = new BufferingOutputStream(outputMessage, maxBufferedSize);
+            super.writeInternal(object, type, new HttpOutputMessage() {
+                @Override
+                public OutputStream getBody() {
+                    return body;
+                }
+
+                @Override
+                public HttpHeaders getHeaders() {
+                    return outputMessage.getHeaders();
+                }
+            });
+            body.finish();
+        }
+    }
+
+    /**
+     * Holds the body back until it reaches the size limit, then writes what was held back and everything after it
+     * straight to the response.
+     */
+    private static class BufferingOutputStream extends OutputStream {
+
+        private final HttpOutputMessage outputMessage;
+        private final int maxBufferedSize;
+        private byte[] buffer;
+        private int count;
+        private OutputStream target;
+
+        BufferingOutputStream(HttpOutputMessage outputMessage, int maxBufferedSize) {
+            this.outputMessage = outputMessage;
+            this.maxBufferedSize = maxBufferedSize;
+            this.buffer = new byte[Math.min(ContentLengthJackson2HttpMessageConverter.INITIAL_BUFFER_SIZE, maxBufferedSize)];
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (target == null && count + length >= maxBufferedSize) {
+                target = outputMessage.getBody();
+                target.write(buffer, 0, count);
+                buffer = null;
+            }
+            if (target != null) {
+                target.write(bytes, offset, length);
+                return;
+            }
+            if (count + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.min(Math.max(buffer.length * 2, count + length), maxBufferedSize));
+            }
+            System.arraycopy(bytes, offset, buffer, count, length);
+            count += length;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            // the generator flushes once it is done, buffered bodies are only written by finish()
+            if (target != null) {
+                target.flush();
+            }
+        }
+
+        void finish() throws IOException {
+            if (target == null) {
+                outputMessage.getHeaders().setContentLength(count);
+                outputMessage.getBody().write(buffer, 0, count);
+            }
+        }
+    }
+}
@@ -1,37 +1,40 @@
 package com.example.fullstacktemplate.config;
 
-import com.example.fullstacktemplate.model.JwtToken;
+import com.example.fullstacktemplate.repository.SigningKeyRepository;
 import com.example.fullstacktemplate.repository.TokenRepository;
-import com.example.fullstacktemplate.service.TokenService;
+import com.example.fullstacktemplate.service.RefreshTokenService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.time.Instant;
 
 @Component
 @Slf4j
 public class ScheduledTasks {
     private final TokenRepository tokenRepository;
-    private final TokenService tokenService;
+    private final RefreshTokenService refreshTokenService;
+    private final SigningKeyRepository signingKeyRepository;
 
     @Autowired
-    public ScheduledTasks(TokenRepository tokenRepository, TokenService tokenService) {
+    public ScheduledTasks(TokenRepository tokenRepository, RefreshTokenService refreshTokenService, SigningKeyRepository signingKeyRepository) {
         this.tokenRepository = tokenRepository;
-        this.tokenService = tokenService;
+        this.refreshTokenService = refreshTokenService;
+        this.signingKeyRepository = signingKeyRepository;
     }
 
     @Scheduled(fixedDelayString = "${app.deleteExpiredTokensDelayMsec}")
+    @Transactional
     public void deleteExpiredTokens() {
         log.info("Deleting expired tokens");
-        List<JwtToken> expiredTokens = tokenRepository
-                .findAll()
-                .stream()
-                .filter(jwtToken -> !tokenService.validateJwtToken(jwtToken.getValue()))
-                .collect(Collectors.toList());
-        tokenRepository.deleteAll(expiredTokens);
-        log.info("Following tokens were deleted {}", expiredTokens);
+        int deletedTokens = tokenRepository.deleteExpired(Instant.now());
+        refreshTokenService.evictExpired();
+        log.info("{} expired tokens were deleted", deletedTokens);
+        int deletedSigningKeys = signingKeyRepository.deleteExpired(Instant.now());
+        if (deletedSigningKeys > 0) {
+            log.info("{} retired signing keys were deleted", deletedSigningKeys);
+        }
     }
 }
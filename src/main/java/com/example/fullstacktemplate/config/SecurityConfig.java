@@ -1,6 +1,7 @@
 package com.example.fullstacktemplate.config;
 
 import com.example.fullstacktemplate.service.CustomUserDetailsService;
+import com.example.fullstacktemplate.config.security.AllowedOriginsCorsConfiguration;
 import com.example.fullstacktemplate.config.security.RestAuthenticationEntryPoint;
 import com.example.fullstacktemplate.config.security.TokenAuthenticationFilter;
 import com.example.fullstacktemplate.service.TokenService;
@@ -28,12 +29,8 @@ import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
-import springfox.documentation.builders.PathSelectors;
-import springfox.documentation.builders.RequestHandlerSelectors;
-import springfox.documentation.spi.DocumentationType;
-import springfox.documentation.spring.web.plugins.Docket;
 
-import java.util.Arrays;
+import java.util.List;
 
 @Configuration
 @EnableWebSecurity
@@ -50,14 +47,16 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
     private final OAuth2AuthenticationSuccessHandler oAuth2AuthenticationSuccessHandler;
     private final OAuth2AuthenticationFailureHandler oAuth2AuthenticationFailureHandler;
     private final TokenService tokenService;
+    private final CookieOAuth2AuthorizationRequestService cookieOAuth2AuthorizationRequestService;
 
-    public SecurityConfig(CustomUserDetailsService customUserDetailsService, AppProperties appProperties, @Lazy  OAuth2UserService OAuth2UserService, @Lazy OAuth2AuthenticationSuccessHandler oAuth2AuthenticationSuccessHandler, OAuth2AuthenticationFailureHandler oAuth2AuthenticationFailureHandler, TokenService tokenService) {
+    public SecurityConfig(CustomUserDetailsService customUserDetailsService, AppProperties appProperties, @Lazy  OAuth2UserService OAuth2UserService, @Lazy OAuth2AuthenticationSuccessHandler oAuth2AuthenticationSuccessHandler, OAuth2AuthenticationFailureHandler oAuth2AuthenticationFailureHandler, TokenService tokenService, CookieOAuth2AuthorizationRequestService cookieOAuth2AuthorizationRequestService) {
         this.customUserDetailsService = customUserDetailsService;
         this.appProperties = appProperties;
         this.OAuth2UserService = OAuth2UserService;
         this.oAuth2AuthenticationSuccessHandler = oAuth2AuthenticationSuccessHandler;
         this.oAuth2AuthenticationFailureHandler = oAuth2AuthenticationFailureHandler;
         this.tokenService = tokenService;
+        this.cookieOAuth2AuthorizationRequestService = cookieOAuth2AuthorizationRequestService;
     }
 
 
@@ -66,11 +65,6 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
         return new TokenAuthenticationFilter(tokenService, customUserDetailsService);
     }
 
-    @Bean
-    public CookieOAuth2AuthorizationRequestService cookieAuthorizationRequestRepository() {
-        return new CookieOAuth2AuthorizationRequestService();
-    }
-
     @Override
     public void configure(AuthenticationManagerBuilder authenticationManagerBuilder) throws Exception {
         authenticationManagerBuilder
@@ -88,15 +82,6 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
         return new DefaultSecretGenerator(64);
     }
 
-    @Bean
-    public Docket api() {
-        return new Docket(DocumentationType.SWAGGER_2)
-                .select()
-                .apis(RequestHandlerSelectors.any())
-                .paths(PathSelectors.any())
-                .build();
-    }
-
     @Bean(BeanIds.AUTHENTICATION_MANAGER)
     @Override
     public AuthenticationManager authenticationManagerBean() throws Exception {
@@ -105,11 +90,11 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
     @Bean
     CorsConfigurationSource corsConfigurationSource() {
-        CorsConfiguration configuration = new CorsConfiguration();
-        configuration.setAllowedOriginPatterns(appProperties.getAllowedOrigins());
-        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "OPTIONS", "PUT"));
-        configuration.setAllowedHeaders(Arrays.asList("*"));
+        CorsConfiguration configuration = new AllowedOriginsCorsConfiguration(appProperties.getAllowedOrigins());
+        configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
+        configuration.setAllowedHeaders(List.of("*"));
         configuration.setAllowCredentials(true);
+        configuration.setMaxAge(appProperties.getCorsMaxAgeSecs());
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
         return source;
@@ -144,24 +129,31 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                         "/**/*.html",
                         "/**/*.css",
                         "/**/*.js",
+                        "/openapi.json",
                         "/v2/api-docs",
+                        "/v3/api-docs",
                         "/swagger-resources",
                         "/swagger-resources/**",
                         "/configuration/ui",
                         "/configuration/security",
                         "/swagger-ui.html",
+                        "/swagger-ui/**",
                         "/webjars/**"
                         )
                 .permitAll()
                 .antMatchers("/auth/**", "/oauth2/**")
                 .permitAll()
+                .antMatchers("/actuator/health/**")
+                .permitAll()
+                .antMatchers("/actuator/**")
+                .hasRole("ADMIN")
                 .anyRequest()
                 .authenticated()
                 .and()
                 .oauth2Login()
                 .authorizationEndpoint()
                 .baseUri("/oauth2/authorize")
-                .authorizationRequestRepository(cookieAuthorizationRequestRepository())
+                .authorizationRequestRepository(cookieOAuth2AuthorizationRequestService)
                 .and()
                 .redirectionEndpoint()
                 .baseUri("/oauth2/callback/*")
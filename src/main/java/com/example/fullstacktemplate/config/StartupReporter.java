@@ -0,0 +1,103 @@
+package com.example.fullstacktemplate.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.actuate.autoconfigure.endpoint.web.WebEndpointProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.support.ServletRequestHandledEvent;
+
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * Logs the slowest bean initializations once the application is ready and warns when the cold start, measured from
+ * jvm start, exceeds {@code app.startup-budget-msec}. The full timeline is available at {@code /actuator/startup},
+ * the time to ready and to the first served request are published as the {@code application.ready.time} and
+ * {@code application.first.request.time} metrics. Only requests handled after the application is ready count as
+ * served, which leaves out the warm-up requests of {@link JitWarmer}, and actuator requests such as probes never do.
+ */
+@Component
+@Slf4j
+public class StartupReporter {
+
+    private static final String BEAN_INSTANTIATION_STEP = "spring.beans.instantiate";
+    private static final int REPORTED_BEANS = 10;
+
+    private final long startupBudgetMsec;
+    private final boolean trainingRun;
+    private final String actuatorBasePath;
+    private final AtomicLong readyMsec = new AtomicLong();
+    private final AtomicLong firstRequestMsec = new AtomicLong();
+
+    public StartupReporter(@Value("${app.startup-budget-msec:0}") long startupBudgetMsec,
+                           @Value("${app.cds-training-run:false}") boolean trainingRun,
+                           WebEndpointProperties webEndpointProperties,
+                           MeterRegistry meterRegistry) {
+        this.startupBudgetMsec = startupBudgetMsec;
+        this.trainingRun = trainingRun;
+        this.actuatorBasePath = webEndpointProperties.getBasePath() + "/";
+        TimeGauge.builder("application.ready.time", readyMsec, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Time from jvm start until the application is ready")
+                .register(meterRegistry);
+        TimeGauge.builder("application.first.request.time", firstRequestMsec, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Time from jvm start until the first request was served")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void report(ApplicationReadyEvent event) {
+        long startupMsec = ManagementFactory.getRuntimeMXBean().getUptime();
+        readyMsec.set(startupMsec);
+        ApplicationStartup applicationStartup = event.getApplicationContext().getApplicationStartup();
+        if (applicationStartup instanceof BufferingApplicationStartup) {
+            String slowestBeans = ((BufferingApplicationStartup) applicationStartup).getBufferedTimeline().getEvents()
+                    .stream()
+                    .filter(timelineEvent -> BEAN_INSTANTIATION_STEP.equals(timelineEvent.getStartupStep().getName()))
+                    .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+                    .limit(REPORTED_BEANS)
+                    .map(timelineEvent -> getBeanName(timelineEvent.getStartupStep()) + "=" + timelineEvent.getDuration().toMillis() + "ms")
+                    .collect(Collectors.joining(", "));
+            log.info("Slowest bean initializations: {}", slowestBeans);
+        }
+        if (startupBudgetMsec > 0 && startupMsec > startupBudgetMsec) {
+            log.warn("Startup took {} ms, over the budget of {} ms", startupMsec, startupBudgetMsec);
+        } else {
+            log.info("Startup took {} ms", startupMsec);
+        }
+        if (trainingRun) {
+            log.info("Class data sharing training run finished, exiting");
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        }
+    }
+
+    @EventListener
+    public void onRequestHandled(ServletRequestHandledEvent event) {
+        if (firstRequestMsec.get() != 0 || readyMsec.get() == 0 || event.getRequestUrl().startsWith(actuatorBasePath)) {
+            return;
+        }
+        if (firstRequestMsec.compareAndSet(0, ManagementFactory.getRuntimeMXBean().getUptime())) {
+            log.info("First request served {} ms after jvm start", firstRequestMsec.get());
+        }
+    }
+
+    private String getBeanName(StartupStep startupStep) {
+        return StreamSupport.stream(startupStep.getTags().spliterator(), false)
+                .filter(tag -> "beanName".equals(tag.getKey()))
+                .map(StartupStep.Tag::getValue)
+                .findFirst()
+                .orElse("unknown");
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.fullstacktemplate.config;
+
+import com.example.fullstacktemplate.config.security.UserPrincipal;
+import com.example.fullstacktemplate.model.AuditAction;
+import com.example.fullstacktemplate.model.AuthProvider;
+import com.example.fullstacktemplate.model.FileDb;
+import com.example.fullstacktemplate.model.Role;
+import com.example.fullstacktemplate.model.User;
+import com.example.fullstacktemplate.service.UserAuditService;
+import com.example.fullstacktemplate.service.UserAuditSnapshot;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Captures committed inserts, updates and deletes of {@link User} entities for the audit trail, wherever in the code
+ * the change was made. Only snapshots of the old and new state are taken here, see {@link UserAuditService}.
+ */
+@Component
+public class UserAuditListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final UserAuditService userAuditService;
+    private final Timer captureTimer;
+
+    public UserAuditListener(EntityManagerFactory entityManagerFactory, UserAuditService userAuditService, AppProperties appProperties, MeterRegistry meterRegistry) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.userAuditService = userAuditService;
+        this.captureTimer = Timer.builder("audit.capture")
+                .description("Time spent capturing a user change on the committing thread")
+                .serviceLevelObjectives(Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(appProperties.getAudit().getCaptureBudgetMicros())))
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void register() {
+        if (!userAuditService.isEnabled()) {
+            return;
+        }
+        EventListenerRegistry eventListenerRegistry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        eventListenerRegistry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        eventListenerRegistry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        eventListenerRegistry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof User) {
+            long start = System.nanoTime();
+            userAuditService.record((Long) event.getId(), getActorId(), AuditAction.CREATED, null, snapshot(event.getPersister(), event.getState()));
+            captureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof User && event.getOldState() != null) {
+            long start = System.nanoTime();
+            userAuditService.record((Long) event.getId(), getActorId(), AuditAction.UPDATED, snapshot(event.getPersister(), event.getOldState()), snapshot(event.getPersister(), event.getState()));
+            captureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof User) {
+            long start = System.nanoTime();
+            userAuditService.record((Long) event.getId(), getActorId(), AuditAction.DELETED, snapshot(event.getPersister(), event.getDeletedState()), null);
+            captureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return User.class.equals(persister.getMappedClass());
+    }
+
+    /**
+     * Still abstract in Hibernate 5.4, which only calls {@link #requiresPostCommitHandling(EntityPersister)}.
+     */
+    @Override
+    @Deprecated
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return requiresPostCommitHandling(persister);
+    }
+
+    private UserAuditSnapshot snapshot(EntityPersister persister, Object[] state) {
+        String[] propertyNames = persister.getPropertyNames();
+        UserAuditSnapshot snapshot = new UserAuditSnapshot();
+        for (int i = 0; i < propertyNames.length; i++) {
+            Object value = state[i];
+            switch (propertyNames[i]) {
+                case "name":
+                    snapshot.setName((String) value);
+                    break;
+                case "email":
+                    snapshot.setEmail((String) value);
+                    break;
+                case "requestedNewEmail":
+                    snapshot.setRequestedNewEmail((String) value);
+                    break;
+                case "emailVerified":
+                    snapshot.setEmailVerified((Boolean) value);
+                    break;
+                case "password":
+                    snapshot.setPassword((String) value);
+                    break;
+                case "authProvider":
+                    snapshot.setAuthProvider((AuthProvider) value);
+                    break;
+                case "role":
+                    snapshot.setRole((Role) value);
+                    break;
+                case "twoFactorSecret":
+                    snapshot.setTwoFactorSecret((String) value);
+                    break;
+                case "twoFactorEnabled":
+                    snapshot.setTwoFactorEnabled((Boolean) value);
+                    break;
+                case "profileImage":
+                    snapshot.setProfileImageId(value == null ? null : ((FileDb) value).getId());
+                    break;
+            }
+        }
+        return snapshot;
+    }
+
+    private Long getActorId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal) {
+            return ((UserPrincipal) authentication.getPrincipal()).getId();
+        }
+        return null;
+    }
+}
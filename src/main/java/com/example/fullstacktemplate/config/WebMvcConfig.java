@@ -1,28 +0,0 @@
-package com.example.fullstacktemplate.config;
-
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.CorsRegistry;
-import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
-
-@Configuration
-public class WebMvcConfig implements WebMvcConfigurer {
-
-    private final long MAX_AGE_SECS = 3600;
-    private final AppProperties appProperties;
-
-    public WebMvcConfig(AppProperties appProperties) {
-        this.appProperties = appProperties;
-    }
-
-    @Override
-    public void addCorsMappings(CorsRegistry registry) {
-        registry.addMapping("/**")
-                .allowedOriginPatterns(appProperties.getAllowedOrigins().toArray(new String[]{}))
-                .allowedMethods("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS")
-                .allowCredentials(true)
-                .maxAge(MAX_AGE_SECS);
-    }
-
-
-}
@@ -0,0 +1,58 @@
+package com.example.fullstacktemplate.config.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Routes read-only transactions to the replica while it is healthy and within the allowed lag, everything else goes
+ * to the primary. Has to be wrapped in a lazy connection proxy so that the read-only flag of the transaction is known
+ * by the time the connection is fetched.
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final DataSource primaryDataSource;
+    private final ReplicaLagMonitor replicaLagMonitor;
+
+    public ReadWriteRoutingDataSource(DataSource primaryDataSource, DataSource replicaDataSource, ReplicaLagMonitor replicaLagMonitor) {
+        this.primaryDataSource = primaryDataSource;
+        this.replicaLagMonitor = replicaLagMonitor;
+        setTargetDataSources(Map.of(Route.PRIMARY, primaryDataSource, Route.REPLICA, replicaDataSource));
+        setDefaultTargetDataSource(primaryDataSource);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && replicaLagMonitor.isReplicaAvailable()) {
+            return Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSource dataSource = determineTargetDataSource();
+        if (dataSource == primaryDataSource) {
+            return dataSource.getConnection();
+        }
+        try {
+            return dataSource.getConnection();
+        } catch (SQLException e) {
+            log.warn("Replica connection failed, falling back to primary: {}", e.getMessage());
+            replicaLagMonitor.markUnavailable();
+            return primaryDataSource.getConnection();
+        }
+    }
+}
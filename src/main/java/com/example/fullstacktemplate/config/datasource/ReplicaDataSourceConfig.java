@@ -0,0 +1,71 @@
+package com.example.fullstacktemplate.config.datasource;
+
+import com.example.fullstacktemplate.config.AppProperties;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayProperties;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+/**
+ * Replaces the auto-configured datasource with a primary and a replica pool once {@code app.replica-datasource.url}
+ * is set. The replica pool copies the primary pool settings.
+ */
+@Configuration
+@ConditionalOnExpression("!'${app.replica-datasource.url:}'.isEmpty()")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(HikariDataSource primaryDataSource, AppProperties appProperties) {
+        AppProperties.ReplicaDataSource replica = appProperties.getReplicaDatasource();
+        HikariConfig config = new HikariConfig();
+        primaryDataSource.copyStateTo(config);
+        config.setPoolName(config.getPoolName() + "-replica");
+        config.setJdbcUrl(replica.getUrl());
+        config.setUsername(replica.getUsername());
+        config.setPassword(replica.getPassword());
+        return new HikariDataSource(config);
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(HikariDataSource replicaDataSource, AppProperties appProperties) {
+        AppProperties.ReplicaDataSource replica = appProperties.getReplicaDatasource();
+        return new ReplicaLagMonitor(replicaDataSource, replica.getLagQuery(), replica.getMaxLagMsec());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, HikariDataSource replicaDataSource, ReplicaLagMonitor replicaLagMonitor) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource, replicaLagMonitor));
+        dataSource.setDefaultAutoCommit(primaryDataSource.isAutoCommit());
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return dataSource;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.replica-datasource", name = "migrate", havingValue = "true")
+    public InitializingBean replicaMigration(HikariDataSource replicaDataSource, FlywayProperties flywayProperties) {
+        return () -> Flyway.configure()
+                .dataSource(replicaDataSource)
+                .locations(flywayProperties.getLocations().toArray(String[]::new))
+                .load()
+                .migrate();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.fullstacktemplate.config.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Periodically checks that the replica is reachable and, when a lag query is configured, that its replication lag in
+ * milliseconds stays under the limit. Read-only transactions fall back to the primary while the check fails.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private final DataSource replicaDataSource;
+    private final String lagQuery;
+    private final long maxLagMsec;
+    private volatile boolean replicaAvailable = true;
+
+    public ReplicaLagMonitor(DataSource replicaDataSource, String lagQuery, long maxLagMsec) {
+        this.replicaDataSource = replicaDataSource;
+        this.lagQuery = lagQuery;
+        this.maxLagMsec = maxLagMsec;
+    }
+
+    public boolean isReplicaAvailable() {
+        return replicaAvailable;
+    }
+
+    public void markUnavailable() {
+        replicaAvailable = false;
+    }
+
+    @Scheduled(fixedDelayString = "${app.replica-datasource.lag-check-msec:5000}")
+    public void checkReplica() {
+        boolean available;
+        try (Connection connection = replicaDataSource.getConnection()) {
+            available = connection.isValid(1) && getLagMsec(connection) <= maxLagMsec;
+        } catch (SQLException e) {
+            log.debug("Replica check failed: {}", e.getMessage());
+            available = false;
+        }
+        if (available != replicaAvailable) {
+            log.warn(available ? "Replica is available again, routing read-only transactions to it" : "Replica is unavailable or lagging, routing read-only transactions to primary");
+        }
+        replicaAvailable = available;
+    }
+
+    private long getLagMsec(Connection connection) throws SQLException {
+        if (!StringUtils.hasText(lagQuery)) {
+            return 0;
+        }
+        try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(lagQuery)) {
+            if (!resultSet.next()) {
+                return Long.MAX_VALUE;
+            }
+            long lagMsec = resultSet.getLong(1);
+            return resultSet.wasNull() ? 0 : lagMsec;
+        }
+    }
+}
@@ -2,30 +2,23 @@ package com.example.fullstacktemplate.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.support.ResourceBundleMessageSource;
 import org.springframework.web.servlet.LocaleResolver;
 import org.springframework.web.servlet.i18n.AcceptHeaderLocaleResolver;
 
-import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
 
 @Configuration
 public class i18nConfig {
-    @Bean
-    public ResourceBundleMessageSource messageSource(){
-        ResourceBundleMessageSource resourceBundleMessageSource = new ResourceBundleMessageSource();
-        resourceBundleMessageSource.setBasename("lang/res");
-        resourceBundleMessageSource.setDefaultEncoding(String.valueOf(StandardCharsets.UTF_8));
-        resourceBundleMessageSource.setDefaultLocale(Locale.ENGLISH);
-        resourceBundleMessageSource.setUseCodeAsDefaultMessage(true);
-        return resourceBundleMessageSource;
-    }
+
+    public static final String MESSAGES_BASENAME = "lang/res";
+    public static final List<Locale> SUPPORTED_LOCALES = List.of(Locale.ENGLISH, new Locale("cs"));
+
     @Bean
     public LocaleResolver acceptHeaderLocaleResolver() {
         AcceptHeaderLocaleResolver acceptHeaderLocaleResolver = new AcceptHeaderLocaleResolver();
         acceptHeaderLocaleResolver.setDefaultLocale(Locale.ENGLISH);
-        acceptHeaderLocaleResolver.setSupportedLocales(Arrays.asList(Locale.ENGLISH, new Locale("cs")));
+        acceptHeaderLocaleResolver.setSupportedLocales(SUPPORTED_LOCALES);
         return acceptHeaderLocaleResolver;
     }
 }
@@ -0,0 +1,95 @@
+package com.example.fullstacktemplate.config.security;
+
+import org.springframework.util.StringUtils;
+import org.springframework.web.cors.CorsConfiguration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Cors configuration for {@code app.allowedOrigins}. Origins without a wildcard are matched with a set lookup, the
+ * remaining ones are compiled to patterns once. Pattern decisions are kept in a bounded LRU cache, so a flood of
+ * random origins only evicts itself instead of freezing the cache with entries that are never seen again.
+ */
+public class AllowedOriginsCorsConfiguration extends CorsConfiguration {
+
+    private static final int MAX_CACHED_ORIGINS = 1024;
+
+    private final Set<String> exactOrigins = new HashSet<>();
+    private final List<Pattern> originPatterns = new ArrayList<>();
+    private final Map<String, Boolean> patternDecisions = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_CACHED_ORIGINS;
+        }
+    });
+
+    public AllowedOriginsCorsConfiguration(List<String> allowedOrigins) {
+        for (String allowedOrigin : allowedOrigins) {
+            String origin = normalize(allowedOrigin);
+            if (origin.contains("*")) {
+                originPatterns.add(compile(origin));
+            } else {
+                exactOrigins.add(origin);
+            }
+        }
+        setAllowedOriginPatterns(allowedOrigins);
+    }
+
+    @Override
+    public String checkOrigin(String requestOrigin) {
+        if (!StringUtils.hasText(requestOrigin)) {
+            return null;
+        }
+        String origin = normalize(requestOrigin);
+        if (exactOrigins.contains(origin)) {
+            return requestOrigin;
+        }
+        if (originPatterns.isEmpty()) {
+            return null;
+        }
+        Boolean allowed = patternDecisions.get(origin);
+        if (allowed == null) {
+            allowed = matchesPattern(origin);
+            patternDecisions.put(origin, allowed);
+        }
+        return allowed ? requestOrigin : null;
+    }
+
+    private boolean matchesPattern(String origin) {
+        for (Pattern originPattern : originPatterns) {
+            if (originPattern.matcher(origin).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Pattern compile(String originPattern) {
+        StringBuilder regex = new StringBuilder();
+        int start = 0;
+        for (int wildcard = originPattern.indexOf('*'); wildcard >= 0; wildcard = originPattern.indexOf('*', start)) {
+            if (wildcard > start) {
+                regex.append(Pattern.quote(originPattern.substring(start, wildcard)));
+            }
+            regex.append(".*");
+            start = wildcard + 1;
+        }
+        if (start < originPattern.length()) {
+            regex.append(Pattern.quote(originPattern.substring(start)));
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    private static String normalize(String origin) {
+        String normalized = origin.trim().toLowerCase(Locale.ROOT);
+        return normalized.endsWith("/") ? normalized.substring(0, normalized.length() - 1) : normalized;
+    }
+}
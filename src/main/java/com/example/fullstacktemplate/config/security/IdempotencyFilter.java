@@ -0,0 +1,229 @@
+package com.example.fullstacktemplate.config.security;
+
+import com.example.fullstacktemplate.config.AppProperties;
+import com.example.fullstacktemplate.model.IdempotencyRecord;
+import com.example.fullstacktemplate.service.IdempotencyService;
+import com.example.fullstacktemplate.service.TokenService;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Replays the stored response to a retried request with the same {@code Idempotency-Key} header instead of processing
+ * it again. A retry with a different body is rejected with 422, one arriving while the first request is still being
+ * processed with 409. Server errors and rate limited responses are not stored, so those requests can be retried. Keys
+ * are scoped to the user of a valid access token, otherwise to the client address, so callers never see each other's
+ * keys.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+    private static final int SC_UNPROCESSABLE_ENTITY = 422;
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final IdempotencyService idempotencyService;
+    private final TokenService tokenService;
+    private final boolean enabled;
+    private final Set<String> idempotentPaths;
+
+    public IdempotencyFilter(IdempotencyService idempotencyService, TokenService tokenService, AppProperties appProperties) {
+        this.idempotencyService = idempotencyService;
+        this.tokenService = tokenService;
+        this.enabled = appProperties.getIdempotency().isEnabled();
+        this.idempotentPaths = Set.copyOf(appProperties.getIdempotency().getPaths());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled
+                || !HttpMethod.POST.matches(request.getMethod())
+                || !idempotentPaths.contains(request.getServletPath())
+                || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String key = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        // the body is bounded by RequestSizeLimitFilter, which runs first
+        byte[] body = request.getInputStream().readAllBytes();
+        String idempotencyKey = request.getServletPath() + " " + getCaller(request) + " " + key;
+        String fingerprint = fingerprint(request, body);
+        Optional<IdempotencyRecord> cachedRecord = idempotencyService.findCached(idempotencyKey);
+        if (cachedRecord.isPresent()) {
+            respondWithStored(cachedRecord.get(), fingerprint, response);
+            return;
+        }
+        if (!idempotencyService.reserve(idempotencyKey, fingerprint)) {
+            Optional<IdempotencyRecord> record = idempotencyService.find(idempotencyKey);
+            if (record.isPresent()) {
+                respondWithStored(record.get(), fingerprint, response);
+                return;
+            }
+            // released in the meantime
+            response.sendError(HttpServletResponse.SC_CONFLICT);
+            return;
+        }
+        ContentCachingResponseWrapper cachingResponse = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            filterChain.doFilter(new CachedBodyRequest(request, body), cachingResponse);
+            int status = cachingResponse.getStatus();
+            if (status < HttpServletResponse.SC_INTERNAL_SERVER_ERROR && status != SC_TOO_MANY_REQUESTS) {
+                idempotencyService.complete(idempotencyKey, fingerprint, status, cachingResponse.getContentType(), cachingResponse.getContentAsByteArray());
+                completed = true;
+            }
+        } finally {
+            if (!completed) {
+                idempotencyService.release(idempotencyKey);
+            }
+            cachingResponse.copyBodyToResponse();
+        }
+    }
+
+    private void respondWithStored(IdempotencyRecord record, String fingerprint, HttpServletResponse response) throws IOException {
+        if (!record.getFingerprint().equals(fingerprint)) {
+            response.sendError(SC_UNPROCESSABLE_ENTITY);
+            return;
+        }
+        if (!record.isCompleted()) {
+            response.sendError(HttpServletResponse.SC_CONFLICT);
+            return;
+        }
+        response.setStatus(record.getStatus());
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (record.getContentType() != null) {
+            response.setContentType(record.getContentType());
+        }
+        if (record.getBody() != null) {
+            response.setContentLength(record.getBody().length);
+            response.getOutputStream().write(record.getBody());
+        }
+    }
+
+    private String getCaller(HttpServletRequest request) {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization != null && authorization.startsWith(BEARER_PREFIX)) {
+            Optional<Long> userId = tokenService.getValidAccessTokenClaims(authorization.substring(BEARER_PREFIX.length())).map(tokenService::getUserId);
+            if (userId.isPresent()) {
+                return "user:" + userId.get();
+            }
+        }
+        return "client:" + request.getRemoteAddr();
+    }
+
+    private static String fingerprint(HttpServletRequest request, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(request.getMethod().getBytes(StandardCharsets.US_ASCII));
+            digest.update((byte) ' ');
+            digest.update(request.getServletPath().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(body);
+            return Base64.getEncoder().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream inputStream = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return inputStream.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return inputStream.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return inputStream.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                /**
+                 * The whole body is in memory, so the listener is notified right away.
+                 */
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    try {
+                        if (!isFinished()) {
+                            readListener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            readListener.onAllDataRead();
+                        }
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.ISO_8859_1;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.fullstacktemplate.config.security;
+
+import com.example.fullstacktemplate.config.AppProperties;
+import com.example.fullstacktemplate.config.JitWarmer;
+import com.example.fullstacktemplate.service.RateLimitService;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Set;
+
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+
+    private final RateLimitService rateLimitService;
+    private final JitWarmer jitWarmer;
+    private final Set<String> limitedPaths;
+
+    public RateLimitFilter(RateLimitService rateLimitService, JitWarmer jitWarmer, AppProperties appProperties) {
+        this.rateLimitService = rateLimitService;
+        this.jitWarmer = jitWarmer;
+        this.limitedPaths = Set.copyOf(appProperties.getRateLimit().getPaths());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod()) || !limitedPaths.contains(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        if (jitWarmer.isWarmUpRequest(request)) {
+            request.setAttribute(RateLimitService.EXEMPT_REQUEST_ATTRIBUTE, Boolean.TRUE);
+            filterChain.doFilter(request, response);
+            return;
+        }
+        long retryAfterSeconds = rateLimitService.tryAcquireForClient(request.getRemoteAddr());
+        if (retryAfterSeconds > 0) {
+            response.setStatus(SC_TOO_MANY_REQUESTS);
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -1,33 +1,161 @@
 package com.example.fullstacktemplate.config.security;
 
 import com.example.fullstacktemplate.config.AppProperties;
+import com.example.fullstacktemplate.exception.PayloadTooLargeException;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.NestedServletException;
 
 import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
 import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
 import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
 
 @Component
-public  class RequestSizeLimitFilter extends OncePerRequestFilter {
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestSizeLimitFilter extends OncePerRequestFilter {
 
-    private final AppProperties appProperties;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final List<Map.Entry<String, Long>> routeLimits;
+    private final long defaultLimit;
 
     public RequestSizeLimitFilter(AppProperties appProperties) {
-        this.appProperties = appProperties;
+        this.routeLimits = List.copyOf(appProperties.getMaxRequestSizePerRoute().entrySet());
+        this.defaultLimit = appProperties.getMaxRequestSize();
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
+        long limit = resolveLimit(request.getServletPath());
+        if (request.getContentLengthLong() > limit) {
+            response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+            return;
+        }
+        try {
+            filterChain.doFilter(new SizeLimitedRequest(request, limit), response);
+        } catch (PayloadTooLargeException | NestedServletException e) {
+            if (!isPayloadTooLarge(e)) {
+                throw e;
+            }
+            if (!response.isCommitted()) {
+                response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+            }
+        }
+    }
+
+    private long resolveLimit(String path) {
+        for (Map.Entry<String, Long> routeLimit : routeLimits) {
+            if (pathMatcher.match(routeLimit.getKey(), path)) {
+                return routeLimit.getValue();
+            }
+        }
+        return defaultLimit;
+    }
+
+    private boolean isPayloadTooLarge(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof PayloadTooLargeException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class SizeLimitedRequest extends HttpServletRequestWrapper {
+
+        private final long limit;
+        private ServletInputStream inputStream;
+        private BufferedReader reader;
+
+        SizeLimitedRequest(HttpServletRequest request, long limit) {
+            super(request);
+            this.limit = limit;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                inputStream = new CountingInputStream(super.getInputStream(), limit);
+            }
+            return inputStream;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            if (reader == null) {
+                String encoding = getCharacterEncoding();
+                Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.ISO_8859_1;
+                reader = new BufferedReader(new InputStreamReader(getInputStream(), charset));
+            }
+            return reader;
+        }
+    }
+
+    private static class CountingInputStream extends ServletInputStream {
+
+        private final ServletInputStream delegate;
+        private final long limit;
+        private long count;
+
+        CountingInputStream(ServletInputStream delegate, long limit) {
+            this.delegate = delegate;
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = delegate.read(b, off, len);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        private void count(int read) throws PayloadTooLargeException {
+            count += read;
+            if (count > limit) {
+                throw new PayloadTooLargeException(limit);
+            }
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
 
-        if (request.getContentLengthLong() > appProperties.getMaxRequestSize()) {
-            throw new IOException();
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            delegate.setReadListener(readListener);
         }
-        filterChain.doFilter(request, response);
     }
 
 }
@@ -2,6 +2,7 @@ package com.example.fullstacktemplate.config.security;
 
 import com.example.fullstacktemplate.exception.BadRequestException;
 import com.example.fullstacktemplate.service.CustomUserDetailsService;
+import com.example.fullstacktemplate.service.JwtClaims;
 import com.example.fullstacktemplate.service.TokenService;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -30,9 +31,9 @@ public class TokenAuthenticationFilter extends OncePerRequestFilter {
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
-        String jwt = getAccessJwtFromRequest(request).orElse(null);
-        if (jwt != null && tokenService.validateJwtToken(jwt)) {
-            Long userId = tokenService.getUserIdFromToken(jwt);
+        Optional<JwtClaims> claims = getAccessJwtFromRequest(request).flatMap(tokenService::getValidAccessTokenClaims);
+        if (claims.isPresent()) {
+            Long userId = tokenService.getUserId(claims.get());
             UserDetails userDetails = customUserDetailsService.loadUserById(userId)
                     .orElseThrow(()->new BadRequestException("userNotFound"));
             UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
@@ -1,6 +1,7 @@
 package com.example.fullstacktemplate.config.security;
 
 import com.example.fullstacktemplate.model.User;
+import com.example.fullstacktemplate.repository.UserRepository;
 import lombok.Data;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -42,6 +43,16 @@ public class UserPrincipal implements OAuth2User, UserDetails {
         );
     }
 
+    public static UserPrincipal create(UserRepository.AuthPrincipal authPrincipal) {
+        return new UserPrincipal(
+                authPrincipal.getId(),
+                authPrincipal.getName(),
+                authPrincipal.getEmail(),
+                authPrincipal.getPassword(),
+                Collections.singletonList(new SimpleGrantedAuthority(String.format("ROLE_%s", authPrincipal.getRole())))
+        );
+    }
+
     public static UserPrincipal create(User user, Map<String, Object> attributes) {
         UserPrincipal userPrincipal = UserPrincipal.create(user);
         userPrincipal.setAttributes(attributes);
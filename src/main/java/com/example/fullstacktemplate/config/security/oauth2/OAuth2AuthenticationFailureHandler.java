@@ -3,7 +3,6 @@ package com.example.fullstacktemplate.config.security.oauth2;
 import com.example.fullstacktemplate.service.CookieOAuth2AuthorizationRequestService;
 import com.example.fullstacktemplate.util.CookieUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.support.ResourceBundleMessageSource;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
 import org.springframework.stereotype.Component;
@@ -27,7 +26,7 @@ public class OAuth2AuthenticationFailureHandler extends SimpleUrlAuthenticationF
 
     private  final CookieOAuth2AuthorizationRequestService cookieOAuth2AuthorizationRequestService;
 
-    public OAuth2AuthenticationFailureHandler(CookieOAuth2AuthorizationRequestService cookieOAuth2AuthorizationRequestService, ResourceBundleMessageSource messageSource, LocaleResolver acceptHeaderLocaleResolver) {
+    public OAuth2AuthenticationFailureHandler(CookieOAuth2AuthorizationRequestService cookieOAuth2AuthorizationRequestService, LocaleResolver acceptHeaderLocaleResolver) {
         this.cookieOAuth2AuthorizationRequestService = cookieOAuth2AuthorizationRequestService;
     }
 
@@ -4,7 +4,7 @@ import com.example.fullstacktemplate.config.AppProperties;
 import com.example.fullstacktemplate.config.security.UserPrincipal;
 import com.example.fullstacktemplate.dto.AuthResponseDto;
 import com.example.fullstacktemplate.exception.BadRequestException;
-import com.example.fullstacktemplate.model.User;
+import com.example.fullstacktemplate.repository.UserRepository;
 import com.example.fullstacktemplate.repository.TokenRepository;
 import com.example.fullstacktemplate.service.*;
 import com.example.fullstacktemplate.util.CookieUtils;
@@ -73,8 +73,8 @@ public class OAuth2AuthenticationSuccessHandler extends SimpleUrlAuthenticationS
 
         String targetUrl = redirectUri.orElse(getDefaultTargetUrl());
 
-        User user = userService.findById((((UserPrincipal) authentication.getPrincipal()).getId())).orElseThrow(() -> new BadRequestException("userNotFound"));
-        if (user.getTwoFactorEnabled()) {
+        UserRepository.LoginState loginState = userService.findLoginState(((UserPrincipal) authentication.getPrincipal()).getId()).orElseThrow(() -> new BadRequestException("userNotFound"));
+        if (loginState.getTwoFactorEnabled()) {
             return determineTargetTwoFactorUrl(request, redirectUri, authentication);
         }
         AuthResponseDto authResponseDto = authenticationService.login((UserPrincipal) authentication.getPrincipal());
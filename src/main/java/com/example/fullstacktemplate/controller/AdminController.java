@@ -0,0 +1,53 @@
+package com.example.fullstacktemplate.controller;
+
+import com.example.fullstacktemplate.dto.UserAuditHistoryDto;
+import com.example.fullstacktemplate.dto.UserDirectoryPageDto;
+import com.example.fullstacktemplate.dto.UserSearchDto;
+import com.example.fullstacktemplate.service.UserAuditService;
+import com.example.fullstacktemplate.service.UserDirectoryService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminController extends Controller {
+
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final UserDirectoryService userDirectoryService;
+    private final UserAuditService userAuditService;
+
+    public AdminController(UserDirectoryService userDirectoryService, UserAuditService userAuditService) {
+        this.userDirectoryService = userDirectoryService;
+        this.userAuditService = userAuditService;
+    }
+
+    @GetMapping("/admin/users")
+    public UserDirectoryPageDto getUsers(UserSearchDto search,
+                                         @RequestParam(defaultValue = "0") long afterId,
+                                         @RequestParam(defaultValue = "50") int size) {
+        return userDirectoryService.findPage(search, afterId, size);
+    }
+
+    @GetMapping("/admin/users/{userId}/history")
+    public UserAuditHistoryDto getUserHistory(@PathVariable Long userId,
+                                              @RequestParam(defaultValue = "" + Long.MAX_VALUE) long beforeId,
+                                              @RequestParam(defaultValue = "50") int size) {
+        return userAuditService.getHistory(userId, beforeId, size);
+    }
+
+    @GetMapping("/admin/users/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(UserSearchDto search) {
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users.ndjson\"")
+                .body(outputStream -> userDirectoryService.export(search, outputStream));
+    }
+}
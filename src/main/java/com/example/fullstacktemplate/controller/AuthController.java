@@ -2,7 +2,6 @@ package com.example.fullstacktemplate.controller;
 
 import com.example.fullstacktemplate.dto.*;
 import com.example.fullstacktemplate.exception.BadRequestException;
-import com.example.fullstacktemplate.model.JwtToken;
 import com.example.fullstacktemplate.model.User;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -13,7 +12,6 @@ import javax.validation.Valid;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
-import java.util.Optional;
 
 @RestController
 @RequestMapping("/auth")
@@ -23,33 +21,32 @@ public class AuthController extends Controller {
 
     @PostMapping("/login")
     public AuthResponseDto authenticateUser(@Valid @RequestBody LoginRequestDto loginRequestDto) {
+        rateLimitService.checkAccount(loginRequestDto.getEmail());
         return authenticationService.login(loginRequestDto);
     }
 
     @PostMapping("/login/verify")
     public AuthResponseDto verifyLogin(@Valid @RequestBody LoginVerificationRequestDto loginVerificationRequestDto) {
+        rateLimitService.checkAccount(loginVerificationRequestDto.getEmail());
         return authenticationService.loginWithVerificationCode(loginVerificationRequestDto);
     }
 
     @PostMapping("/login/recovery-code")
     public AuthResponseDto loginRecoveryCode(@Valid @RequestBody LoginVerificationRequestDto loginVerificationRequestDto) {
+        rateLimitService.checkAccount(loginVerificationRequestDto.getEmail());
         return authenticationService.loginWithRecoveryCode(loginVerificationRequestDto);
     }
 
     @GetMapping("/access-token")
     public TokenResponseDto refreshAuth() {
-        Optional<JwtToken> optionalRefreshToken = authenticationService.getRefreshToken();
-        if (optionalRefreshToken.isPresent()) {
-            Optional<User> optionalUser = userService.findById(tokenService.getUserIdFromToken(optionalRefreshToken.get().getValue()));
-            if (optionalUser.isPresent() && optionalRefreshToken.get().getUser().getId().equals(optionalUser.get().getId())) {
-                return new TokenResponseDto(authenticationService.createAccessToken(optionalUser.get()));
-            }
-        }
-        throw new BadRequestException("tokenExpired");
+        return authenticationService.refreshAccessToken()
+                .map(TokenResponseDto::new)
+                .orElseThrow(() -> new BadRequestException("tokenExpired"));
     }
 
     @PostMapping("/signup")
     public ResponseEntity<?> registerUser(@Valid @RequestBody SignUpRequestDto signUpRequestDto) throws URISyntaxException, IOException {
+        rateLimitService.checkAccount(signUpRequestDto.getEmail());
         userService.createNewUser(signUpRequestDto);
         return ResponseEntity.ok(new ApiResponseDto(true, messageService.getMessage("userWasRegistered")));
     }
@@ -68,6 +65,7 @@ public class AuthController extends Controller {
 
     @PostMapping("/forgotten-password")
     public ResponseEntity<?> forgottenPassword(@Valid @RequestBody ForgottenPasswordRequestDto forgottenPasswordRequestDto) throws MalformedURLException, URISyntaxException {
+        rateLimitService.checkAccount(forgottenPasswordRequestDto.getEmail());
         User user = userService.findByEmail(forgottenPasswordRequestDto.getEmail()).orElseThrow(() -> new BadRequestException("userNotFound"));
         if (user.getEmailVerified()) {
             userService.requestPasswordReset(user);
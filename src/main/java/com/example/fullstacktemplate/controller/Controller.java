@@ -2,8 +2,9 @@ package com.example.fullstacktemplate.controller;
 
 import com.example.fullstacktemplate.config.AppProperties;
 import com.example.fullstacktemplate.dto.ApiResponseDto;
-import com.example.fullstacktemplate.exception.BadRequestException;
-import com.example.fullstacktemplate.exception.UnauthorizedRequestException;
+import com.example.fullstacktemplate.exception.DomainException;
+import com.example.fullstacktemplate.exception.PayloadTooLargeException;
+import com.example.fullstacktemplate.exception.TooManyRequestsException;
 import com.example.fullstacktemplate.repository.FileDbRepository;
 import com.example.fullstacktemplate.repository.TwoFactoryRecoveryCodeRepository;
 import com.example.fullstacktemplate.service.CustomUserDetailsService;
@@ -11,14 +12,24 @@ import com.example.fullstacktemplate.service.TokenService;
 import com.example.fullstacktemplate.service.*;
 import dev.samstevens.totp.secret.SecretGenerator;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.TypeMismatchException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.validation.BindException;
+import org.springframework.web.HttpMediaTypeNotSupportedException;
+import org.springframework.web.HttpRequestMethodNotSupportedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.ServletRequestBindingException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.multipart.support.MissingServletRequestPartException;
 
 import java.util.stream.Collectors;
 
@@ -52,11 +63,16 @@ public abstract class Controller {
     protected MessageService messageService;
     @Autowired
     protected FileDbRepository fileDbRepository;
+    @Autowired
+    protected RateLimitService rateLimitService;
+    @Autowired
+    protected ErrorReportingService errorReportingService;
 
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ApiResponseDto handleValidationExceptions(
             MethodArgumentNotValidException ex) {
+        errorReportingService.record("validationFailed");
         return new ApiResponseDto(false, ex.getBindingResult()
                 .getAllErrors()
                 .stream()
@@ -64,24 +80,67 @@ public abstract class Controller {
                 .collect(Collectors.joining(",")));
     }
 
-    @ResponseStatus(HttpStatus.BAD_REQUEST)
-    @ExceptionHandler(BadRequestException.class)
-    public ApiResponseDto handleBadRequestException(BadRequestException ex) {
-        log.error(ex.getMessage());
-        return new ApiResponseDto(false, messageService.getMessage(ex.getLocalizedMessage()));
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<ApiResponseDto> handleNotReadableException(HttpMessageNotReadableException ex) {
+        if (ex.getCause() instanceof PayloadTooLargeException) {
+            return handlePayloadTooLarge();
+        }
+        return errorResponse(HttpStatus.BAD_REQUEST, "invalidRequestBody");
+    }
+
+    @ExceptionHandler(PayloadTooLargeException.class)
+    public ResponseEntity<ApiResponseDto> handlePayloadTooLarge() {
+        return errorResponse(HttpStatus.PAYLOAD_TOO_LARGE, "requestTooLarge");
     }
 
-    @ResponseStatus(HttpStatus.UNAUTHORIZED)
-    @ExceptionHandler(value = {UnauthorizedRequestException.class, AuthenticationException.class})
-    public ApiResponseDto handleUnauthorized() {
-        return new ApiResponseDto(false, messageService.getMessage("invalidCredentials"));
+    @ExceptionHandler({ServletRequestBindingException.class, TypeMismatchException.class, BindException.class, MissingServletRequestPartException.class})
+    public ResponseEntity<ApiResponseDto> handleInvalidRequest() {
+        return errorResponse(HttpStatus.BAD_REQUEST, "invalidRequest");
     }
 
-    @ResponseStatus(HttpStatus.UNAUTHORIZED)
-    @ExceptionHandler({Exception.class, RuntimeException.class})
+    @ExceptionHandler(HttpRequestMethodNotSupportedException.class)
+    public ResponseEntity<ApiResponseDto> handleMethodNotSupported() {
+        return errorResponse(HttpStatus.METHOD_NOT_ALLOWED, "invalidRequest");
+    }
+
+    @ExceptionHandler(HttpMediaTypeNotSupportedException.class)
+    public ResponseEntity<ApiResponseDto> handleMediaTypeNotSupported() {
+        return errorResponse(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "invalidRequest");
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ApiResponseDto> handleTooManyRequests(TooManyRequestsException ex) {
+        errorReportingService.record(ex.getErrorCode());
+        return ResponseEntity.status(ex.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()))
+                .body(new ApiResponseDto(false, messageService.getMessage(ex.getErrorCode()), ex.getErrorCode()));
+    }
+
+    @ExceptionHandler(DomainException.class)
+    public ResponseEntity<ApiResponseDto> handleDomainException(DomainException ex) {
+        return errorResponse(ex.getStatus(), ex.getErrorCode());
+    }
+
+    @ExceptionHandler(AuthenticationException.class)
+    public ResponseEntity<ApiResponseDto> handleUnauthorized() {
+        return errorResponse(HttpStatus.UNAUTHORIZED, "invalidCredentials");
+    }
+
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<ApiResponseDto> handleAccessDenied() {
+        return errorResponse(HttpStatus.FORBIDDEN, "invalidAccess");
+    }
+
+    @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
+    @ExceptionHandler(Exception.class)
     public ApiResponseDto handleAnyException(Exception e) {
-        log.error("Error while processing exception",e);
-        return new ApiResponseDto(false, messageService.getMessage("somethingWrong"));
+        errorReportingService.record(e.getClass().getName(), e);
+        return new ApiResponseDto(false, messageService.getMessage("somethingWrong"), "somethingWrong");
+    }
+
+    private ResponseEntity<ApiResponseDto> errorResponse(HttpStatus status, String errorCode) {
+        errorReportingService.record(errorCode);
+        return ResponseEntity.status(status).body(new ApiResponseDto(false, messageService.getMessage(errorCode), errorCode));
     }
 
 }
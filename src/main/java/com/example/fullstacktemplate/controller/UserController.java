@@ -16,6 +16,7 @@ import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
+import java.util.List;
 
 @RestController
 @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
@@ -29,7 +30,7 @@ public class UserController extends Controller {
 
     @GetMapping("/user/me")
     public UserDto getCurrentUser(@CurrentUser UserPrincipal userPrincipal) {
-        return userService.findById(userPrincipal.getId())
+        return userService.findProfileSummary(userPrincipal.getId())
                 .map(userMapper::toDto)
                 .orElseThrow(() -> new BadRequestException("userNotFound"));
     }
@@ -50,7 +51,7 @@ public class UserController extends Controller {
     public ResponseEntity<?> changePassword(@CurrentUser UserPrincipal userPrincipal, @Valid @RequestBody ChangePasswordDto changePasswordDto) {
         User user = userService.findById(userPrincipal.getId()).orElseThrow(() -> new BadRequestException("userNotFound"));
         user = userService.updatePassword(user, changePasswordDto);
-        String accessToken = authenticationService.createAccessToken(user);
+        String accessToken = authenticationService.createSession(user);
         AuthResponseDto authResponseDto = new AuthResponseDto();
         authResponseDto.setTwoFactorRequired(false);
         authResponseDto.setAccessToken(accessToken);
@@ -66,9 +67,9 @@ public class UserController extends Controller {
     }
 
     @PostMapping("/two-factor-setup")
-    public TwoFactorSetupDto getTwoFactorSetup(@CurrentUser UserPrincipal userPrincipal) throws QrGenerationException {
+    public TwoFactorSetupDto getTwoFactorSetup(@CurrentUser UserPrincipal userPrincipal, @RequestParam(defaultValue = "svg") QrCodeFormat format) throws QrGenerationException {
         User user = userService.findById(userPrincipal.getId()).orElseThrow(() -> new BadRequestException("userNotFound"));
-        return userService.getTwoFactorSetup(user);
+        return userService.getTwoFactorSetup(user, format);
     }
 
     @PostMapping("/verify-two-factor")
@@ -77,6 +78,23 @@ public class UserController extends Controller {
         return userService.verifyTwoFactor(user, twoFactorVerificationRequestDto.getCode());
     }
 
+    @GetMapping("/sessions")
+    public List<SessionDto> getSessions(@CurrentUser UserPrincipal userPrincipal) {
+        return authenticationService.getSessions(userPrincipal.getId());
+    }
+
+    @DeleteMapping("/sessions/{sessionId}")
+    public ResponseEntity<?> revokeSession(@CurrentUser UserPrincipal userPrincipal, @PathVariable String sessionId) {
+        authenticationService.revokeSession(userPrincipal.getId(), sessionId);
+        return ResponseEntity.ok(new ApiResponseDto(true, messageService.getMessage("sessionRevoked")));
+    }
+
+    @DeleteMapping("/sessions")
+    public ResponseEntity<?> revokeAllSessions(@CurrentUser UserPrincipal userPrincipal) {
+        authenticationService.revokeAllSessions(userPrincipal.getId());
+        return ResponseEntity.ok(new ApiResponseDto(true, messageService.getMessage("allSessionsRevoked")));
+    }
+
     @PostMapping("/logout")
     public ResponseEntity<?> logout(@CurrentUser UserPrincipal userPrincipal) {
         User user = userService.findById(userPrincipal.getId()).orElseThrow(() -> new BadRequestException("userNotFound"));
@@ -1,5 +1,6 @@
 package com.example.fullstacktemplate.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -8,9 +9,17 @@ import lombok.Setter;
 public class ApiResponseDto {
     private boolean success;
     private String message;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String errorCode;
 
     public ApiResponseDto(boolean success, String message) {
         this.success = success;
         this.message = message;
     }
+
+    public ApiResponseDto(boolean success, String message, String errorCode) {
+        this.success = success;
+        this.message = message;
+        this.errorCode = errorCode;
+    }
 }
@@ -0,0 +1,7 @@
+package com.example.fullstacktemplate.dto;
+
+public enum QrCodeFormat {
+    svg,
+    png,
+    uri
+}
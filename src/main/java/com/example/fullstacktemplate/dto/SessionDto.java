@@ -0,0 +1,19 @@
+package com.example.fullstacktemplate.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+public class SessionDto {
+
+    private String id;
+    private String userAgent;
+    private String ipAddress;
+    private Instant startedAt;
+    private Instant lastUsedAt;
+    private Instant expiresAt;
+    private boolean current;
+}
@@ -9,4 +9,5 @@ public class TwoFactorSetupDto {
 
     private byte[] qrData;
     private String mimeType;
+    private String otpAuthUri;
 }
@@ -0,0 +1,19 @@
+package com.example.fullstacktemplate.dto;
+
+import com.example.fullstacktemplate.model.AuditAction;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+public class UserAuditEventDto {
+    private Long id;
+    private Long actorId;
+    private AuditAction action;
+    @JsonRawValue
+    private String changes;
+    private Instant createdAt;
+}
@@ -0,0 +1,15 @@
+package com.example.fullstacktemplate.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class UserAuditHistoryDto {
+    private List<UserAuditEventDto> events;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long nextBeforeId;
+}
@@ -0,0 +1,18 @@
+package com.example.fullstacktemplate.dto;
+
+import com.example.fullstacktemplate.model.AuthProvider;
+import com.example.fullstacktemplate.model.Role;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class UserDirectoryEntryDto {
+    private Long id;
+    private String name;
+    private String email;
+    private AuthProvider authProvider;
+    private Role role;
+    private Boolean emailVerified;
+    private Boolean twoFactorEnabled;
+}
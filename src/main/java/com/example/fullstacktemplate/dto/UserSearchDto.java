@@ -0,0 +1,15 @@
+package com.example.fullstacktemplate.dto;
+
+import com.example.fullstacktemplate.model.AuthProvider;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class UserSearchDto {
+    private String emailPrefix;
+    private String namePrefix;
+    private AuthProvider provider;
+    private Boolean emailVerified;
+    private Boolean twoFactorEnabled;
+}
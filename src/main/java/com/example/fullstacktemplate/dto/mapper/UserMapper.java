@@ -1,28 +1,105 @@
 package com.example.fullstacktemplate.dto.mapper;
 
 
+import com.example.fullstacktemplate.dto.FileDbDto;
 import com.example.fullstacktemplate.dto.O2AuthInfoDto;
+import com.example.fullstacktemplate.dto.UserDirectoryEntryDto;
 import com.example.fullstacktemplate.dto.UserDto;
 import com.example.fullstacktemplate.model.AuthProvider;
+import com.example.fullstacktemplate.model.FileDb;
+import com.example.fullstacktemplate.model.FileType;
 import com.example.fullstacktemplate.model.User;
+import com.example.fullstacktemplate.repository.UserRepository;
 import com.nimbusds.oauth2.sdk.util.StringUtils;
+import org.mapstruct.AfterMapping;
+import org.mapstruct.BeanMapping;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
 import org.mapstruct.Named;
+import org.mapstruct.NullValuePropertyMappingStrategy;
 
-@Mapper(componentModel = "spring", uses = {UserMapperResolver.class, FileDbMapper.class})
-public interface UserMapper extends CustomMapper<UserDto, User> {
+import java.util.Arrays;
+import java.util.Objects;
 
-    @Override
-    @Mapping(source = "dto.email", target = "requestedNewEmail")
+@Mapper(componentModel = "spring", uses = FileDbMapper.class)
+public interface UserMapper {
+
+    /**
+     * Applies the editable profile fields to an already managed user. Unchanged values are left untouched so that
+     * dirty checking only flushes the columns that actually changed. A missing profile image keeps the current one.
+     */
+    @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "id", ignore = true)
     @Mapping(target = "email", ignore = true)
+    @Mapping(target = "requestedNewEmail", ignore = true)
+    @Mapping(target = "profileImage", ignore = true)
+    @Mapping(target = "emailVerified", ignore = true)
+    @Mapping(target = "password", ignore = true)
+    @Mapping(target = "authProvider", ignore = true)
+    @Mapping(target = "role", ignore = true)
+    @Mapping(target = "providerId", ignore = true)
+    @Mapping(target = "twoFactorSecret", ignore = true)
     @Mapping(target = "twoFactorEnabled", ignore = true)
-    User toEntity(Long id, UserDto dto);
+    @Mapping(target = "deletedAt", ignore = true)
+    @Mapping(target = "twoFactorRecoveryCodes", ignore = true)
+    @Mapping(target = "jwtTokens", ignore = true)
+    void updateEntity(UserDto dto, @MappingTarget User user);
+
+    @AfterMapping
+    default void updateProfileImage(UserDto dto, @MappingTarget User user) {
+        FileDbDto newImage = dto.getProfileImage();
+        if (newImage == null) {
+            return;
+        }
+        FileDb currentImage = user.getProfileImage();
+        FileType newType = FileType.fromMimeType(newImage.getType()).orElse(null);
+        if (currentImage == null) {
+            user.setProfileImage(new FileDb(newImage.getName(), newType, newImage.getData()));
+            return;
+        }
+        if (!Objects.equals(currentImage.getName(), newImage.getName())) {
+            currentImage.setName(newImage.getName());
+        }
+        if (currentImage.getType() != newType) {
+            currentImage.setType(newType);
+        }
+        if (!Arrays.equals(currentImage.getData(), newImage.getData())) {
+            currentImage.setData(newImage.getData());
+        }
+    }
 
-    @Override
     @Mapping(target = "o2AuthInfo", source = "user" ,qualifiedByName = "providerToIsO2AuthAccount")
     UserDto toDto(User user);
 
+    @Mapping(target = "profileImage", source = "profileSummary", qualifiedByName = "profileSummaryToProfileImage")
+    @Mapping(target = "o2AuthInfo", source = "profileSummary", qualifiedByName = "profileSummaryToO2AuthInfo")
+    UserDto toDto(UserRepository.ProfileSummary profileSummary);
+
+    UserDirectoryEntryDto toDto(UserRepository.DirectoryEntry directoryEntry);
+
+    @Named("profileSummaryToProfileImage")
+    default FileDbDto createProfileImage(UserRepository.ProfileSummary profileSummary) {
+        if (profileSummary.getProfileImageData() == null) {
+            return null;
+        }
+        FileDbDto fileDbDto = new FileDbDto();
+        fileDbDto.setName(profileSummary.getProfileImageName());
+        fileDbDto.setType(profileSummary.getProfileImageType() == null ? null : profileSummary.getProfileImageType().getMimeType());
+        fileDbDto.setData(profileSummary.getProfileImageData());
+        return fileDbDto;
+    }
+
+    @Named("profileSummaryToO2AuthInfo")
+    default O2AuthInfoDto createO2AuthInfo(UserRepository.ProfileSummary profileSummary) {
+        if (profileSummary.getAuthProvider() != AuthProvider.local) {
+            O2AuthInfoDto o2AuthInfoDto = new O2AuthInfoDto();
+            o2AuthInfoDto.setNeedToSetPassword(!profileSummary.getPasswordSet());
+            return o2AuthInfoDto;
+        }
+        return null;
+    }
+
     @Named("providerToIsO2AuthAccount")
     default O2AuthInfoDto createO2AuthInfo(User user) {
         if (user.getAuthProvider() != AuthProvider.local){
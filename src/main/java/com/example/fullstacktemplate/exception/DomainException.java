@@ -0,0 +1,23 @@
+package com.example.fullstacktemplate.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Expected failure of a request, its message is the i18n key of the error. Domain exceptions are thrown for routine
+ * outcomes such as an expired token, so they do not capture a stack trace.
+ */
+@Getter
+public abstract class DomainException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    protected DomainException(String errorCode, HttpStatus status) {
+        super(errorCode, null, false, false);
+        this.status = status;
+    }
+
+    public String getErrorCode() {
+        return getMessage();
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.fullstacktemplate.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.io.IOException;
+
+@ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+public class PayloadTooLargeException extends IOException {
+
+    public PayloadTooLargeException(long maxSizeBytes) {
+        super(String.format("Request body exceeds limit of %d bytes", maxSizeBytes));
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
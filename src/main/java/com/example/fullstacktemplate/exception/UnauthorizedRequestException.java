@@ -4,10 +4,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
 @ResponseStatus(HttpStatus.UNAUTHORIZED)
-public class UnauthorizedRequestException extends RuntimeException {
+public class UnauthorizedRequestException extends DomainException {
 
     public UnauthorizedRequestException() {
-        super();
+        super("invalidCredentials", HttpStatus.UNAUTHORIZED);
     }
 
 }
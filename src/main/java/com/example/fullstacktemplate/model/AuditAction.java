@@ -0,0 +1,7 @@
+package com.example.fullstacktemplate.model;
+
+public enum AuditAction {
+    CREATED,
+    UPDATED,
+    DELETED
+}
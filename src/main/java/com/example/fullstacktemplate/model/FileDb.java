@@ -2,6 +2,7 @@ package com.example.fullstacktemplate.model;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
 
@@ -9,6 +10,7 @@ import javax.persistence.*;
 @Table(name = "file")
 @Getter
 @Setter
+@DynamicUpdate
 public class FileDb {
 
     public FileDb() {
@@ -0,0 +1,41 @@
+package com.example.fullstacktemplate.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import java.time.Instant;
+
+/**
+ * Response stored for an {@code Idempotency-Key}. While the first request is still being processed only the key and
+ * the fingerprint of the request are set.
+ */
+@Entity
+@Getter
+@Setter
+public class IdempotencyRecord {
+
+    @Id
+    @Column(length = 512)
+    private String idempotencyKey;
+
+    @Column(nullable = false)
+    private String fingerprint;
+
+    private Integer status;
+
+    private String contentType;
+
+    @Lob
+    private byte[] body;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    public boolean isCompleted() {
+        return status != null;
+    }
+}
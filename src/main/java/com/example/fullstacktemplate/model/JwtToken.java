@@ -5,6 +5,7 @@ import lombok.Setter;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
+import java.time.Instant;
 
 @Entity
 @Getter
@@ -19,10 +20,32 @@ public class JwtToken {
     @Enumerated(EnumType.STRING)
     private TokenType tokenType;
 
+    @Column(length = 2048)
     private String value;
 
-    @ManyToOne(targetEntity = User.class, fetch = FetchType.EAGER)
+    // may reference a soft deleted user, use getUser().getId() which does not initialize the proxy
+    @ManyToOne(targetEntity = User.class, fetch = FetchType.LAZY)
     @JoinColumn(nullable = false, name = "user_id")
     private User user;
 
+    private Instant expiresAt;
+
+    @Column(nullable = false)
+    private Boolean revoked = false;
+
+    private String familyId;
+
+    private Instant createdAt;
+
+    private Instant sessionStartedAt;
+
+    @Column(length = 512)
+    private String userAgent;
+
+    private String ipAddress;
+
+    private Instant rotatedAt;
+
+    private Long successorId;
+
 }
@@ -0,0 +1,20 @@
+package com.example.fullstacktemplate.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+@Entity
+@Getter
+@Setter
+public class RateLimitBucket {
+
+    @Id
+    private String bucketKey;
+
+    @Column(nullable = false)
+    private Long theoreticalArrivalTime;
+}
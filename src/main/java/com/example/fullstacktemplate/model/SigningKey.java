@@ -0,0 +1,36 @@
+package com.example.fullstacktemplate.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.Instant;
+
+@Entity
+@Getter
+@Setter
+public class SigningKey {
+
+    @Id
+    private String keyId;
+
+    @Column(nullable = false, unique = true)
+    private Long generation;
+
+    @Column(nullable = false)
+    private String algorithm;
+
+    @Column(nullable = false, length = 1024)
+    private String publicKey;
+
+    @Column(nullable = false, length = 4096)
+    private String privateKey;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+}
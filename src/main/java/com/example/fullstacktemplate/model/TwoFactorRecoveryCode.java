@@ -17,7 +17,7 @@ public class TwoFactorRecoveryCode {
 
     private String recoveryCode;
 
-    @ManyToOne(targetEntity = User.class, fetch = FetchType.EAGER)
+    @ManyToOne(targetEntity = User.class, fetch = FetchType.LAZY)
     @JoinColumn(nullable = false, name = "user_id")
     private User user;
 
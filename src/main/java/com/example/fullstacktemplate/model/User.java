@@ -2,16 +2,27 @@ package com.example.fullstacktemplate.model;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.Where;
 
 import javax.persistence.*;
+import java.time.Instant;
 import java.util.List;
 
+/**
+ * Soft deleted users, with {@code deletedAt} set, are hidden from queries and loads by the {@link Where} restriction.
+ * Their refresh tokens and recovery codes are deleted when they are marked, so no entity references them until the
+ * purge removes the row. Their name and email are null, so both can be registered again right away without any value a
+ * new user could collide with.
+ */
 @Entity
 @Table(name = "users", uniqueConstraints = {
         @UniqueConstraint(columnNames = "email")
 })
 @Getter
 @Setter
+@DynamicUpdate
+@Where(clause = "deleted_at is null")
 public class User {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -26,7 +37,7 @@ public class User {
     @Column
     private String requestedNewEmail;
 
-    @OneToOne(targetEntity = FileDb.class, fetch = FetchType.EAGER, cascade = CascadeType.ALL)
+    @OneToOne(targetEntity = FileDb.class, fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     @JoinColumn(name = "profile_image")
     private FileDb profileImage;
 
@@ -49,6 +60,8 @@ public class User {
     @Column(nullable = false)
     private Boolean twoFactorEnabled;
 
+    private Instant deletedAt;
+
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL)
     private List<TwoFactorRecoveryCode> twoFactorRecoveryCodes;
 
@@ -0,0 +1,34 @@
+package com.example.fullstacktemplate.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+@Entity
+@Table(name = "user_audit_event")
+@Getter
+@Setter
+public class UserAuditEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    private Long actorId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private AuditAction action;
+
+    @Lob
+    @Column(nullable = false)
+    private String changes;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
@@ -2,10 +2,15 @@ package com.example.fullstacktemplate.repository;
 
 import com.example.fullstacktemplate.model.FileDb;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface FileDbRepository extends JpaRepository<FileDb, Long> {
 
-
+    @Modifying
+    @Query("DELETE from FileDb f where f.id = :id")
+    int deleteFileById(@Param("id") Long id);
 }
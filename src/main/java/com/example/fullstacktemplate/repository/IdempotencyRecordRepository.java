@@ -0,0 +1,37 @@
+package com.example.fullstacktemplate.repository;
+
+import com.example.fullstacktemplate.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Plain insert instead of save, which would merge into a record another node reserved in the meantime.
+     */
+    @Modifying
+    @Query(value = "insert into idempotency_record (idempotency_key, fingerprint, expires_at) values (:idempotencyKey, :fingerprint, :expiresAt)", nativeQuery = true)
+    void insertPending(@Param("idempotencyKey") String idempotencyKey, @Param("fingerprint") String fingerprint, @Param("expiresAt") Instant expiresAt);
+
+    @Modifying
+    @Query("update IdempotencyRecord r set r.status = :status, r.contentType = :contentType, r.body = :body, r.expiresAt = :expiresAt where r.idempotencyKey = :idempotencyKey")
+    int complete(@Param("idempotencyKey") String idempotencyKey, @Param("status") Integer status, @Param("contentType") String contentType, @Param("body") byte[] body, @Param("expiresAt") Instant expiresAt);
+
+    @Modifying
+    @Query("DELETE from IdempotencyRecord r where r.idempotencyKey = :idempotencyKey and r.status is null")
+    int deletePending(@Param("idempotencyKey") String idempotencyKey);
+
+    @Modifying
+    @Query("DELETE from IdempotencyRecord r where r.idempotencyKey = :idempotencyKey and r.expiresAt <= :now")
+    int deleteIfExpired(@Param("idempotencyKey") String idempotencyKey, @Param("now") Instant now);
+
+    @Modifying
+    @Query("DELETE from IdempotencyRecord r where r.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
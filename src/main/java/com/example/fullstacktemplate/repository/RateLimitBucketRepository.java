@@ -0,0 +1,29 @@
+package com.example.fullstacktemplate.repository;
+
+import com.example.fullstacktemplate.model.RateLimitBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface RateLimitBucketRepository extends JpaRepository<RateLimitBucket, String> {
+
+    List<RateLimitBucket> findAllByTheoreticalArrivalTimeGreaterThan(Long now);
+
+    /**
+     * Upsert in a single statement, so nodes adding to the same new bucket concurrently do not fail on the primary key.
+     */
+    @Modifying
+    @Query(value = "merge into rate_limit_bucket b using (select cast(:bucketKey as varchar(255)) as bucket_key) s on b.bucket_key = s.bucket_key " +
+            "when matched then update set theoretical_arrival_time = greatest(b.theoretical_arrival_time, :now) + :consumedMsec " +
+            "when not matched then insert (bucket_key, theoretical_arrival_time) values (s.bucket_key, :now + :consumedMsec)", nativeQuery = true)
+    void addConsumed(@Param("bucketKey") String bucketKey, @Param("consumedMsec") Long consumedMsec, @Param("now") Long now);
+
+    @Modifying
+    @Query("DELETE from RateLimitBucket b where b.theoreticalArrivalTime <= :now")
+    void deleteIdle(@Param("now") Long now);
+}
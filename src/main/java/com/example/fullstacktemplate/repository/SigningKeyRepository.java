@@ -0,0 +1,33 @@
+package com.example.fullstacktemplate.repository;
+
+import com.example.fullstacktemplate.model.SigningKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface SigningKeyRepository extends JpaRepository<SigningKey, String> {
+
+    List<SigningKey> findAllByExpiresAtAfterOrderByGenerationDesc(Instant now);
+
+    @Query("select max(k.generation) from SigningKey k")
+    Long findMaxGeneration();
+
+    /**
+     * Plain insert instead of save, which would merge. Only one replica wins a generation, the unique constraint
+     * rejects the keys the others generated for it.
+     */
+    @Modifying
+    @Query(value = "insert into signing_key (key_id, generation, algorithm, public_key, private_key, created_at, expires_at) " +
+            "values (:#{#key.keyId}, :#{#key.generation}, :#{#key.algorithm}, :#{#key.publicKey}, :#{#key.privateKey}, :#{#key.createdAt}, :#{#key.expiresAt})", nativeQuery = true)
+    void insert(@Param("key") SigningKey key);
+
+    @Modifying
+    @Query("DELETE from SigningKey k where k.expiresAt <= :now")
+    int deleteExpired(@Param("now") Instant now);
+}
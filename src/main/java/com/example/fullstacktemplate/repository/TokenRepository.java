@@ -2,18 +2,89 @@ package com.example.fullstacktemplate.repository;
 
 import com.example.fullstacktemplate.model.JwtToken;
 import com.example.fullstacktemplate.model.TokenType;
-import com.example.fullstacktemplate.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface TokenRepository extends JpaRepository<JwtToken, Long> {
 
+    List<TokenExpiry> findAllByFamilyIdAndRevokedFalse(String familyId);
 
-    Optional<JwtToken> findByUserAndTokenType(User user, TokenType tokenType);
+    @Query("SELECT s from JwtToken t, JwtToken s where t.value = :value and t.tokenType = :tokenType and t.rotatedAt > :rotatedAfter " +
+            "and s.id = t.successorId and s.revoked = false")
+    Optional<JwtToken> findActiveSuccessor(@Param("value") String value, @Param("tokenType") TokenType tokenType, @Param("rotatedAfter") Instant rotatedAfter);
 
-    Optional<JwtToken> findByValueAndTokenType(String value, TokenType tokenType);
+    List<TokenExpiry> findAllByTokenTypeAndRevokedTrueAndExpiresAtAfter(TokenType tokenType, Instant now);
+
+    @Modifying
+    @Query("UPDATE JwtToken t set t.revoked = true where t.value = :value and t.user.id = :userId and t.tokenType = :tokenType and t.revoked = false")
+    int revokeByValue(@Param("value") String value, @Param("userId") Long userId, @Param("tokenType") TokenType tokenType);
+
+    @Modifying
+    @Query("UPDATE JwtToken t set t.revoked = true, t.rotatedAt = :now where t.value = :value and t.user.id = :userId and t.tokenType = :tokenType and t.revoked = false")
+    int revokeForRotation(@Param("value") String value, @Param("userId") Long userId, @Param("tokenType") TokenType tokenType, @Param("now") Instant now);
+
+    @Modifying
+    @Query("UPDATE JwtToken t set t.successorId = :successorId where t.value = :value and t.tokenType = :tokenType")
+    int setSuccessor(@Param("value") String value, @Param("tokenType") TokenType tokenType, @Param("successorId") Long successorId);
+
+    @Modifying
+    @Query("UPDATE JwtToken t set t.revoked = true where t.familyId = :familyId and t.revoked = false")
+    int revokeByFamilyId(@Param("familyId") String familyId);
+
+    @Query("SELECT t.value as value, t.expiresAt as expiresAt from JwtToken t where t.user.id = :userId and t.familyId = :familyId and t.revoked = false")
+    List<TokenExpiry> findActiveByUserIdAndFamilyId(@Param("userId") Long userId, @Param("familyId") String familyId);
+
+    @Modifying
+    @Query("UPDATE JwtToken t set t.revoked = true where t.user.id = :userId and t.familyId = :familyId and t.revoked = false")
+    int revokeByUserIdAndFamilyId(@Param("userId") Long userId, @Param("familyId") String familyId);
+
+    @Query("SELECT t.value as value, t.expiresAt as expiresAt from JwtToken t where t.user.id = :userId and t.tokenType = :tokenType and t.revoked = false")
+    List<TokenExpiry> findActiveByUserId(@Param("userId") Long userId, @Param("tokenType") TokenType tokenType);
+
+    @Modifying
+    @Query("UPDATE JwtToken t set t.revoked = true where t.user.id = :userId and t.tokenType = :tokenType and t.revoked = false")
+    int revokeByUserId(@Param("userId") Long userId, @Param("tokenType") TokenType tokenType);
+
+    @Query("SELECT t.familyId as familyId, t.userAgent as userAgent, t.ipAddress as ipAddress, t.sessionStartedAt as sessionStartedAt, t.createdAt as lastUsedAt, t.expiresAt as expiresAt " +
+            "from JwtToken t where t.user.id = :userId and t.tokenType = :tokenType and t.revoked = false and t.expiresAt > :now order by t.createdAt asc")
+    List<Session> findSessions(@Param("userId") Long userId, @Param("tokenType") TokenType tokenType, @Param("now") Instant now);
+
+    @Modifying
+    @Query("DELETE from JwtToken t where t.user.id = :userId")
+    int deleteAllByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE from JwtToken t where t.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+
+    interface TokenExpiry {
+
+        String getValue();
+
+        Instant getExpiresAt();
+    }
+
+    interface Session {
+
+        String getFamilyId();
+
+        String getUserAgent();
+
+        String getIpAddress();
+
+        Instant getSessionStartedAt();
+
+        Instant getLastUsedAt();
+
+        Instant getExpiresAt();
+    }
 
 }
@@ -12,5 +12,9 @@ public interface TwoFactoryRecoveryCodeRepository extends JpaRepository<TwoFacto
 
    @Modifying
    @Query("DELETE from TwoFactorRecoveryCode t where t.userId=:userId and t.recoveryCode=:recoveryCode")
-   public void deleteByUserIdAndRecoveryCode(@Param("userId") Long userId, @Param("recoveryCode") String recoveryCode);
+   public int deleteByUserIdAndRecoveryCode(@Param("userId") Long userId, @Param("recoveryCode") String recoveryCode);
+
+   @Modifying
+   @Query("DELETE from TwoFactorRecoveryCode t where t.userId=:userId")
+   public int deleteAllByUserId(@Param("userId") Long userId);
 }
@@ -0,0 +1,14 @@
+package com.example.fullstacktemplate.repository;
+
+import com.example.fullstacktemplate.model.UserAuditEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface UserAuditEventRepository extends JpaRepository<UserAuditEvent, Long> {
+
+    List<UserAuditEvent> findAllByUserIdAndIdLessThanOrderByIdDesc(Long userId, Long beforeId, Pageable pageable);
+}
@@ -0,0 +1,18 @@
+package com.example.fullstacktemplate.repository;
+
+import com.example.fullstacktemplate.model.AuthProvider;
+
+import java.util.List;
+
+public interface UserDirectoryRepository {
+
+    /**
+     * Reads the users after {@code afterId} in id order. Only the filters that are set become predicates, so every
+     * combination gets its own statement that the database can plan against the matching index.
+     *
+     * @param emailPrefix like pattern with {@code \} as escape character, or null
+     * @param namePrefix  like pattern with {@code \} as escape character, or null
+     */
+    List<UserRepository.DirectoryEntry> findDirectoryPage(Long afterId, String emailPrefix, String namePrefix, AuthProvider authProvider,
+                                                          Boolean emailVerified, Boolean twoFactorEnabled, int limit);
+}
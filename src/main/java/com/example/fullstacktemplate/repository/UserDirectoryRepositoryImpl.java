@@ -0,0 +1,73 @@
+package com.example.fullstacktemplate.repository;
+
+import com.example.fullstacktemplate.model.AuthProvider;
+import com.example.fullstacktemplate.model.Role;
+import com.example.fullstacktemplate.model.User;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+class UserDirectoryRepositoryImpl implements UserDirectoryRepository {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<UserRepository.DirectoryEntry> findDirectoryPage(Long afterId, String emailPrefix, String namePrefix, AuthProvider authProvider,
+                                                                 Boolean emailVerified, Boolean twoFactorEnabled, int limit) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<User> user = query.from(User.class);
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(criteriaBuilder.greaterThan(user.get("id"), afterId));
+        if (emailPrefix != null) {
+            predicates.add(criteriaBuilder.like(user.get("email"), emailPrefix, LIKE_ESCAPE));
+        }
+        if (namePrefix != null) {
+            predicates.add(criteriaBuilder.like(user.get("name"), namePrefix, LIKE_ESCAPE));
+        }
+        if (authProvider != null) {
+            predicates.add(criteriaBuilder.equal(user.get("authProvider"), authProvider));
+        }
+        if (emailVerified != null) {
+            predicates.add(criteriaBuilder.equal(user.get("emailVerified"), emailVerified));
+        }
+        if (twoFactorEnabled != null) {
+            predicates.add(criteriaBuilder.equal(user.get("twoFactorEnabled"), twoFactorEnabled));
+        }
+        query.multiselect(user.get("id"), user.get("name"), user.get("email"), user.get("authProvider"), user.get("role"),
+                        user.get("emailVerified"), user.get("twoFactorEnabled"))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(criteriaBuilder.asc(user.get("id")));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultStream()
+                .map(tuple -> new Entry(tuple.get(0, Long.class), tuple.get(1, String.class), tuple.get(2, String.class),
+                        tuple.get(3, AuthProvider.class), tuple.get(4, Role.class), tuple.get(5, Boolean.class), tuple.get(6, Boolean.class)))
+                .collect(Collectors.toList());
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class Entry implements UserRepository.DirectoryEntry {
+        private final Long id;
+        private final String name;
+        private final String email;
+        private final AuthProvider authProvider;
+        private final Role role;
+        private final Boolean emailVerified;
+        private final Boolean twoFactorEnabled;
+    }
+}
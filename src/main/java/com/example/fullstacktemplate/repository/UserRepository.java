@@ -1,13 +1,21 @@
 package com.example.fullstacktemplate.repository;
 
+import com.example.fullstacktemplate.model.AuthProvider;
+import com.example.fullstacktemplate.model.FileType;
+import com.example.fullstacktemplate.model.Role;
 import com.example.fullstacktemplate.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserDirectoryRepository {
 
     Optional<User> findByEmail(String email);
 
@@ -16,4 +24,91 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Boolean existsByEmail(String email);
 
     Boolean existsByName(String name);
+
+    @Query("select u.id as id, u.name as name, u.email as email, u.password as password, u.role as role from User u where u.email = :email")
+    Optional<AuthPrincipal> findAuthPrincipalByEmail(@Param("email") String email);
+
+    @Query("select u.id as id, u.name as name, u.email as email, u.password as password, u.role as role from User u where u.id = :id")
+    Optional<AuthPrincipal> findAuthPrincipalById(@Param("id") Long id);
+
+    @Query("select u.id as id, u.emailVerified as emailVerified, u.twoFactorEnabled as twoFactorEnabled, u.twoFactorSecret as twoFactorSecret from User u where u.id = :id")
+    Optional<LoginState> findLoginStateById(@Param("id") Long id);
+
+    @Query("select u.name as name, u.email as email, u.twoFactorEnabled as twoFactorEnabled, u.authProvider as authProvider, " +
+            "case when u.password is null or trim(u.password) = '' then false else true end as passwordSet, " +
+            "f.name as profileImageName, f.type as profileImageType, f.data as profileImageData " +
+            "from User u left join u.profileImage f where u.id = :id")
+    Optional<ProfileSummary> findProfileSummaryById(@Param("id") Long id);
+
+    @Modifying
+    @Query("update User u set u.deletedAt = :now, u.email = null, u.name = null, " +
+            "u.requestedNewEmail = null, u.password = null, u.twoFactorSecret = null, u.twoFactorEnabled = false where u.id = :id")
+    int markDeleted(@Param("id") Long id, @Param("now") Instant now);
+
+    // native queries, soft deleted users are hidden from entity queries by the @Where restriction
+    @Query(value = "select id from users where deleted_at is not null order by deleted_at limit :limit", nativeQuery = true)
+    List<Long> findDeletedIds(@Param("limit") int limit);
+
+    @Query(value = "select profile_image from users where id = :id", nativeQuery = true)
+    Optional<Long> findProfileImageId(@Param("id") Long id);
+
+    @Modifying(clearAutomatically = true)
+    @Query(value = "delete from users where id = :id", nativeQuery = true)
+    int deleteUserRow(@Param("id") Long id);
+
+    interface AuthPrincipal {
+        Long getId();
+
+        String getName();
+
+        String getEmail();
+
+        String getPassword();
+
+        Role getRole();
+    }
+
+    interface LoginState {
+        Long getId();
+
+        Boolean getEmailVerified();
+
+        Boolean getTwoFactorEnabled();
+
+        String getTwoFactorSecret();
+    }
+
+    interface DirectoryEntry {
+        Long getId();
+
+        String getName();
+
+        String getEmail();
+
+        AuthProvider getAuthProvider();
+
+        Role getRole();
+
+        Boolean getEmailVerified();
+
+        Boolean getTwoFactorEnabled();
+    }
+
+    interface ProfileSummary {
+        String getName();
+
+        String getEmail();
+
+        Boolean getTwoFactorEnabled();
+
+        AuthProvider getAuthProvider();
+
+        Boolean getPasswordSet();
+
+        String getProfileImageName();
+
+        FileType getProfileImageType();
+
+        byte[] getProfileImageData();
+    }
 }
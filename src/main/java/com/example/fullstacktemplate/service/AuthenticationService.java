@@ -5,9 +5,9 @@ import com.example.fullstacktemplate.config.security.UserPrincipal;
 import com.example.fullstacktemplate.dto.AuthResponseDto;
 import com.example.fullstacktemplate.dto.LoginRequestDto;
 import com.example.fullstacktemplate.dto.LoginVerificationRequestDto;
+import com.example.fullstacktemplate.dto.SessionDto;
 import com.example.fullstacktemplate.exception.BadRequestException;
 import com.example.fullstacktemplate.model.JwtToken;
-import com.example.fullstacktemplate.model.TokenType;
 import com.example.fullstacktemplate.model.User;
 import com.example.fullstacktemplate.repository.TokenRepository;
 import com.example.fullstacktemplate.repository.TwoFactoryRecoveryCodeRepository;
@@ -18,6 +18,7 @@ import dev.samstevens.totp.code.DefaultCodeGenerator;
 import dev.samstevens.totp.code.DefaultCodeVerifier;
 import dev.samstevens.totp.time.SystemTimeProvider;
 import dev.samstevens.totp.time.TimeProvider;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -26,6 +27,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
+import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.text.DateFormat;
@@ -34,6 +36,7 @@ import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 import java.util.TimeZone;
 
@@ -50,8 +53,9 @@ public class AuthenticationService {
     private final UserService userService;
     private final TokenRepository tokenRepository;
     private final MessageService messageService;
+    private final RefreshTokenService refreshTokenService;
 
-    public AuthenticationService(UserRepository userRepository, TwoFactoryRecoveryCodeRepository twoFactoryRecoveryCodeRepository, TokenService tokenService, AppProperties appProperties, AuthenticationManager authenticationManager, UserService userService, TokenRepository tokenRepository, MessageService messageService) {
+    public AuthenticationService(UserRepository userRepository, TwoFactoryRecoveryCodeRepository twoFactoryRecoveryCodeRepository, TokenService tokenService, AppProperties appProperties, AuthenticationManager authenticationManager, UserService userService, TokenRepository tokenRepository, MessageService messageService, RefreshTokenService refreshTokenService) {
         this.userRepository = userRepository;
         this.twoFactoryRecoveryCodeRepository = twoFactoryRecoveryCodeRepository;
         this.tokenService = tokenService;
@@ -60,39 +64,28 @@ public class AuthenticationService {
         this.userService = userService;
         this.tokenRepository = tokenRepository;
         this.messageService = messageService;
+        this.refreshTokenService = refreshTokenService;
     }
 
-    private boolean isVerificationCodeValid(Long userId, String verificationCode) {
-        User user = userRepository.findById(userId).orElseThrow(() -> new BadRequestException("userNotFound"));
-        return isVerificationCodeValid(user, verificationCode);
+    private UserRepository.LoginState getLoginState(Long userId) {
+        return userRepository.findLoginStateById(userId).orElseThrow(() -> new BadRequestException("userNotFound"));
     }
 
-    private boolean isVerificationCodeValid(User user, String verificationCode) {
+    private boolean isVerificationCodeValid(String twoFactorSecret, String verificationCode) {
         TimeProvider timeProvider = new SystemTimeProvider();
         CodeGenerator codeGenerator = new DefaultCodeGenerator();
         CodeVerifier verifier = new DefaultCodeVerifier(codeGenerator, timeProvider);
-        return verifier.isValidCode(user.getTwoFactorSecret(), verificationCode);
+        return verifier.isValidCode(twoFactorSecret, verificationCode);
     }
 
-    private boolean isRecoveryCodeValid(Long userId, String recoveryCode) {
-        User user = userRepository.findById(userId).orElseThrow(() -> new BadRequestException("userNotFound"));
-        return isRecoveryCodeValid(user, recoveryCode);
-    }
-
-    private boolean isRecoveryCodeValid(User user, String recoveryCode) {
-        return user.getTwoFactorRecoveryCodes()
-                .stream()
-                .anyMatch(twoFactorRecoveryCode -> recoveryCode.equals(twoFactorRecoveryCode.getRecoveryCode()));
-    }
-
-    private void deleteRecoveryCode(Long userId, String recoveryCode) {
-        twoFactoryRecoveryCodeRepository.deleteByUserIdAndRecoveryCode(userId, recoveryCode);
+    private boolean deleteRecoveryCode(Long userId, String recoveryCode) {
+        return twoFactoryRecoveryCodeRepository.deleteByUserIdAndRecoveryCode(userId, recoveryCode) > 0;
     }
 
     public AuthResponseDto loginWithVerificationCode(UserPrincipal userPrincipal, String code) {
-        User user = userService.findById(userPrincipal.getId()).orElseThrow(() -> new BadRequestException("userNotFound"));
-        if (isVerificationCodeValid(userPrincipal.getId(), code)) {
-            return getAuthResponse(user);
+        UserRepository.LoginState loginState = getLoginState(userPrincipal.getId());
+        if (isVerificationCodeValid(loginState.getTwoFactorSecret(), code)) {
+            return getAuthResponse(loginState);
         }
         throw new BadRequestException("invalidVerificationCode");
     }
@@ -103,10 +96,9 @@ public class AuthenticationService {
     }
 
     public AuthResponseDto loginWithRecoveryCode(UserPrincipal userPrincipal, String verificationCode) {
-        User user = userService.findByEmail(userPrincipal.getEmail()).orElseThrow(() -> new BadRequestException("userNotFound"));
-        if (isRecoveryCodeValid(user.getId(), verificationCode)) {
-            deleteRecoveryCode(user.getId(), verificationCode);
-            return getAuthResponse(user);
+        UserRepository.LoginState loginState = getLoginState(userPrincipal.getId());
+        if (deleteRecoveryCode(loginState.getId(), verificationCode)) {
+            return getAuthResponse(loginState);
         }
         throw new BadRequestException("invalidRecoveryCode");
     }
@@ -117,9 +109,9 @@ public class AuthenticationService {
     }
 
     public AuthResponseDto login(UserPrincipal userPrincipal) {
-        User user = userService.findByEmail(userPrincipal.getEmail()).orElseThrow(() -> new BadRequestException("userNotFound"));
-        if (user.getEmailVerified()) {
-            return getAuthResponse(user);
+        UserRepository.LoginState loginState = getLoginState(userPrincipal.getId());
+        if (loginState.getEmailVerified()) {
+            return getAuthResponse(loginState);
         }
         throw new BadRequestException("accountNotActivated");
     }
@@ -129,33 +121,72 @@ public class AuthenticationService {
         return login(userPrincipal);
     }
 
-    public Optional<JwtToken> getRefreshToken() {
-        HttpServletRequest request = Optional.ofNullable((ServletRequestAttributes) RequestContextHolder.getRequestAttributes())
+    private HttpServletRequest getCurrentRequest() {
+        return Optional.ofNullable((ServletRequestAttributes) RequestContextHolder.getRequestAttributes())
                 .map(ServletRequestAttributes::getRequest).orElseThrow(IllegalStateException::new);
+    }
+
+    public Optional<String> getRefreshToken() {
+        HttpServletRequest request = getCurrentRequest();
         if (request.getCookies() != null) {
             return Arrays.stream(request.getCookies())
                     .filter(cookie -> REFRESH_TOKEN_COOKIE_NAME.equals(cookie.getName()))
                     .findFirst()
-                    .flatMap(cookie -> tokenRepository.findByValueAndTokenType(cookie.getValue(), TokenType.REFRESH));
+                    .map(Cookie::getValue);
         }
         return Optional.empty();
     }
 
     public String createAccessToken(User user) {
-        return tokenService.createJwtTokenValue(user.getId(), Duration.of(appProperties.getAuth().getAccessTokenExpirationMsec(), ChronoUnit.MILLIS));
+        return createAccessToken(user.getId());
     }
 
-    private JwtToken createRefreshToken(User user) {
-        return tokenService.createToken(user, Duration.of(appProperties.getAuth().getRefreshTokenExpirationMsec(), ChronoUnit.MILLIS), TokenType.REFRESH);
+    private String createAccessToken(Long userId) {
+        return tokenService.createJwtTokenValue(userId, Duration.of(appProperties.getAuth().getAccessTokenExpirationMsec(), ChronoUnit.MILLIS));
     }
 
+    public Optional<String> refreshAccessToken() {
+        HttpServletRequest request = getCurrentRequest();
+        Optional<JwtToken> rotatedRefreshToken = getRefreshToken()
+                .flatMap(refreshToken -> refreshTokenService.rotate(refreshToken, request.getHeader(HttpHeaders.USER_AGENT), request.getRemoteAddr()));
+        if (rotatedRefreshToken.isPresent()) {
+            setRefreshTokenCookie(rotatedRefreshToken.get());
+            return Optional.of(createAccessToken(rotatedRefreshToken.get().getUser().getId()));
+        }
+        removeRefreshToken();
+        return Optional.empty();
+    }
 
     private void addRefreshToken(User user) {
-        JwtToken refreshToken = createRefreshToken(user);
+        HttpServletRequest request = getCurrentRequest();
+        setRefreshTokenCookie(refreshTokenService.issue(user, request.getHeader(HttpHeaders.USER_AGENT), request.getRemoteAddr()));
+    }
+
+    public String createSession(User user) {
+        addRefreshToken(user);
+        return createAccessToken(user);
+    }
+
+    @Transactional(readOnly = true)
+    public List<SessionDto> getSessions(Long userId) {
+        return refreshTokenService.getSessions(userId, getRefreshToken().orElse(null));
+    }
+
+    public void revokeSession(Long userId, String sessionId) {
+        if (!refreshTokenService.revokeSession(userId, sessionId)) {
+            throw new BadRequestException("sessionNotFound");
+        }
+    }
+
+    public void revokeAllSessions(Long userId) {
+        refreshTokenService.revokeAllSessions(userId);
+        removeRefreshToken();
+    }
+
+    private void setRefreshTokenCookie(JwtToken refreshToken) {
         HttpServletResponse response = Optional.ofNullable((ServletRequestAttributes) RequestContextHolder.getRequestAttributes())
                 .map(ServletRequestAttributes::getResponse).orElseThrow(IllegalStateException::new);
-        Date expires = new Date();
-        expires.setTime(expires.getTime() + appProperties.getAuth().getRefreshTokenExpirationMsec());
+        Date expires = Date.from(refreshToken.getExpiresAt());
         DateFormat df = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", java.util.Locale.US);
         df.setTimeZone(TimeZone.getTimeZone("GMT"));
         response.setHeader("Set-Cookie", String.format("%s=%s; Expires=%s; Path=/; HttpOnly; SameSite=none; Secure", REFRESH_TOKEN_COOKIE_NAME, refreshToken.getValue(), df.format(expires)));
@@ -172,9 +203,8 @@ public class AuthenticationService {
     }
 
     public void logout(User user) {
-        Optional<JwtToken> optionalRefreshToken = getRefreshToken();
-        if (optionalRefreshToken.isPresent() && optionalRefreshToken.get().getUser().getId().equals(user.getId())) {
-            tokenService.delete(optionalRefreshToken.get());
+        Optional<String> optionalRefreshToken = getRefreshToken();
+        if (optionalRefreshToken.isPresent() && refreshTokenService.revoke(optionalRefreshToken.get(), user.getId())) {
             removeRefreshToken();
         } else {
             throw new BadRequestException("tokenExpired");
@@ -187,12 +217,12 @@ public class AuthenticationService {
         return (UserPrincipal) authentication.getPrincipal();
     }
 
-    private AuthResponseDto getAuthResponse(User user) {
-        String accessToken = createAccessToken(user);
+    private AuthResponseDto getAuthResponse(UserRepository.LoginState loginState) {
+        String accessToken = createAccessToken(loginState.getId());
         AuthResponseDto authResponseDto = new AuthResponseDto();
-        authResponseDto.setTwoFactorRequired(user.getTwoFactorEnabled());
+        authResponseDto.setTwoFactorRequired(loginState.getTwoFactorEnabled());
         authResponseDto.setAccessToken(accessToken);
-        addRefreshToken(user);
+        addRefreshToken(userRepository.getById(loginState.getId()));
         return authResponseDto;
     }
 
@@ -0,0 +1,262 @@
+package com.example.fullstacktemplate.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Signs and verifies the compact JWS tokens issued by this application. Only the registered claims and the claims
+ * used by {@link TokenService} are read, everything else in the payload is skipped without being materialized.
+ * Headers and payloads repeating a member are rejected as malformed. Verification never throws, the outcome is
+ * reported through {@link Result#getStatus()}.
+ */
+@Component
+public class CompactJwsCodec {
+
+    private static final String SIGNATURE_ALGORITHM = "SHA256withRSA";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final JsonFactory jsonFactory = new JsonFactory().enable(JsonParser.Feature.STRICT_DUPLICATE_DETECTION);
+    private final SigningKeyService signingKeyService;
+    private final Map<String, String> encodedHeaders = new ConcurrentHashMap<>();
+
+    public CompactJwsCodec(SigningKeyService signingKeyService) {
+        this.signingKeyService = signingKeyService;
+    }
+
+    public String sign(JwtClaims claims) {
+        SigningKeyService.ActiveSigningKey signingKey = signingKeyService.getActiveSigningKey();
+        try {
+            String signingInput = encodedHeaders.computeIfAbsent(signingKey.getKeyId(), this::encodeHeader) + "." + ENCODER.encodeToString(writeClaims(claims));
+            return signingInput + "." + ENCODER.encodeToString(sign(signingKey.getPrivateKey(), signingInput.getBytes(StandardCharsets.US_ASCII)));
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Error while signing jwt token", e);
+        }
+    }
+
+    public Result verify(String token, Instant now) {
+        if (token == null) {
+            return new Result(Status.MALFORMED, null);
+        }
+        int headerEnd = token.indexOf('.');
+        int payloadEnd = headerEnd < 0 ? -1 : token.indexOf('.', headerEnd + 1);
+        if (headerEnd <= 0 || payloadEnd < 0 || token.indexOf('.', payloadEnd + 1) >= 0) {
+            return new Result(Status.MALFORMED, null);
+        }
+        try {
+            byte[] tokenBytes = token.getBytes(StandardCharsets.US_ASCII);
+            Header header = readHeader(decode(tokenBytes, 0, headerEnd));
+            if (!SigningKeyService.ALGORITHM.equals(header.algorithm)) {
+                return new Result(Status.UNSUPPORTED, null);
+            }
+            PublicKey publicKey = signingKeyService.getVerificationKey(header.keyId);
+            if (publicKey == null) {
+                return new Result(Status.INVALID_SIGNATURE, null);
+            }
+            Signature signature = Signature.getInstance(SIGNATURE_ALGORITHM);
+            signature.initVerify(publicKey);
+            signature.update(tokenBytes, 0, payloadEnd);
+            ByteBuffer signatureBytes = decode(tokenBytes, payloadEnd + 1, tokenBytes.length - payloadEnd - 1);
+            if (!signature.verify(signatureBytes.array(), signatureBytes.arrayOffset() + signatureBytes.position(), signatureBytes.remaining())) {
+                return new Result(Status.INVALID_SIGNATURE, null);
+            }
+            JwtClaims claims = readClaims(decode(tokenBytes, headerEnd + 1, payloadEnd - headerEnd - 1));
+            if (claims.getSubject() == null || claims.getExpiresAt() == null) {
+                return new Result(Status.MALFORMED, null);
+            }
+            if (!now.isBefore(claims.getExpiresAt())) {
+                return new Result(Status.EXPIRED, claims);
+            }
+            return new Result(Status.VALID, claims);
+        } catch (IOException | IllegalArgumentException e) {
+            return new Result(Status.MALFORMED, null);
+        } catch (GeneralSecurityException e) {
+            return new Result(Status.INVALID_SIGNATURE, null);
+        }
+    }
+
+    private ByteBuffer decode(byte[] tokenBytes, int offset, int length) {
+        return DECODER.decode(ByteBuffer.wrap(tokenBytes, offset, length));
+    }
+
+    private byte[] sign(PrivateKey privateKey, byte[] signingInput) throws GeneralSecurityException {
+        Signature signature = Signature.getInstance(SIGNATURE_ALGORITHM);
+        signature.initSign(privateKey);
+        signature.update(signingInput);
+        return signature.sign();
+    }
+
+    private String encodeHeader(String keyId) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(64);
+        try (JsonGenerator generator = jsonFactory.createGenerator(outputStream)) {
+            generator.writeStartObject();
+            generator.writeStringField("alg", SigningKeyService.ALGORITHM);
+            generator.writeStringField("kid", keyId);
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new IllegalStateException("Error while encoding jwt header", e);
+        }
+        return ENCODER.encodeToString(outputStream.toByteArray());
+    }
+
+    private byte[] writeClaims(JwtClaims claims) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(256);
+        try (JsonGenerator generator = jsonFactory.createGenerator(outputStream)) {
+            generator.writeStartObject();
+            writeString(generator, "jti", claims.getId());
+            writeString(generator, "sub", claims.getSubject());
+            writeString(generator, "iss", claims.getIssuer());
+            writeEpochSecond(generator, "iat", claims.getIssuedAt());
+            writeEpochSecond(generator, "exp", claims.getExpiresAt());
+            writeString(generator, TokenService.FAMILY_ID_CLAIM, claims.getFamilyId());
+            writeEpochSecond(generator, TokenService.SESSION_STARTED_AT_CLAIM, claims.getSessionStartedAt());
+            writeString(generator, TokenService.PURPOSE_CLAIM, claims.getPurpose());
+            writeString(generator, TokenService.FINGERPRINT_CLAIM, claims.getFingerprint());
+            generator.writeEndObject();
+        }
+        return outputStream.toByteArray();
+    }
+
+    private void writeString(JsonGenerator generator, String name, String value) throws IOException {
+        if (value != null) {
+            generator.writeStringField(name, value);
+        }
+    }
+
+    private void writeEpochSecond(JsonGenerator generator, String name, Instant value) throws IOException {
+        if (value != null) {
+            generator.writeNumberField(name, value.getEpochSecond());
+        }
+    }
+
+    private Header readHeader(ByteBuffer json) throws IOException {
+        Header header = new Header();
+        try (JsonParser parser = createParser(json)) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+                switch (name) {
+                    case "alg":
+                        header.algorithm = readString(parser);
+                        break;
+                    case "kid":
+                        header.keyId = readString(parser);
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+        }
+        return header;
+    }
+
+    private JwtClaims readClaims(ByteBuffer json) throws IOException {
+        JwtClaims claims = new JwtClaims();
+        try (JsonParser parser = createParser(json)) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+                switch (name) {
+                    case "jti":
+                        claims.setId(readString(parser));
+                        break;
+                    case "sub":
+                        claims.setSubject(readString(parser));
+                        break;
+                    case "iss":
+                        claims.setIssuer(readString(parser));
+                        break;
+                    case "iat":
+                        claims.setIssuedAt(readEpochSecond(parser));
+                        break;
+                    case "exp":
+                        claims.setExpiresAt(readEpochSecond(parser));
+                        break;
+                    case TokenService.FAMILY_ID_CLAIM:
+                        claims.setFamilyId(readString(parser));
+                        break;
+                    case TokenService.SESSION_STARTED_AT_CLAIM:
+                        claims.setSessionStartedAt(readEpochSecond(parser));
+                        break;
+                    case TokenService.PURPOSE_CLAIM:
+                        claims.setPurpose(readString(parser));
+                        break;
+                    case TokenService.FINGERPRINT_CLAIM:
+                        claims.setFingerprint(readString(parser));
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+        }
+        return claims;
+    }
+
+    private JsonParser createParser(ByteBuffer json) throws IOException {
+        JsonParser parser = jsonFactory.createParser(json.array(), json.arrayOffset() + json.position(), json.remaining());
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected json object");
+        }
+        return parser;
+    }
+
+    private String readString(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.VALUE_STRING) {
+            throw new JsonParseException(parser, "Expected string value");
+        }
+        return parser.getText();
+    }
+
+    private Instant readEpochSecond(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.VALUE_NUMBER_INT) {
+            throw new JsonParseException(parser, "Expected numeric date");
+        }
+        return Instant.ofEpochSecond(parser.getLongValue());
+    }
+
+    private static class Header {
+        private String algorithm;
+        private String keyId;
+    }
+
+    public enum Status {
+        VALID,
+        EXPIRED,
+        INVALID_SIGNATURE,
+        UNSUPPORTED,
+        MALFORMED
+    }
+
+    @Getter
+    public static class Result {
+        private final Status status;
+        private final JwtClaims claims;
+
+        Result(Status status, JwtClaims claims) {
+            this.status = status;
+            this.claims = claims;
+        }
+
+        public boolean isValid() {
+            return status == Status.VALID;
+        }
+    }
+}
@@ -17,12 +17,27 @@ public class CookieOAuth2AuthorizationRequestService implements AuthorizationReq
     public static final String TWO_FACTOR_CODE = "two_factor_code";
     public static final String RECOVERY_CODE = "recovery_code";
     private static final int cookieExpireSeconds = 180;
+    private static final String DECODED_AUTHORIZATION_REQUEST_ATTRIBUTE = CookieOAuth2AuthorizationRequestService.class.getName() + ".AUTHORIZATION_REQUEST";
+
+    private final OAuth2AuthorizationRequestCookieCodec cookieCodec;
+
+    public CookieOAuth2AuthorizationRequestService(OAuth2AuthorizationRequestCookieCodec cookieCodec) {
+        this.cookieCodec = cookieCodec;
+    }
 
     @Override
     public OAuth2AuthorizationRequest loadAuthorizationRequest(HttpServletRequest request) {
-        return CookieUtils.getCookie(request, OAUTH2_AUTHORIZATION_REQUEST_COOKIE_NAME)
-                .map(cookie -> CookieUtils.deserialize(cookie, OAuth2AuthorizationRequest.class))
+        Object decoded = request.getAttribute(DECODED_AUTHORIZATION_REQUEST_ATTRIBUTE);
+        if (decoded instanceof OAuth2AuthorizationRequest) {
+            return (OAuth2AuthorizationRequest) decoded;
+        }
+        OAuth2AuthorizationRequest authorizationRequest = CookieUtils.getCookie(request, OAUTH2_AUTHORIZATION_REQUEST_COOKIE_NAME)
+                .flatMap(cookie -> cookieCodec.decode(cookie.getValue()))
                 .orElse(null);
+        if (authorizationRequest != null) {
+            request.setAttribute(DECODED_AUTHORIZATION_REQUEST_ATTRIBUTE, authorizationRequest);
+        }
+        return authorizationRequest;
     }
 
     @Override
@@ -36,7 +51,7 @@ public class CookieOAuth2AuthorizationRequestService implements AuthorizationReq
             return;
         }
 
-        CookieUtils.addCookie(response, OAUTH2_AUTHORIZATION_REQUEST_COOKIE_NAME, CookieUtils.serialize(authorizationRequest), cookieExpireSeconds);
+        CookieUtils.addCookie(response, OAUTH2_AUTHORIZATION_REQUEST_COOKIE_NAME, cookieCodec.encode(authorizationRequest), cookieExpireSeconds);
         String redirectUriAfterLogin = request.getParameter(REDIRECT_URI_PARAM_COOKIE_NAME);
         String language = request.getParameter(LANGUAGE_COOKIE_NAME);
         if (StringUtils.isNotBlank(redirectUriAfterLogin)) {
@@ -1,7 +1,6 @@
 package com.example.fullstacktemplate.service;
 
 
-import com.example.fullstacktemplate.model.User;
 import com.example.fullstacktemplate.repository.UserRepository;
 import com.example.fullstacktemplate.config.security.UserPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,10 +8,10 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.servlet.LocaleResolver;
 
 import java.util.Optional;
 
+
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
@@ -24,15 +23,13 @@ public class CustomUserDetailsService implements UserDetailsService {
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String email) {
-        Optional<User> optionalUser = userRepository.findByEmail(email);
-        return optionalUser.map(UserPrincipal::create).orElse(null);
+        return userRepository.findAuthPrincipalByEmail(email).map(UserPrincipal::create).orElse(null);
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public Optional<UserDetails> loadUserById(Long id) {
-        Optional<User> optionalUser = userRepository.findById(id);
-        return optionalUser.map(UserPrincipal::create);
+        return userRepository.findAuthPrincipalById(id).map(UserPrincipal::create);
     }
 }
@@ -1,42 +1,55 @@
 package com.example.fullstacktemplate.service;
 
-import com.example.fullstacktemplate.config.AppProperties;
-import com.example.fullstacktemplate.dto.ForgottenPasswordRequestDto;
-import com.example.fullstacktemplate.dto.SignUpRequestDto;
-import com.example.fullstacktemplate.model.User;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.http.client.utils.URIBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.MailPreparationException;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
-import java.net.MalformedURLException;
-import java.net.URISyntaxException;
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
 
 @Component
 @Slf4j
 public class EmailService {
 
+    private static final String FROM = "noreply@fullstack.com";
+
     private final JavaMailSender emailSender;
+    private final EmailTemplateService emailTemplateService;
 
     @Autowired
-    public EmailService(JavaMailSender emailSender) {
+    public EmailService(JavaMailSender emailSender, EmailTemplateService emailTemplateService) {
         this.emailSender = emailSender;
+        this.emailTemplateService = emailTemplateService;
     }
 
+    /**
+     * Renders the template on the mail worker thread and sends it as a multipart message with HTML and text parts.
+     * The locale has to be resolved by the caller, the request is no longer available here.
+     */
     @Async
-    public void sendSimpleMessage(
-            String to, String subject, String text) {
-
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom("noreply@fullstack.com");
-        message.setTo(to);
-        message.setSubject(subject);
-        message.setText(text);
+    public void sendTemplatedMessage(String to, String subject, EmailTemplate template, Locale locale, Map<String, Object> variables) {
+        Map<String, Object> templateVariables = new HashMap<>(variables);
+        templateVariables.put("subject", subject);
+        EmailTemplateService.RenderedEmail renderedEmail = emailTemplateService.render(template, locale, templateVariables);
+        MimeMessage message = emailSender.createMimeMessage();
+        try {
+            MimeMessageHelper messageHelper = new MimeMessageHelper(message, true, StandardCharsets.UTF_8.name());
+            messageHelper.setFrom(FROM);
+            messageHelper.setTo(to);
+            messageHelper.setSubject(subject);
+            messageHelper.setText(renderedEmail.getText(), renderedEmail.getHtml());
+        } catch (MessagingException e) {
+            throw new MailPreparationException(e);
+        }
         emailSender.send(message);
-
     }
 
 }
@@ -0,0 +1,23 @@
+package com.example.fullstacktemplate.service;
+
+public enum EmailTemplate {
+    ACCOUNT_ACTIVATION("account-activation"),
+    EMAIL_CHANGE("email-change"),
+    PASSWORD_RESET("password-reset");
+
+    private final String htmlTemplate;
+    private final String textTemplate;
+
+    EmailTemplate(String name) {
+        this.htmlTemplate = name + ".html";
+        this.textTemplate = name + ".txt";
+    }
+
+    public String getHtmlTemplate() {
+        return htmlTemplate;
+    }
+
+    public String getTextTemplate() {
+        return textTemplate;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.fullstacktemplate.service;
+
+import com.example.fullstacktemplate.config.i18nConfig;
+import org.springframework.context.MessageSource;
+import org.springframework.context.MessageSourceResolvable;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Renders the HTML and text parts of emails from {@code templates/email}. Templates are parsed once and kept in the
+ * engine cache, messages are resolved from the preloaded bundles of {@link MessageService} for the locale of the
+ * recipient, so rendering does not depend on the request.
+ */
+@Service
+public class EmailTemplateService {
+
+    private static final String TEMPLATE_PREFIX = "templates/email/";
+
+    private final SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+
+    public EmailTemplateService(MessageService messageService) {
+        templateEngine.addTemplateResolver(templateResolver(TemplateMode.HTML, "*.html", 1));
+        templateEngine.addTemplateResolver(templateResolver(TemplateMode.TEXT, "*.txt", 2));
+        // the engine is not a bean, the message source has to be set explicitly or messages resolve to ??key??
+        templateEngine.setTemplateEngineMessageSource(new BundleMessageSource(messageService));
+        templateEngine.setEnableSpringELCompiler(true);
+    }
+
+    private static ClassLoaderTemplateResolver templateResolver(TemplateMode templateMode, String pattern, int order) {
+        ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+        templateResolver.setPrefix(TEMPLATE_PREFIX);
+        templateResolver.setTemplateMode(templateMode);
+        templateResolver.setResolvablePatterns(Set.of(pattern));
+        templateResolver.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        templateResolver.setCacheable(true);
+        templateResolver.setOrder(order);
+        return templateResolver;
+    }
+
+    public RenderedEmail render(EmailTemplate template, Locale locale, Map<String, Object> variables) {
+        Context context = new Context(locale, variables);
+        return new RenderedEmail(templateEngine.process(template.getHtmlTemplate(), context), templateEngine.process(template.getTextTemplate(), context));
+    }
+
+    /**
+     * Parses every template and renders it once per supported locale, so the first emails do not pay for parsing.
+     */
+    public void warmUp() {
+        for (EmailTemplate template : EmailTemplate.values()) {
+            for (Locale locale : i18nConfig.SUPPORTED_LOCALES) {
+                render(template, locale, Map.of());
+            }
+        }
+    }
+
+    public static class RenderedEmail {
+        private final String html;
+        private final String text;
+
+        RenderedEmail(String html, String text) {
+            this.html = html;
+            this.text = text;
+        }
+
+        public String getHtml() {
+            return html;
+        }
+
+        public String getText() {
+            return text;
+        }
+    }
+
+    private static class BundleMessageSource implements MessageSource {
+        private final MessageService messageService;
+
+        BundleMessageSource(MessageService messageService) {
+            this.messageService = messageService;
+        }
+
+        @Override
+        public String getMessage(String code, Object[] args, String defaultMessage, Locale locale) {
+            return messageService.getMessage(code, args, defaultMessage, locale);
+        }
+
+        @Override
+        public String getMessage(String code, Object[] args, Locale locale) {
+            return messageService.getMessage(code, args, null, locale);
+        }
+
+        @Override
+        public String getMessage(MessageSourceResolvable resolvable, Locale locale) {
+            String[] codes = resolvable.getCodes();
+            String code = codes != null && codes.length > 0 ? codes[0] : null;
+            return messageService.getMessage(code, resolvable.getArguments(), resolvable.getDefaultMessage(), locale);
+        }
+    }
+}
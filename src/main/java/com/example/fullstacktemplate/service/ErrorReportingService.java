@@ -0,0 +1,73 @@
+package com.example.fullstacktemplate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts request errors per error key instead of logging every occurrence. Unexpected exceptions are logged with
+ * their stack trace at most once per key and interval, the remaining occurrences only show up in the periodic summary.
+ */
+@Service
+@Slf4j
+public class ErrorReportingService {
+
+    private final long logIntervalMsec;
+    private final Map<String, ErrorCounter> counters = new ConcurrentHashMap<>();
+
+    public ErrorReportingService(@Value("${app.error-log-interval-msec:60000}") long logIntervalMsec) {
+        this.logIntervalMsec = logIntervalMsec;
+    }
+
+    public void record(String errorKey) {
+        record(errorKey, null);
+    }
+
+    public void record(String errorKey, @Nullable Throwable unexpectedError) {
+        ErrorCounter counter = counters.computeIfAbsent(errorKey, key -> new ErrorCounter());
+        counter.count.increment();
+        if (unexpectedError != null && counter.tryAcquireLogPermit(System.currentTimeMillis(), logIntervalMsec)) {
+            log.error("Error while processing request", unexpectedError);
+        }
+    }
+
+    public Map<String, Long> getCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        counters.forEach((key, counter) -> counts.put(key, counter.count.sum()));
+        return counts;
+    }
+
+    @Scheduled(fixedDelayString = "${app.error-log-interval-msec:60000}", initialDelayString = "${app.error-log-interval-msec:60000}")
+    public void reportCounts() {
+        Map<String, Long> increments = new TreeMap<>();
+        counters.forEach((key, counter) -> {
+            long total = counter.count.sum();
+            long increment = total - counter.reported.getAndSet(total);
+            if (increment > 0) {
+                increments.put(key, increment);
+            }
+        });
+        if (!increments.isEmpty()) {
+            log.info("Request errors since last report: {}", increments);
+        }
+    }
+
+    private static class ErrorCounter {
+        private final LongAdder count = new LongAdder();
+        private final AtomicLong reported = new AtomicLong();
+        private final AtomicLong nextLogAtMsec = new AtomicLong();
+
+        boolean tryAcquireLogPermit(long nowMsec, long intervalMsec) {
+            long nextLogAt = nextLogAtMsec.get();
+            return nowMsec >= nextLogAt && nextLogAtMsec.compareAndSet(nextLogAt, nowMsec + intervalMsec);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.example.fullstacktemplate.model.FileType;
 import com.example.fullstacktemplate.repository.FileDbRepository;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.imageio.ImageIO;
 import java.io.BufferedInputStream;
@@ -29,6 +30,7 @@ public class FileDbService {
     }
 
     @Cacheable(cacheNames = "file", key = "#id")
+    @Transactional(readOnly = true)
     public Optional<FileDb> findById(Long id) {
         return fileDBRepository.findById(id);
     }
@@ -0,0 +1,113 @@
+package com.example.fullstacktemplate.service;
+
+import com.example.fullstacktemplate.config.AppProperties;
+import com.example.fullstacktemplate.model.IdempotencyRecord;
+import com.example.fullstacktemplate.repository.IdempotencyRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores the responses of requests sent with an {@code Idempotency-Key} for {@code app.idempotency.ttl-msec}. Completed
+ * responses are kept in memory as well, so retries are usually answered without a database round trip. A key is
+ * reserved with an insert before the request is processed, which makes concurrent retries on any node see it. The
+ * reservation only lasts {@code app.idempotency.pending-lease-msec}, a node that dies while processing the request
+ * does not block the key for the whole TTL.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final AppProperties.Idempotency config;
+    private final TransactionTemplate transaction;
+    private final Map<String, IdempotencyRecord> completedRecords = new ConcurrentHashMap<>();
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository, AppProperties appProperties, PlatformTransactionManager transactionManager) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.config = appProperties.getIdempotency();
+        // not read-only, a replica may not have the record of a request that was just completed
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    public Optional<IdempotencyRecord> findCached(String idempotencyKey) {
+        Instant now = Instant.now();
+        return Optional.ofNullable(completedRecords.get(idempotencyKey)).filter(record -> record.getExpiresAt().isAfter(now));
+    }
+
+    public Optional<IdempotencyRecord> find(String idempotencyKey) {
+        Instant now = Instant.now();
+        IdempotencyRecord record = findCached(idempotencyKey).orElse(null);
+        if (record == null) {
+            record = transaction.execute(status -> idempotencyRecordRepository.findById(idempotencyKey).orElse(null));
+            if (record != null && record.isCompleted()) {
+                cache(record);
+            }
+        }
+        return Optional.ofNullable(record).filter(storedRecord -> storedRecord.getExpiresAt().isAfter(now));
+    }
+
+    /**
+     * An expired record that was not deleted yet is replaced, including a reservation whose lease ran out.
+     *
+     * @return false when the key is already taken by a pending or completed request
+     */
+    public boolean reserve(String idempotencyKey, String fingerprint) {
+        Instant now = Instant.now();
+        completedRecords.computeIfPresent(idempotencyKey, (key, record) -> record.getExpiresAt().isAfter(now) ? record : null);
+        try {
+            transaction.executeWithoutResult(status -> {
+                idempotencyRecordRepository.deleteIfExpired(idempotencyKey, now);
+                idempotencyRecordRepository.insertPending(idempotencyKey, fingerprint, now.plus(Duration.ofMillis(config.getPendingLeaseMsec())));
+            });
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    public void complete(String idempotencyKey, String fingerprint, int status, String contentType, byte[] body) {
+        Instant expiresAt = Instant.now().plus(Duration.ofMillis(config.getTtlMsec()));
+        transaction.executeWithoutResult(transactionStatus -> idempotencyRecordRepository.complete(idempotencyKey, status, contentType, body, expiresAt));
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setIdempotencyKey(idempotencyKey);
+        record.setFingerprint(fingerprint);
+        record.setStatus(status);
+        record.setContentType(contentType);
+        record.setBody(body);
+        record.setExpiresAt(expiresAt);
+        cache(record);
+    }
+
+    /**
+     * Frees the key of a request that failed, so it can be retried.
+     */
+    public void release(String idempotencyKey) {
+        transaction.executeWithoutResult(status -> idempotencyRecordRepository.deletePending(idempotencyKey));
+    }
+
+    private void cache(IdempotencyRecord record) {
+        if (completedRecords.size() < config.getMaxCachedResponses()) {
+            completedRecords.put(record.getIdempotencyKey(), record);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.cleanup-delay-msec:60000}")
+    public void deleteExpired() {
+        Instant now = Instant.now();
+        completedRecords.values().removeIf(record -> !record.getExpiresAt().isAfter(now));
+        Integer deletedRecords = transaction.execute(status -> idempotencyRecordRepository.deleteExpired(now));
+        if (deletedRecords != null && deletedRecords > 0) {
+            log.info("{} expired idempotency records were deleted", deletedRecords);
+        }
+    }
+}
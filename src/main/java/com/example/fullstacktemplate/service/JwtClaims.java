@@ -0,0 +1,20 @@
+package com.example.fullstacktemplate.service;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+public class JwtClaims {
+    private String id;
+    private String subject;
+    private String issuer;
+    private Instant issuedAt;
+    private Instant expiresAt;
+    private String familyId;
+    private Instant sessionStartedAt;
+    private String purpose;
+    private String fingerprint;
+}
@@ -1,52 +1,130 @@
 package com.example.fullstacktemplate.service;
 
 
+import com.example.fullstacktemplate.config.i18nConfig;
 import com.example.fullstacktemplate.util.CookieUtils;
-import org.springframework.context.NoSuchMessageException;
-import org.springframework.context.support.ResourceBundleMessageSource;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.servlet.LocaleResolver;
 
 import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import java.text.MessageFormat;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.example.fullstacktemplate.service.CookieOAuth2AuthorizationRequestService.LANGUAGE_COOKIE_NAME;
 
+/**
+ * Resolves messages from bundles loaded once at startup. Every supported locale gets its own immutable map with the
+ * default locale as fallback, and the locale of a request is resolved only once and kept as a request attribute.
+ */
 @Service
+@Slf4j
 public class MessageService {
+    private static final String LOCALE_ATTRIBUTE = MessageService.class.getName() + ".LOCALE";
+    private static final Locale DEFAULT_LOCALE = Locale.ENGLISH;
+
     private final LocaleResolver acceptHeaderLocaleResolver;
-    private final ResourceBundleMessageSource messageSource;
+    private final Map<String, Locale> supportedLocales = new HashMap<>();
+    private final Map<Locale, Map<String, Message>> messages = new HashMap<>();
+    private final Set<String> missingCodes = ConcurrentHashMap.newKeySet();
 
-    public MessageService(LocaleResolver acceptHeaderLocaleResolver, ResourceBundleMessageSource messageSource) {
+    public MessageService(LocaleResolver acceptHeaderLocaleResolver) {
         this.acceptHeaderLocaleResolver = acceptHeaderLocaleResolver;
-        this.messageSource = messageSource;
+        Map<String, Message> defaultMessages = loadMessages(DEFAULT_LOCALE);
+        for (Locale locale : i18nConfig.SUPPORTED_LOCALES) {
+            Map<String, Message> localeMessages = new HashMap<>(defaultMessages);
+            localeMessages.putAll(loadMessages(locale));
+            messages.put(locale, Map.copyOf(localeMessages));
+            supportedLocales.put(locale.getLanguage(), locale);
+        }
+    }
+
+    private Map<String, Message> loadMessages(Locale locale) {
+        ResourceBundle bundle = ResourceBundle.getBundle(i18nConfig.MESSAGES_BASENAME, locale,
+                ResourceBundle.Control.getNoFallbackControl(ResourceBundle.Control.FORMAT_PROPERTIES));
+        Map<String, Message> bundleMessages = new HashMap<>();
+        for (String code : bundle.keySet()) {
+            bundleMessages.put(code, new Message(bundle.getString(code), locale));
+        }
+        return bundleMessages;
     }
 
-    private Locale getLocaleForCurrentRequest() {
-        return Optional.ofNullable((ServletRequestAttributes) RequestContextHolder.getRequestAttributes())
-                .map(ServletRequestAttributes::getRequest)
-                .map(request -> CookieUtils.getCookie(request, LANGUAGE_COOKIE_NAME)
-                        .map(Cookie::getValue)
-                        .map(Locale::new)
-                        .orElse(acceptHeaderLocaleResolver.resolveLocale(request)))
-                .orElse(Locale.getDefault());
+    public Locale getLocaleForCurrentRequest() {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (!(requestAttributes instanceof ServletRequestAttributes)) {
+            return DEFAULT_LOCALE;
+        }
+        Locale locale = (Locale) requestAttributes.getAttribute(LOCALE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (locale == null) {
+            locale = resolveLocale(((ServletRequestAttributes) requestAttributes).getRequest());
+            requestAttributes.setAttribute(LOCALE_ATTRIBUTE, locale, RequestAttributes.SCOPE_REQUEST);
+        }
+        return locale;
+    }
+
+    private Locale resolveLocale(HttpServletRequest request) {
+        Locale locale = CookieUtils.getCookie(request, LANGUAGE_COOKIE_NAME)
+                .map(Cookie::getValue)
+                .map(value -> supportedLocales.get(Locale.forLanguageTag(value).getLanguage()))
+                .orElseGet(() -> acceptHeaderLocaleResolver.resolveLocale(request));
+        return Optional.ofNullable(supportedLocales.get(locale.getLanguage())).orElse(DEFAULT_LOCALE);
     }
 
     public final String getMessage(String code) {
         return getMessage(code, null);
     }
 
-    public final String getMessage(String code, @Nullable Object[] args) throws NoSuchMessageException {
+    public final String getMessage(String code, @Nullable Object[] args) {
         return getMessage(code, args, null);
     }
 
     public final String getMessage(String code, @Nullable Object[] args, @Nullable String defaultMessage) {
-        Locale locale = getLocaleForCurrentRequest();
-        return messageSource.getMessage(code, args, defaultMessage, locale);
+        return getMessage(code, args, defaultMessage, getLocaleForCurrentRequest());
+    }
+
+    public final String getMessage(String code, @Nullable Object[] args, @Nullable String defaultMessage, Locale locale) {
+        Map<String, Message> localeMessages = messages.getOrDefault(locale, messages.get(DEFAULT_LOCALE));
+        Message message = localeMessages.get(code);
+        if (message != null) {
+            return message.format(args);
+        }
+        if (missingCodes.add(code)) {
+            log.debug("No message found for code {}, using fallback", code);
+        }
+        if (defaultMessage == null) {
+            return code;
+        }
+        return args == null || args.length == 0 ? defaultMessage : new MessageFormat(defaultMessage, locale).format(args);
+    }
+
+    private static class Message {
+        private final String text;
+        private final MessageFormat messageFormat;
+
+        Message(String text, Locale locale) {
+            this.text = text;
+            this.messageFormat = new MessageFormat(text, locale);
+        }
+
+        String format(@Nullable Object[] args) {
+            if (args == null || args.length == 0) {
+                return text;
+            }
+            synchronized (messageFormat) {
+                return messageFormat.format(args);
+            }
+        }
     }
 
 }
@@ -0,0 +1,148 @@
+package com.example.fullstacktemplate.service;
+
+import com.example.fullstacktemplate.config.AppProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Encodes {@link OAuth2AuthorizationRequest} into a cookie value as a short-keyed JSON document sealed with AES-GCM.
+ * The format is versioned and only string valued parameters and attributes are accepted, anything else is rejected.
+ */
+@Component
+@Slf4j
+public class OAuth2AuthorizationRequestCookieCodec {
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final String CIPHER_ALGORITHM = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH_BITS = 128;
+    private static final int MAX_COOKIE_LENGTH = 4000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, true)
+            .configure(DeserializationFeature.FAIL_ON_NULL_FOR_PRIMITIVES, true)
+            .setSerializationInclusion(JsonInclude.Include.NON_EMPTY);
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final SecretKey secretKey;
+
+    public OAuth2AuthorizationRequestCookieCodec(AppProperties appProperties) throws NoSuchAlgorithmException {
+        byte[] keyMaterial = MessageDigest.getInstance("SHA-256")
+                .digest(("oauth2-authorization-request|" + appProperties.getAuth().getTokenSecret()).getBytes(StandardCharsets.UTF_8));
+        this.secretKey = new SecretKeySpec(keyMaterial, "AES");
+    }
+
+    public String encode(OAuth2AuthorizationRequest authorizationRequest) {
+        if (!AuthorizationGrantType.AUTHORIZATION_CODE.equals(authorizationRequest.getGrantType())) {
+            throw new IllegalArgumentException("Unsupported grant type " + authorizationRequest.getGrantType().getValue());
+        }
+        AuthorizationRequestCookie cookie = new AuthorizationRequestCookie();
+        cookie.setAuthorizationUri(authorizationRequest.getAuthorizationUri());
+        cookie.setClientId(authorizationRequest.getClientId());
+        cookie.setRedirectUri(authorizationRequest.getRedirectUri());
+        cookie.setScopes(List.copyOf(authorizationRequest.getScopes()));
+        cookie.setState(authorizationRequest.getState());
+        cookie.setAdditionalParameters(toStringMap(authorizationRequest.getAdditionalParameters()));
+        cookie.setAttributes(toStringMap(authorizationRequest.getAttributes()));
+        try {
+            byte[] iv = new byte[IV_LENGTH];
+            secureRandom.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance(CIPHER_ALGORITHM);
+            cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+            cipher.updateAAD(new byte[]{FORMAT_VERSION});
+            byte[] cipherText = cipher.doFinal(objectMapper.writeValueAsBytes(cookie));
+            String value = Base64.getUrlEncoder().withoutPadding().encodeToString(ByteBuffer.allocate(1 + IV_LENGTH + cipherText.length)
+                    .put(FORMAT_VERSION)
+                    .put(iv)
+                    .put(cipherText)
+                    .array());
+            if (value.length() > MAX_COOKIE_LENGTH) {
+                throw new IllegalArgumentException("Encoded authorization request exceeds cookie size limit");
+            }
+            return value;
+        } catch (GeneralSecurityException | IOException e) {
+            throw new IllegalStateException("Error while encoding authorization request", e);
+        }
+    }
+
+    public Optional<OAuth2AuthorizationRequest> decode(String value) {
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(value);
+            if (bytes.length <= 1 + IV_LENGTH || bytes[0] != FORMAT_VERSION) {
+                return Optional.empty();
+            }
+            Cipher cipher = Cipher.getInstance(CIPHER_ALGORITHM);
+            cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH_BITS, bytes, 1, IV_LENGTH));
+            cipher.updateAAD(bytes, 0, 1);
+            byte[] json = cipher.doFinal(bytes, 1 + IV_LENGTH, bytes.length - 1 - IV_LENGTH);
+            AuthorizationRequestCookie cookie = objectMapper.readValue(json, AuthorizationRequestCookie.class);
+            return Optional.of(OAuth2AuthorizationRequest.authorizationCode()
+                    .authorizationUri(cookie.getAuthorizationUri())
+                    .clientId(cookie.getClientId())
+                    .redirectUri(cookie.getRedirectUri())
+                    .scopes(new LinkedHashSet<>(cookie.getScopes()))
+                    .state(cookie.getState())
+                    .additionalParameters(new LinkedHashMap<>(cookie.getAdditionalParameters()))
+                    .attributes(new LinkedHashMap<>(cookie.getAttributes()))
+                    .build());
+        } catch (GeneralSecurityException | IOException | IllegalArgumentException e) {
+            log.debug("Rejected OAuth2 authorization request cookie: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private Map<String, String> toStringMap(Map<String, Object> source) {
+        Map<String, String> target = new LinkedHashMap<>();
+        source.forEach((key, value) -> {
+            if (!(value instanceof String)) {
+                throw new IllegalArgumentException("Unsupported value type for " + key);
+            }
+            target.put(key, (String) value);
+        });
+        return target;
+    }
+
+    @Getter
+    @Setter
+    private static class AuthorizationRequestCookie {
+        @JsonProperty("a")
+        private String authorizationUri;
+        @JsonProperty("c")
+        private String clientId;
+        @JsonProperty("r")
+        private String redirectUri;
+        @JsonProperty("s")
+        private List<String> scopes = List.of(); // in request order, the authorization request uri is rebuilt from it
+        @JsonProperty("st")
+        private String state;
+        @JsonProperty("p")
+        private Map<String, String> additionalParameters = Map.of();
+        @JsonProperty("at")
+        private Map<String, String> attributes = Map.of();
+    }
+}
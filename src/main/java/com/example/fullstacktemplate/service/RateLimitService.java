@@ -0,0 +1,102 @@
+package com.example.fullstacktemplate.service;
+
+import com.example.fullstacktemplate.config.AppProperties;
+import com.example.fullstacktemplate.exception.TooManyRequestsException;
+import com.example.fullstacktemplate.model.RateLimitBucket;
+import com.example.fullstacktemplate.repository.RateLimitBucketRepository;
+import com.example.fullstacktemplate.util.TokenBucketRateLimiter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@Slf4j
+public class RateLimitService {
+
+    /**
+     * Set by the rate limit filter on requests that are not limited, the account check skips them as well.
+     */
+    public static final String EXEMPT_REQUEST_ATTRIBUTE = RateLimitService.class.getName() + ".EXEMPT";
+
+    private static final String CLIENT_KEY_PREFIX = "client:";
+    private static final String ACCOUNT_KEY_PREFIX = "account:";
+
+    private final AppProperties.RateLimit properties;
+    private final RateLimitBucketRepository rateLimitBucketRepository;
+    private final TokenBucketRateLimiter clientLimiter;
+    private final TokenBucketRateLimiter accountLimiter;
+
+    public RateLimitService(AppProperties appProperties, RateLimitBucketRepository rateLimitBucketRepository) {
+        this.properties = appProperties.getRateLimit();
+        this.rateLimitBucketRepository = rateLimitBucketRepository;
+        this.clientLimiter = new TokenBucketRateLimiter(properties.getClientCapacity(), properties.getClientPeriodMsec(), properties.getShards(), properties.getMaxKeysPerShard(), properties.isReplicated());
+        this.accountLimiter = new TokenBucketRateLimiter(properties.getAccountCapacity(), properties.getAccountPeriodMsec(), properties.getShards(), properties.getMaxKeysPerShard(), properties.isReplicated());
+    }
+
+    /**
+     * @return 0 when the request may proceed, otherwise the number of seconds the client has to wait
+     */
+    public long tryAcquireForClient(String clientAddress) {
+        if (!properties.isEnabled()) {
+            return 0;
+        }
+        return toRetryAfterSeconds(clientLimiter.tryAcquire(CLIENT_KEY_PREFIX + clientAddress, System.currentTimeMillis()));
+    }
+
+    public void checkAccount(String email) {
+        if (!properties.isEnabled() || email == null || isExemptRequest()) {
+            return;
+        }
+        long retryAfterSeconds = toRetryAfterSeconds(accountLimiter.tryAcquire(ACCOUNT_KEY_PREFIX + email.toLowerCase(Locale.ROOT), System.currentTimeMillis()));
+        if (retryAfterSeconds > 0) {
+            throw new TooManyRequestsException(retryAfterSeconds);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.sync-delay-msec:5000}")
+    public void evictIdleBuckets() {
+        long now = System.currentTimeMillis();
+        clientLimiter.evictIdle(now);
+        accountLimiter.evictIdle(now);
+    }
+
+    /**
+     * Adds the emission intervals consumed on this node since the last run to the shared buckets, then takes over the
+     * shared state, so every node accounts for the tokens taken on all nodes and the configured rate holds cluster wide.
+     */
+    @Scheduled(fixedDelayString = "${app.rate-limit.sync-delay-msec:5000}")
+    @Transactional
+    public void synchronizeBuckets() {
+        if (!properties.isEnabled() || !properties.isReplicated()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Map<String, Long> consumedMsec = new HashMap<>();
+        clientLimiter.drainConsumed().forEach((key, tokens) -> consumedMsec.put(key, tokens * clientLimiter.getEmissionIntervalMsec()));
+        accountLimiter.drainConsumed().forEach((key, tokens) -> consumedMsec.put(key, tokens * accountLimiter.getEmissionIntervalMsec()));
+        consumedMsec.forEach((key, consumed) -> rateLimitBucketRepository.addConsumed(key, consumed, now));
+        rateLimitBucketRepository.deleteIdle(now);
+        for (RateLimitBucket bucket : rateLimitBucketRepository.findAllByTheoreticalArrivalTimeGreaterThan(now)) {
+            TokenBucketRateLimiter limiter = bucket.getBucketKey().startsWith(CLIENT_KEY_PREFIX) ? clientLimiter : accountLimiter;
+            limiter.merge(bucket.getBucketKey(), bucket.getTheoreticalArrivalTime(), now);
+        }
+        log.debug("Synchronized {} rate limit buckets", consumedMsec.size());
+    }
+
+    private long toRetryAfterSeconds(long waitMsec) {
+        return waitMsec <= 0 ? 0 : Math.max(1, TimeUnit.MILLISECONDS.toSeconds(waitMsec + 999));
+    }
+
+    private boolean isExemptRequest() {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        return requestAttributes != null && requestAttributes.getAttribute(EXEMPT_REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.fullstacktemplate.service;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory index of revoked refresh tokens that have not expired yet. Tokens are grouped into buckets by their
+ * expiry so that whole buckets can be dropped once they expire. Each bucket is fronted by a bloom filter, the exact
+ * set is only consulted when the filter reports a possible hit.
+ */
+@Component
+public class RefreshTokenRevocationIndex {
+
+    private static final long BUCKET_WIDTH_MSEC = 3_600_000;
+    private static final int BLOOM_FILTER_BITS = 1 << 16;
+    private static final int BLOOM_FILTER_HASHES = 3;
+
+    private final ConcurrentSkipListMap<Long, Bucket> buckets = new ConcurrentSkipListMap<>();
+
+    public void revoke(String token, Instant expiresAt) {
+        buckets.computeIfAbsent(bucketKey(expiresAt), key -> new Bucket()).add(token);
+    }
+
+    public boolean isRevoked(String token, Instant expiresAt) {
+        Bucket bucket = buckets.get(bucketKey(expiresAt));
+        return bucket != null && bucket.contains(token);
+    }
+
+    public void evictExpired(Instant now) {
+        ConcurrentNavigableMap<Long, Bucket> expired = buckets.headMap(bucketKey(now));
+        expired.clear();
+    }
+
+    public int size() {
+        return buckets.values().stream().mapToInt(bucket -> bucket.tokens.size()).sum();
+    }
+
+    private long bucketKey(Instant expiresAt) {
+        return Math.floorDiv(expiresAt.toEpochMilli(), BUCKET_WIDTH_MSEC);
+    }
+
+    private static class Bucket {
+
+        private final AtomicLongArray bloomFilter = new AtomicLongArray(BLOOM_FILTER_BITS / Long.SIZE);
+        private final Set<String> tokens = ConcurrentHashMap.newKeySet();
+
+        void add(String token) {
+            tokens.add(token);
+            int hash = token.hashCode();
+            int secondHash = mix(hash);
+            for (int i = 0; i < BLOOM_FILTER_HASHES; i++) {
+                int bit = ((hash + i * secondHash) & Integer.MAX_VALUE) % BLOOM_FILTER_BITS;
+                bloomFilter.accumulateAndGet(bit / Long.SIZE, 1L << (bit % Long.SIZE), (current, mask) -> current | mask);
+            }
+        }
+
+        boolean contains(String token) {
+            int hash = token.hashCode();
+            int secondHash = mix(hash);
+            for (int i = 0; i < BLOOM_FILTER_HASHES; i++) {
+                int bit = ((hash + i * secondHash) & Integer.MAX_VALUE) % BLOOM_FILTER_BITS;
+                if ((bloomFilter.get(bit / Long.SIZE) & (1L << (bit % Long.SIZE))) == 0) {
+                    return false;
+                }
+            }
+            return tokens.contains(token);
+        }
+
+        private static int mix(int hash) {
+            hash ^= hash >>> 16;
+            hash *= 0x85ebca6b;
+            hash ^= hash >>> 13;
+            hash *= 0xc2b2ae35;
+            hash ^= hash >>> 16;
+            return hash | 1;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.fullstacktemplate.service;
+
+import com.example.fullstacktemplate.config.AppProperties;
+import com.example.fullstacktemplate.dto.SessionDto;
+import com.example.fullstacktemplate.model.JwtToken;
+import com.example.fullstacktemplate.model.TokenType;
+import com.example.fullstacktemplate.model.User;
+import com.example.fullstacktemplate.repository.TokenRepository;
+import com.example.fullstacktemplate.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Service
+@Transactional
+@Slf4j
+public class RefreshTokenService {
+
+    private final TokenService tokenService;
+    private final TokenRepository tokenRepository;
+    private final UserRepository userRepository;
+    private final RefreshTokenRevocationIndex revocationIndex;
+    private final AppProperties appProperties;
+
+    public RefreshTokenService(TokenService tokenService, TokenRepository tokenRepository, UserRepository userRepository, RefreshTokenRevocationIndex revocationIndex, AppProperties appProperties) {
+        this.tokenService = tokenService;
+        this.tokenRepository = tokenRepository;
+        this.userRepository = userRepository;
+        this.revocationIndex = revocationIndex;
+        this.appProperties = appProperties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadRevocationIndex() {
+        List<TokenRepository.TokenExpiry> revokedTokens = tokenRepository.findAllByTokenTypeAndRevokedTrueAndExpiresAtAfter(TokenType.REFRESH, Instant.now());
+        revokedTokens.forEach(token -> revocationIndex.revoke(token.getValue(), token.getExpiresAt()));
+        log.info("Loaded {} revoked refresh tokens", revokedTokens.size());
+    }
+
+    public JwtToken issue(User user, String userAgent, String ipAddress) {
+        evictLeastRecentlyUsedSessions(user.getId(), appProperties.getAuth().getMaxSessionsPerUser() - 1);
+        JwtToken refreshToken = tokenService.newToken(user, getRefreshTokenExpiration(), TokenType.REFRESH, UUID.randomUUID().toString(), Instant.now().truncatedTo(ChronoUnit.SECONDS));
+        refreshToken.setUserAgent(userAgent);
+        refreshToken.setIpAddress(ipAddress);
+        return tokenRepository.save(refreshToken);
+    }
+
+    public Optional<JwtToken> rotate(String refreshToken, String userAgent, String ipAddress) {
+        JwtClaims claims = tokenService.getValidClaims(refreshToken).orElse(null);
+        if (claims == null) {
+            return Optional.empty();
+        }
+        Instant expiresAt = claims.getExpiresAt();
+        String familyId = claims.getFamilyId();
+        if (revocationIndex.isRevoked(refreshToken, expiresAt)) {
+            return handleReuse(refreshToken, familyId);
+        }
+        Long userId = tokenService.getUserId(claims);
+        if (tokenRepository.revokeForRotation(refreshToken, userId, TokenType.REFRESH, Instant.now()) == 0) {
+            return handleReuse(refreshToken, familyId);
+        }
+        revokeInIndexAfterCommit(refreshToken, expiresAt);
+        JwtToken rotatedToken = tokenService.newToken(userRepository.getById(userId), getRefreshTokenExpiration(), TokenType.REFRESH, familyId, claims.getSessionStartedAt());
+        rotatedToken.setUserAgent(userAgent);
+        rotatedToken.setIpAddress(ipAddress);
+        rotatedToken = tokenRepository.save(rotatedToken);
+        tokenRepository.setSuccessor(refreshToken, TokenType.REFRESH, rotatedToken.getId());
+        return Optional.of(rotatedToken);
+    }
+
+    public boolean revoke(String refreshToken, Long userId) {
+        Optional<Instant> expiresAt = tokenService.getValidClaims(refreshToken).map(JwtClaims::getExpiresAt);
+        if (expiresAt.isEmpty() || tokenRepository.revokeByValue(refreshToken, userId, TokenType.REFRESH) == 0) {
+            return false;
+        }
+        revocationIndex.revoke(refreshToken, expiresAt.get());
+        return true;
+    }
+
+    @Transactional(readOnly = true)
+    public List<SessionDto> getSessions(Long userId, @Nullable String currentRefreshToken) {
+        String currentFamilyId = currentRefreshToken == null ? null : tokenService.getValidClaims(currentRefreshToken)
+                .map(JwtClaims::getFamilyId)
+                .orElse(null);
+        return tokenRepository.findSessions(userId, TokenType.REFRESH, Instant.now())
+                .stream()
+                .map(session -> {
+                    SessionDto sessionDto = new SessionDto();
+                    sessionDto.setId(session.getFamilyId());
+                    sessionDto.setUserAgent(session.getUserAgent());
+                    sessionDto.setIpAddress(session.getIpAddress());
+                    sessionDto.setStartedAt(session.getSessionStartedAt());
+                    sessionDto.setLastUsedAt(session.getLastUsedAt());
+                    sessionDto.setExpiresAt(session.getExpiresAt());
+                    sessionDto.setCurrent(session.getFamilyId().equals(currentFamilyId));
+                    return sessionDto;
+                })
+                .collect(Collectors.toList());
+    }
+
+    public boolean revokeSession(Long userId, String sessionId) {
+        tokenRepository.findActiveByUserIdAndFamilyId(userId, sessionId)
+                .forEach(token -> revocationIndex.revoke(token.getValue(), token.getExpiresAt()));
+        return tokenRepository.revokeByUserIdAndFamilyId(userId, sessionId) > 0;
+    }
+
+    public int revokeAllSessions(Long userId) {
+        tokenRepository.findActiveByUserId(userId, TokenType.REFRESH)
+                .forEach(token -> revocationIndex.revoke(token.getValue(), token.getExpiresAt()));
+        return tokenRepository.revokeByUserId(userId, TokenType.REFRESH);
+    }
+
+    private void evictLeastRecentlyUsedSessions(Long userId, int sessionsToKeep) {
+        List<TokenRepository.Session> sessions = tokenRepository.findSessions(userId, TokenType.REFRESH, Instant.now());
+        for (int i = 0; i < sessions.size() - Math.max(sessionsToKeep, 0); i++) {
+            log.info("Maximum number of sessions reached for user {}, revoking session {}", userId, sessions.get(i).getFamilyId());
+            revokeSession(userId, sessions.get(i).getFamilyId());
+        }
+    }
+
+    public void evictExpired() {
+        revocationIndex.evictExpired(Instant.now());
+    }
+
+    /**
+     * A token that was rotated within the grace period and whose successor is still the active head of its family is a
+     * concurrent refresh, e.g. from two tabs sharing the cookie, and gets that successor. Any other reuse, including an
+     * older generation of the family, revokes the whole family.
+     */
+    private Optional<JwtToken> handleReuse(String refreshToken, String familyId) {
+        if (familyId == null) {
+            return Optional.empty();
+        }
+        Instant graceStart = Instant.now().minusMillis(appProperties.getAuth().getRefreshTokenReuseGraceMsec());
+        Optional<JwtToken> successor = tokenRepository.findActiveSuccessor(refreshToken, TokenType.REFRESH, graceStart);
+        if (successor.isPresent()) {
+            log.debug("Rotated refresh token of family {} used again within the grace period", familyId);
+            return successor;
+        }
+        revokeFamilyOnReuse(familyId);
+        return Optional.empty();
+    }
+
+    /**
+     * A concurrent refresh must not find the rotated token in the index before its successor is committed, otherwise
+     * it can not get the successor and revokes the family.
+     */
+    private void revokeInIndexAfterCommit(String refreshToken, Instant expiresAt) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            revocationIndex.revoke(refreshToken, expiresAt);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                revocationIndex.revoke(refreshToken, expiresAt);
+            }
+        });
+    }
+
+    private void revokeFamilyOnReuse(String familyId) {
+        log.warn("Reuse of rotated refresh token detected, revoking token family {}", familyId);
+        tokenRepository.findAllByFamilyIdAndRevokedFalse(familyId)
+                .forEach(token -> revocationIndex.revoke(token.getValue(), token.getExpiresAt()));
+        tokenRepository.revokeByFamilyId(familyId);
+    }
+
+    private Duration getRefreshTokenExpiration() {
+        return Duration.of(appProperties.getAuth().getRefreshTokenExpirationMsec(), ChronoUnit.MILLIS);
+    }
+}
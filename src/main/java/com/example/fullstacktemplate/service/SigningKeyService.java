@@ -0,0 +1,247 @@
+package com.example.fullstacktemplate.service;
+
+import com.example.fullstacktemplate.config.AppProperties;
+import com.example.fullstacktemplate.model.SigningKey;
+import com.example.fullstacktemplate.repository.SigningKeyRepository;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Keyset used to sign and verify jwt tokens. Keys are shared between replicas through the database, private keys are
+ * stored wrapped with a key derived from the token secret. Keys are numbered by generation and only one key per
+ * generation can be inserted, so replicas rotating at the same time agree on the single key that won. A new key is
+ * generated ahead of the end of the rotation period and only used for signing once every replica had the chance to
+ * load it on its scheduled reload. Older keys are kept for verification until every token they could have signed has
+ * expired.
+ */
+@Service
+@Slf4j
+public class SigningKeyService {
+
+    public static final String ALGORITHM = "RS256";
+    private static final String KEY_ALGORITHM = "RSA";
+    private static final int KEY_SIZE = 2048;
+    private static final String WRAP_ALGORITHM = "AES/GCM/NoPadding";
+    private static final int WRAP_IV_LENGTH = 12;
+    private static final int WRAP_TAG_LENGTH_BITS = 128;
+    private static final long MIN_RELOAD_INTERVAL_MSEC = 10000;
+
+    private final SigningKeyRepository signingKeyRepository;
+    private final AppProperties appProperties;
+    private final TransactionTemplate transaction;
+    private final SecretKey wrappingKey;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final Map<String, PublicKey> verificationKeys = new ConcurrentHashMap<>();
+    private final AtomicLong lastUnknownKeyReloadMsec = new AtomicLong();
+    private volatile ActiveSigningKey activeSigningKey;
+
+    public SigningKeyService(SigningKeyRepository signingKeyRepository, AppProperties appProperties, PlatformTransactionManager transactionManager) throws GeneralSecurityException {
+        this.signingKeyRepository = signingKeyRepository;
+        this.appProperties = appProperties;
+        this.transaction = new TransactionTemplate(transactionManager);
+        byte[] keyMaterial = MessageDigest.getInstance("SHA-256")
+                .digest(("signing-key-wrap|" + appProperties.getAuth().getTokenSecret()).getBytes(StandardCharsets.UTF_8));
+        this.wrappingKey = new SecretKeySpec(keyMaterial, "AES");
+    }
+
+    @PostConstruct
+    public void init() {
+        reloadKeys();
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.signingKeyReloadMsec:300000}", initialDelayString = "${app.auth.signingKeyReloadMsec:300000}")
+    public void scheduledReload() {
+        reloadKeys();
+    }
+
+    public ActiveSigningKey getActiveSigningKey() {
+        return activeSigningKey;
+    }
+
+    /**
+     * Reloads the keyset for a key id it does not know, at most once per {@value #MIN_RELOAD_INTERVAL_MSEC} ms, so
+     * forged key ids can not flood the database.
+     */
+    public PublicKey getVerificationKey(String keyId) {
+        if (keyId == null) {
+            return null;
+        }
+        PublicKey publicKey = verificationKeys.get(keyId);
+        if (publicKey == null) {
+            long nowMsec = System.currentTimeMillis();
+            long lastReload = lastUnknownKeyReloadMsec.get();
+            if (nowMsec - lastReload > MIN_RELOAD_INTERVAL_MSEC && lastUnknownKeyReloadMsec.compareAndSet(lastReload, nowMsec)) {
+                reloadKeys();
+                publicKey = verificationKeys.get(keyId);
+            }
+        }
+        return publicKey;
+    }
+
+    private synchronized void reloadKeys() {
+        Instant now = Instant.now();
+        List<SigningKey> signingKeys = findValidKeys(now);
+        SigningKey newestKey = signingKeys.isEmpty() ? null : signingKeys.get(0);
+        if (newestKey == null || !newestKey.getCreatedAt().plus(getNextKeyDelay()).isAfter(now)) {
+            long generation = newestKey != null ? newestKey.getGeneration() + 1 : Optional.ofNullable(transaction.execute(status -> signingKeyRepository.findMaxGeneration())).map(max -> max + 1).orElse(0L);
+            SigningKey generatedKey = generateKey(generation, now);
+            try {
+                transaction.executeWithoutResult(status -> signingKeyRepository.insert(generatedKey));
+                log.info("Generated signing key {} of generation {}", generatedKey.getKeyId(), generation);
+            } catch (DataIntegrityViolationException e) {
+                log.info("Signing key of generation {} was generated by another replica", generation);
+            }
+            signingKeys = findValidKeys(now);
+        }
+        Set<String> keyIds = signingKeys.stream().map(SigningKey::getKeyId).collect(Collectors.toSet());
+        verificationKeys.keySet().retainAll(keyIds);
+        for (SigningKey signingKey : signingKeys) {
+            verificationKeys.computeIfAbsent(signingKey.getKeyId(), keyId -> parsePublicKey(signingKey.getPublicKey()));
+        }
+        SigningKey signingKey = selectSigningKey(signingKeys, now);
+        if (activeSigningKey == null || !activeSigningKey.getKeyId().equals(signingKey.getKeyId())) {
+            activeSigningKey = new ActiveSigningKey(signingKey.getKeyId(), unwrapPrivateKey(signingKey));
+            log.info("Signing tokens with key {}", signingKey.getKeyId());
+        }
+    }
+
+    /**
+     * Reads the keys from the primary, a lagging replica could miss the key another replica just generated.
+     */
+    private List<SigningKey> findValidKeys(Instant now) {
+        return transaction.execute(status -> signingKeyRepository.findAllByExpiresAtAfterOrderByGenerationDesc(now));
+    }
+
+    /**
+     * @return the newest key published long enough for every replica to know it and valid for as long as the tokens
+     * it signs, the newest key while there is none such, e.g. on the first start
+     */
+    private SigningKey selectSigningKey(List<SigningKey> signingKeys, Instant now) {
+        return signingKeys.stream()
+                .filter(signingKey -> !signingKey.getCreatedAt().plus(getPublicationDelay()).isAfter(now))
+                .filter(signingKey -> signingKey.getExpiresAt().minus(getMaxTokenLifetime()).isAfter(now))
+                .findFirst()
+                .orElse(signingKeys.get(0));
+    }
+
+    private SigningKey generateKey(long generation, Instant now) {
+        try {
+            KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance(KEY_ALGORITHM);
+            keyPairGenerator.initialize(KEY_SIZE, secureRandom);
+            KeyPair keyPair = keyPairGenerator.generateKeyPair();
+            SigningKey signingKey = new SigningKey();
+            signingKey.setKeyId(UUID.randomUUID().toString());
+            signingKey.setGeneration(generation);
+            signingKey.setAlgorithm(ALGORITHM);
+            signingKey.setPublicKey(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()));
+            signingKey.setPrivateKey(wrapPrivateKey(signingKey.getKeyId(), keyPair.getPrivate().getEncoded()));
+            signingKey.setCreatedAt(now);
+            // in use until its successor is, at most a publication delay past the generation of the successor
+            signingKey.setExpiresAt(now.plus(getNextKeyDelay()).plus(getPublicationDelay().multipliedBy(2)).plus(getMaxTokenLifetime()));
+            return signingKey;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Error while generating signing key", e);
+        }
+    }
+
+    private String wrapPrivateKey(String keyId, byte[] encodedKey) throws GeneralSecurityException {
+        byte[] iv = new byte[WRAP_IV_LENGTH];
+        secureRandom.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance(WRAP_ALGORITHM);
+        cipher.init(Cipher.ENCRYPT_MODE, wrappingKey, new GCMParameterSpec(WRAP_TAG_LENGTH_BITS, iv));
+        cipher.updateAAD(keyId.getBytes(StandardCharsets.UTF_8));
+        byte[] wrappedKey = cipher.doFinal(encodedKey);
+        return Base64.getEncoder().encodeToString(ByteBuffer.allocate(iv.length + wrappedKey.length).put(iv).put(wrappedKey).array());
+    }
+
+    private PrivateKey unwrapPrivateKey(SigningKey signingKey) {
+        try {
+            byte[] wrappedKey = Base64.getDecoder().decode(signingKey.getPrivateKey());
+            Cipher cipher = Cipher.getInstance(WRAP_ALGORITHM);
+            cipher.init(Cipher.DECRYPT_MODE, wrappingKey, new GCMParameterSpec(WRAP_TAG_LENGTH_BITS, wrappedKey, 0, WRAP_IV_LENGTH));
+            cipher.updateAAD(signingKey.getKeyId().getBytes(StandardCharsets.UTF_8));
+            byte[] encodedKey = cipher.doFinal(wrappedKey, WRAP_IV_LENGTH, wrappedKey.length - WRAP_IV_LENGTH);
+            return KeyFactory.getInstance(KEY_ALGORITHM).generatePrivate(new PKCS8EncodedKeySpec(encodedKey));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Error while unwrapping signing key " + signingKey.getKeyId(), e);
+        }
+    }
+
+    private PublicKey parsePublicKey(String encodedKey) {
+        try {
+            return KeyFactory.getInstance(KEY_ALGORITHM).generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(encodedKey)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Error while parsing signing key", e);
+        }
+    }
+
+    private Duration getRotationPeriod() {
+        return Duration.ofMillis(appProperties.getAuth().getSigningKeyRotationPeriodMsec());
+    }
+
+    /**
+     * Twice the reload period, every replica reloads at least once in between.
+     */
+    private Duration getPublicationDelay() {
+        return Duration.ofMillis(2 * appProperties.getAuth().getSigningKeyReloadMsec());
+    }
+
+    /**
+     * Age of the newest key at which its successor is generated, so the successor is in use once the rotation period
+     * is over. Never before the newest key itself is in use.
+     */
+    private Duration getNextKeyDelay() {
+        Duration nextKeyDelay = getRotationPeriod().minus(getPublicationDelay());
+        return nextKeyDelay.compareTo(getPublicationDelay()) > 0 ? nextKeyDelay : getPublicationDelay();
+    }
+
+    private Duration getMaxTokenLifetime() {
+        AppProperties.Auth auth = appProperties.getAuth();
+        return Duration.ofMillis(Math.max(auth.getAccessTokenExpirationMsec(), Math.max(auth.getRefreshTokenExpirationMsec(), auth.getVerificationTokenExpirationMsec())));
+    }
+
+    @Getter
+    public static class ActiveSigningKey {
+        private final String keyId;
+        private final PrivateKey privateKey;
+
+        ActiveSigningKey(String keyId, PrivateKey privateKey) {
+            this.keyId = keyId;
+            this.privateKey = privateKey;
+        }
+    }
+}
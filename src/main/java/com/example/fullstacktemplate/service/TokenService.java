@@ -1,107 +1,196 @@
 package com.example.fullstacktemplate.service;
 
 import com.example.fullstacktemplate.config.AppProperties;
+import com.example.fullstacktemplate.exception.BadRequestException;
 import com.example.fullstacktemplate.model.JwtToken;
 import com.example.fullstacktemplate.model.TokenType;
 import com.example.fullstacktemplate.model.User;
 import com.example.fullstacktemplate.repository.TokenRepository;
-import io.jsonwebtoken.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.*;
 import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
 import javax.transaction.Transactional;
+import java.nio.charset.StandardCharsets;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
-import java.util.Date;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
 
 @Service
 public class TokenService {
 
+    static final String FAMILY_ID_CLAIM = "fam";
+    static final String SESSION_STARTED_AT_CLAIM = "sst";
+    static final String PURPOSE_CLAIM = "pur";
+    static final String FINGERPRINT_CLAIM = "fp";
+    private static final String ISSUER = "Full-stack template";
+    private static final String FINGERPRINT_ALGORITHM = "HmacSHA256";
     private static final Logger logger = LoggerFactory.getLogger(TokenService.class);
 
     private final AppProperties appProperties;
     private final TokenRepository tokenRepository;
     private final CryptoService cryptoService;
+    private final CompactJwsCodec jwsCodec;
     private final SecretKey secretKey;
     private final String algorithm;
-    private final IvParameterSpec ivParameterSpec;
 
-    public TokenService(AppProperties appProperties, TokenRepository tokenRepository, CryptoService cryptoService) throws NoSuchAlgorithmException {
+    public TokenService(AppProperties appProperties, TokenRepository tokenRepository, CryptoService cryptoService, CompactJwsCodec jwsCodec) throws NoSuchAlgorithmException {
         this.appProperties = appProperties;
         this.tokenRepository = tokenRepository;
         this.cryptoService = cryptoService;
+        this.jwsCodec = jwsCodec;
         this.algorithm = "AES/CBC/PKCS5Padding";
-        this.ivParameterSpec = cryptoService.generateInitializationVector();
-        this.secretKey = cryptoService.generateKey(256);
+        byte[] keyMaterial = MessageDigest.getInstance("SHA-256")
+                .digest(("token-subject|" + appProperties.getAuth().getTokenSecret()).getBytes(StandardCharsets.UTF_8));
+        this.secretKey = new SecretKeySpec(keyMaterial, "AES");
     }
 
     public String createJwtTokenValue(Long id, Duration expireIn) {
-        return createJwtTokenValue(Long.toString(id), expireIn);
+        return createJwtTokenValue(Long.toString(id), getExpiration(expireIn), new JwtClaims());
     }
 
-    private String createJwtTokenValue(String subject, Duration expireIn) {
-        Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + expireIn.toMillis());
+    private Instant getExpiration(Duration expireIn) {
+        return Instant.now().plus(expireIn).truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    private String createJwtTokenValue(String subject, Instant expiration, JwtClaims claims) {
         try {
-            return Jwts.builder()
-                    .setSubject(cryptoService.encrypt(algorithm, subject, secretKey, ivParameterSpec))
-                    .setIssuedAt(new Date())
-                    .setExpiration(expiryDate)
-                    .setIssuer("Full-stack template")
-                    .signWith(SignatureAlgorithm.HS512, appProperties.getAuth().getTokenSecret())
-                    .compact();
+            claims.setId(UUID.randomUUID().toString());
+            claims.setSubject(encryptSubject(subject));
+            claims.setIssuedAt(Instant.now());
+            claims.setExpiresAt(expiration);
+            claims.setIssuer(ISSUER);
+            return jwsCodec.sign(claims);
         } catch (NoSuchPaddingException | NoSuchAlgorithmException | InvalidAlgorithmParameterException | InvalidKeyException | BadPaddingException | IllegalBlockSizeException e) {
             throw new IllegalStateException("Error while creating jwt token");
         }
     }
 
-    public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .setSigningKey(appProperties.getAuth().getTokenSecret())
-                .parseClaimsJws(token)
-                .getBody();
+    private String encryptSubject(String subject) throws NoSuchPaddingException, NoSuchAlgorithmException, InvalidAlgorithmParameterException, InvalidKeyException, BadPaddingException, IllegalBlockSizeException {
+        IvParameterSpec ivParameterSpec = cryptoService.generateInitializationVector();
+        return Base64.getEncoder().encodeToString(ivParameterSpec.getIV()) + "." + cryptoService.encrypt(algorithm, subject, secretKey, ivParameterSpec);
+    }
+
+    private String decryptSubject(String encryptedSubject) throws NoSuchPaddingException, NoSuchAlgorithmException, InvalidAlgorithmParameterException, InvalidKeyException, BadPaddingException, IllegalBlockSizeException {
+        int separator = encryptedSubject.indexOf('.');
+        if (separator < 0) {
+            throw new BadPaddingException("Missing initialization vector");
+        }
+        IvParameterSpec ivParameterSpec = new IvParameterSpec(Base64.getDecoder().decode(encryptedSubject.substring(0, separator)));
+        return cryptoService.decrypt(algorithm, encryptedSubject.substring(separator + 1), secretKey, ivParameterSpec);
+    }
+
+    public Optional<JwtClaims> getValidClaims(String token) {
+        CompactJwsCodec.Result result = jwsCodec.verify(token, Instant.now());
+        if (!result.isValid()) {
+            logger.debug("Rejected JWT token: {}", result.getStatus());
+            return Optional.empty();
+        }
+        return Optional.of(result.getClaims());
+    }
+
+    /**
+     * Refresh tokens carry a family and verification tokens a purpose, neither may authenticate a request as a bearer
+     * token, revoking a session or using a verification link would otherwise not stop them.
+     */
+    public Optional<JwtClaims> getValidAccessTokenClaims(String token) {
+        return getValidClaims(token).filter(claims -> claims.getFamilyId() == null && claims.getPurpose() == null);
+    }
+
+    public boolean validateJwtToken(String jwtToken) {
+        return getValidClaims(jwtToken).isPresent();
+    }
+
+    public Long getUserId(JwtClaims claims) {
         try {
-            return Long.parseLong(cryptoService.decrypt(algorithm, claims.getSubject(), secretKey, ivParameterSpec));
+            return Long.parseLong(decryptSubject(claims.getSubject()));
         } catch (NoSuchPaddingException | NoSuchAlgorithmException | InvalidAlgorithmParameterException | InvalidKeyException | BadPaddingException | IllegalBlockSizeException e) {
             throw new IllegalStateException("Error while getting id from token");
         }
     }
 
-    public boolean validateJwtToken(String jwtToken) {
-        try {
-            Jwts.parser().setSigningKey(appProperties.getAuth().getTokenSecret()).parseClaimsJws(jwtToken);
-            return true;
-        } catch (SignatureException ex) {
-            logger.error("Invalid JWT signature");
-        } catch (MalformedJwtException ex) {
-            logger.error("Invalid JWT token");
-        } catch (ExpiredJwtException ex) {
-            logger.error("Expired JWT token");
-        } catch (UnsupportedJwtException ex) {
-            logger.error("Unsupported JWT token");
-        } catch (IllegalArgumentException ex) {
-            logger.error("JWT claims string is empty.");
+    public String createVerificationToken(User user, TokenType purpose) {
+        JwtClaims claims = new JwtClaims();
+        claims.setPurpose(purpose.name());
+        claims.setFingerprint(getFingerprint(user, purpose));
+        Duration expireIn = Duration.of(appProperties.getAuth().getVerificationTokenExpirationMsec(), ChronoUnit.MILLIS);
+        return createJwtTokenValue(Long.toString(user.getId()), getExpiration(expireIn), claims);
+    }
+
+    public Long getUserIdFromVerificationToken(String token, TokenType purpose) {
+        CompactJwsCodec.Result result = jwsCodec.verify(token, Instant.now());
+        if (result.getStatus() == CompactJwsCodec.Status.EXPIRED) {
+            throw new BadRequestException("tokenExpired");
         }
-        return false;
+        if (!result.isValid() || !purpose.name().equals(result.getClaims().getPurpose())) {
+            throw new BadRequestException("invalidToken");
+        }
+        return getUserId(result.getClaims());
     }
 
+    public void verifyFingerprint(String token, User user, TokenType purpose) {
+        String fingerprint = getValidClaims(token).map(JwtClaims::getFingerprint).orElse(null);
+        if (fingerprint == null || !MessageDigest.isEqual(fingerprint.getBytes(StandardCharsets.US_ASCII), getFingerprint(user, purpose).getBytes(StandardCharsets.US_ASCII))) {
+            throw new BadRequestException("invalidToken");
+        }
+    }
+
+    private String getFingerprint(User user, TokenType purpose) {
+        String state;
+        switch (purpose) {
+            case ACCOUNT_ACTIVATION:
+                state = user.getEmail() + "|" + user.getEmailVerified();
+                break;
+            case EMAIL_UPDATE:
+                state = user.getEmail() + "|" + user.getRequestedNewEmail();
+                break;
+            case FORGOTTEN_PASSWORD:
+                state = user.getEmail() + "|" + user.getPassword();
+                break;
+            default:
+                throw new IllegalArgumentException("Token type " + purpose + " is not a verification token");
+        }
+        try {
+            Mac mac = Mac.getInstance(FINGERPRINT_ALGORITHM);
+            mac.init(new SecretKeySpec(appProperties.getAuth().getTokenSecret().getBytes(StandardCharsets.UTF_8), FINGERPRINT_ALGORITHM));
+            byte[] fingerprint = mac.doFinal((purpose.name() + "|" + state).getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(fingerprint, 16));
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("Error while creating token fingerprint");
+        }
+    }
 
     @Transactional
     public JwtToken createToken(User user, Duration expireIn, TokenType tokenType) {
-        String tokenValue = createJwtTokenValue(user.getId(), expireIn);
+        return tokenRepository.save(newToken(user, expireIn, tokenType, null, null));
+    }
+
+    public JwtToken newToken(User user, Duration expireIn, TokenType tokenType, String familyId, Instant sessionStartedAt) {
+        JwtClaims claims = new JwtClaims();
+        claims.setFamilyId(familyId);
+        claims.setSessionStartedAt(sessionStartedAt);
+        Instant expiration = getExpiration(expireIn);
+        String tokenValue = createJwtTokenValue(Long.toString(user.getId()), expiration, claims);
         JwtToken jwtToken = new JwtToken();
         jwtToken.setValue(tokenValue);
         jwtToken.setUser(user);
         jwtToken.setTokenType(tokenType);
-        return tokenRepository.save(jwtToken);
+        jwtToken.setExpiresAt(expiration);
+        jwtToken.setFamilyId(familyId);
+        jwtToken.setSessionStartedAt(sessionStartedAt);
+        jwtToken.setCreatedAt(Instant.now());
+        return jwtToken;
     }
 
-    public void delete(JwtToken jwtToken) {
-        tokenRepository.delete(jwtToken);
-    }
 }
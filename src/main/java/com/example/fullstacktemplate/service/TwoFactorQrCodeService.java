@@ -0,0 +1,99 @@
+package com.example.fullstacktemplate.service;
+
+import com.example.fullstacktemplate.dto.QrCodeFormat;
+import com.example.fullstacktemplate.dto.TwoFactorSetupDto;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import dev.samstevens.totp.exceptions.QrGenerationException;
+import dev.samstevens.totp.qr.QrData;
+import dev.samstevens.totp.qr.QrGenerator;
+import dev.samstevens.totp.qr.ZxingPngQrGenerator;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Renders the two-factor setup QR code as an SVG path, a PNG or just the {@code otpauth://} URI. Rendered codes are
+ * cached per pending secret, so repeated setup requests do not render again.
+ */
+@Service
+public class TwoFactorQrCodeService {
+
+    static final String SVG_MIME_TYPE = "image/svg+xml";
+    private static final int MAX_CACHED_CODES = 1024;
+    private static final int QUIET_ZONE = 4;
+
+    private final QrGenerator pngGenerator = new ZxingPngQrGenerator();
+    private final QRCodeWriter qrCodeWriter = new QRCodeWriter();
+    private final Map<String, TwoFactorSetupDto> renderedCodes = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TwoFactorSetupDto> eldest) {
+            return size() > MAX_CACHED_CODES;
+        }
+    });
+
+    public TwoFactorSetupDto render(QrData data, QrCodeFormat format) throws QrGenerationException {
+        String key = data.getSecret() + "\n" + format + "\n" + data.getUri();
+        TwoFactorSetupDto twoFactorSetupDto = renderedCodes.get(key);
+        if (twoFactorSetupDto == null) {
+            twoFactorSetupDto = new TwoFactorSetupDto();
+            twoFactorSetupDto.setOtpAuthUri(data.getUri());
+            if (format == QrCodeFormat.png) {
+                twoFactorSetupDto.setQrData(pngGenerator.generate(data));
+                twoFactorSetupDto.setMimeType(pngGenerator.getImageMimeType());
+            } else if (format == QrCodeFormat.svg) {
+                twoFactorSetupDto.setQrData(renderSvg(data.getUri()));
+                twoFactorSetupDto.setMimeType(SVG_MIME_TYPE);
+            }
+            renderedCodes.put(key, twoFactorSetupDto);
+        }
+        return twoFactorSetupDto;
+    }
+
+    /**
+     * Drops the codes rendered for a secret once it is no longer pending.
+     */
+    public void evict(String secret) {
+        if (secret != null) {
+            synchronized (renderedCodes) {
+                renderedCodes.keySet().removeIf(key -> key.startsWith(secret + "\n"));
+            }
+        }
+    }
+
+    private byte[] renderSvg(String uri) throws QrGenerationException {
+        BitMatrix matrix;
+        try {
+            matrix = qrCodeWriter.encode(uri, BarcodeFormat.QR_CODE, 0, 0, Map.of(EncodeHintType.MARGIN, QUIET_ZONE));
+        } catch (WriterException e) {
+            throw new QrGenerationException("Failed to generate QR code", e);
+        }
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        StringBuilder svg = new StringBuilder(8192)
+                .append("<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"0 0 ").append(width).append(' ').append(height)
+                .append("\" shape-rendering=\"crispEdges\"><rect width=\"100%\" height=\"100%\" fill=\"#fff\"/><path fill=\"#000\" d=\"");
+        // one rectangle per horizontal run of dark modules
+        for (int y = 0; y < height; y++) {
+            int x = 0;
+            while (x < width) {
+                if (!matrix.get(x, y)) {
+                    x++;
+                    continue;
+                }
+                int start = x;
+                while (x < width && matrix.get(x, y)) {
+                    x++;
+                }
+                svg.append('M').append(start).append(' ').append(y).append('h').append(x - start).append("v1h-").append(x - start).append('z');
+            }
+        }
+        return svg.append("\"/></svg>").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.fullstacktemplate.service;
+
+import com.example.fullstacktemplate.config.AppProperties;
+import com.example.fullstacktemplate.dto.UserAuditEventDto;
+import com.example.fullstacktemplate.dto.UserAuditHistoryDto;
+import com.example.fullstacktemplate.model.AuditAction;
+import com.example.fullstacktemplate.model.UserAuditEvent;
+import com.example.fullstacktemplate.repository.UserAuditEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.javers.core.Javers;
+import org.javers.core.JaversBuilder;
+import org.javers.core.diff.changetype.ValueChange;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Audit trail of user changes. Changes are only queued on the committing thread, the Javers diff and the batched
+ * insert happen on the scheduler. When the bounded queue is full new changes are dropped and counted rather than
+ * slowing down requests.
+ */
+@Service
+@Slf4j
+public class UserAuditService {
+
+    public static final int MAX_HISTORY_PAGE_SIZE = 200;
+    private static final Set<String> MASKED_PROPERTIES = Set.of("password", "twoFactorSecret");
+    private static final String MASK = "***";
+    private static final UserAuditSnapshot EMPTY_SNAPSHOT = new UserAuditSnapshot();
+
+    private final UserAuditEventRepository userAuditEventRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate readOnlyTransaction;
+    private final AppProperties.Audit config;
+    private final Javers javers = JaversBuilder.javers().build();
+    private final BlockingQueue<PendingEvent> queue;
+    private final LongAdder droppedEvents = new LongAdder();
+
+    public UserAuditService(UserAuditEventRepository userAuditEventRepository, ObjectMapper objectMapper, PlatformTransactionManager transactionManager, AppProperties appProperties, MeterRegistry meterRegistry) {
+        this.userAuditEventRepository = userAuditEventRepository;
+        this.objectMapper = objectMapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.config = appProperties.getAudit();
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+        Gauge.builder("audit.queue.size", queue, BlockingQueue::size)
+                .description("User changes waiting to be written to the audit trail")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    public void record(Long userId, @Nullable Long actorId, AuditAction action, @Nullable UserAuditSnapshot before, @Nullable UserAuditSnapshot after) {
+        if (!queue.offer(new PendingEvent(userId, actorId, action, before, after, Instant.now()))) {
+            droppedEvents.increment();
+        }
+    }
+
+    /**
+     * Records a change made with a bulk statement, which the entity listener does not see, once the surrounding
+     * transaction has committed.
+     */
+    public void recordAfterCommit(Long userId, @Nullable Long actorId, AuditAction action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record(userId, actorId, action, null, null);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                record(userId, actorId, action, null, null);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.audit.flush-delay-msec:1000}")
+    public void flush() {
+        List<PendingEvent> batch = new ArrayList<>(config.getBatchSize());
+        while (queue.drainTo(batch, config.getBatchSize()) > 0) {
+            List<UserAuditEvent> auditEvents = new ArrayList<>(batch.size());
+            for (PendingEvent pendingEvent : batch) {
+                UserAuditEvent auditEvent = toAuditEvent(pendingEvent);
+                if (auditEvent != null) {
+                    auditEvents.add(auditEvent);
+                }
+            }
+            if (!auditEvents.isEmpty()) {
+                transaction.executeWithoutResult(status -> userAuditEventRepository.saveAll(auditEvents));
+            }
+            batch.clear();
+        }
+        long dropped = droppedEvents.sumThenReset();
+        if (dropped > 0) {
+            log.warn("Audit queue was full, dropped {} user changes", dropped);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    public UserAuditHistoryDto getHistory(Long userId, long beforeId, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE));
+        List<UserAuditEventDto> events = readOnlyTransaction.execute(status -> userAuditEventRepository
+                .findAllByUserIdAndIdLessThanOrderByIdDesc(userId, beforeId, PageRequest.of(0, pageSize))
+                .stream()
+                .map(this::toDto)
+                .collect(Collectors.toList()));
+        UserAuditHistoryDto history = new UserAuditHistoryDto();
+        history.setEvents(events);
+        history.setNextBeforeId(events.size() < pageSize ? null : events.get(events.size() - 1).getId());
+        return history;
+    }
+
+    private UserAuditEvent toAuditEvent(PendingEvent pendingEvent) {
+        List<Map<String, String>> changes = javers.compare(
+                        pendingEvent.before == null ? EMPTY_SNAPSHOT : pendingEvent.before,
+                        pendingEvent.after == null ? EMPTY_SNAPSHOT : pendingEvent.after)
+                .getChangesByType(ValueChange.class)
+                .stream()
+                .map(this::toChange)
+                .collect(Collectors.toList());
+        if (changes.isEmpty() && pendingEvent.action == AuditAction.UPDATED) {
+            return null;
+        }
+        UserAuditEvent auditEvent = new UserAuditEvent();
+        auditEvent.setUserId(pendingEvent.userId);
+        auditEvent.setActorId(pendingEvent.actorId);
+        auditEvent.setAction(pendingEvent.action);
+        auditEvent.setCreatedAt(pendingEvent.createdAt);
+        try {
+            auditEvent.setChanges(objectMapper.writeValueAsString(changes));
+        } catch (JsonProcessingException e) {
+            log.error("Error while serializing audit changes of user {}", pendingEvent.userId, e);
+            return null;
+        }
+        return auditEvent;
+    }
+
+    private Map<String, String> toChange(ValueChange valueChange) {
+        boolean masked = MASKED_PROPERTIES.contains(valueChange.getPropertyName());
+        Map<String, String> change = new LinkedHashMap<>();
+        change.put("property", valueChange.getPropertyName());
+        change.put("oldValue", toValue(valueChange.getLeft(), masked));
+        change.put("newValue", toValue(valueChange.getRight(), masked));
+        return change;
+    }
+
+    private String toValue(Object value, boolean masked) {
+        if (value == null) {
+            return null;
+        }
+        return masked ? MASK : value.toString();
+    }
+
+    private UserAuditEventDto toDto(UserAuditEvent auditEvent) {
+        UserAuditEventDto auditEventDto = new UserAuditEventDto();
+        auditEventDto.setId(auditEvent.getId());
+        auditEventDto.setActorId(auditEvent.getActorId());
+        auditEventDto.setAction(auditEvent.getAction());
+        auditEventDto.setChanges(auditEvent.getChanges());
+        auditEventDto.setCreatedAt(auditEvent.getCreatedAt());
+        return auditEventDto;
+    }
+
+    private static class PendingEvent {
+        private final Long userId;
+        private final Long actorId;
+        private final AuditAction action;
+        private final UserAuditSnapshot before;
+        private final UserAuditSnapshot after;
+        private final Instant createdAt;
+
+        PendingEvent(Long userId, Long actorId, AuditAction action, UserAuditSnapshot before, UserAuditSnapshot after, Instant createdAt) {
+            this.userId = userId;
+            this.actorId = actorId;
+            this.action = action;
+            this.before = before;
+            this.after = after;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.fullstacktemplate.service;
+
+import com.example.fullstacktemplate.model.AuthProvider;
+import com.example.fullstacktemplate.model.Role;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Audited state of a user. Password and two-factor secret are compared as captured but never leave the audit
+ * service unmasked.
+ */
+@Getter
+@Setter
+public class UserAuditSnapshot {
+    private String name;
+    private String email;
+    private String requestedNewEmail;
+    private Boolean emailVerified;
+    private String password;
+    private AuthProvider authProvider;
+    private Role role;
+    private String twoFactorSecret;
+    private Boolean twoFactorEnabled;
+    private Long profileImageId;
+}
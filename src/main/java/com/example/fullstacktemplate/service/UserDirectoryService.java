@@ -0,0 +1,95 @@
+package com.example.fullstacktemplate.service;
+
+import com.example.fullstacktemplate.dto.UserDirectoryEntryDto;
+import com.example.fullstacktemplate.dto.UserDirectoryPageDto;
+import com.example.fullstacktemplate.dto.UserSearchDto;
+import com.example.fullstacktemplate.dto.mapper.UserMapper;
+import com.example.fullstacktemplate.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * User directory for administrators. Pages are read with keyset pagination on the primary key, the client passes the
+ * last id it has seen instead of an offset, so every page costs the same regardless of how deep it is.
+ */
+@Service
+public class UserDirectoryService {
+
+    public static final int MAX_PAGE_SIZE = 200;
+    private static final int EXPORT_CHUNK_SIZE = 1000;
+
+    private final UserRepository userRepository;
+    private final UserMapper userMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectWriter entryWriter;
+
+    public UserDirectoryService(UserRepository userRepository, UserMapper userMapper, PlatformTransactionManager transactionManager, ObjectMapper objectMapper) {
+        this.userRepository = userRepository;
+        this.userMapper = userMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.entryWriter = objectMapper.writerFor(UserDirectoryEntryDto.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    public UserDirectoryPageDto findPage(UserSearchDto search, long afterId, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<UserDirectoryEntryDto> users = findChunk(search, afterId, pageSize);
+        UserDirectoryPageDto page = new UserDirectoryPageDto();
+        page.setUsers(users);
+        page.setNextAfterId(users.size() < pageSize ? null : users.get(users.size() - 1).getId());
+        return page;
+    }
+
+    /**
+     * Writes every matching user as one json line. Each chunk is read in its own short read-only transaction and
+     * flushed before the next one is loaded, so memory use does not depend on the number of users.
+     */
+    public void export(UserSearchDto search, OutputStream outputStream) throws IOException {
+        long afterId = 0;
+        List<UserDirectoryEntryDto> chunk;
+        do {
+            chunk = findChunk(search, afterId, EXPORT_CHUNK_SIZE);
+            for (UserDirectoryEntryDto entry : chunk) {
+                entryWriter.writeValue(outputStream, entry);
+                outputStream.write('\n');
+            }
+            outputStream.flush();
+            if (!chunk.isEmpty()) {
+                afterId = chunk.get(chunk.size() - 1).getId();
+            }
+        } while (chunk.size() == EXPORT_CHUNK_SIZE);
+    }
+
+    private List<UserDirectoryEntryDto> findChunk(UserSearchDto search, long afterId, int size) {
+        return readOnlyTransaction.execute(status -> userRepository.findDirectoryPage(
+                        afterId,
+                        toPrefixPattern(search.getEmailPrefix()),
+                        toPrefixPattern(search.getNamePrefix()),
+                        search.getProvider(),
+                        search.getEmailVerified(),
+                        search.getTwoFactorEnabled(),
+                        size)
+                .stream()
+                .map(userMapper::toDto)
+                .collect(Collectors.toList()));
+    }
+
+    private String toPrefixPattern(String prefix) {
+        if (prefix == null || prefix.isBlank()) {
+            return null;
+        }
+        return prefix.trim()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+    }
+}
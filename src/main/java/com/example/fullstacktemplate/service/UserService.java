@@ -6,14 +6,13 @@ import com.example.fullstacktemplate.dto.mapper.UserMapper;
 import com.example.fullstacktemplate.exception.BadRequestException;
 import com.example.fullstacktemplate.exception.UnauthorizedRequestException;
 import com.example.fullstacktemplate.model.*;
+import com.example.fullstacktemplate.repository.FileDbRepository;
 import com.example.fullstacktemplate.repository.TokenRepository;
 import com.example.fullstacktemplate.repository.TwoFactoryRecoveryCodeRepository;
 import com.example.fullstacktemplate.repository.UserRepository;
 import dev.samstevens.totp.code.*;
 import dev.samstevens.totp.exceptions.QrGenerationException;
 import dev.samstevens.totp.qr.QrData;
-import dev.samstevens.totp.qr.QrGenerator;
-import dev.samstevens.totp.qr.ZxingPngQrGenerator;
 import dev.samstevens.totp.recovery.RecoveryCodeGenerator;
 import dev.samstevens.totp.secret.SecretGenerator;
 import dev.samstevens.totp.time.SystemTimeProvider;
@@ -25,15 +24,17 @@ import org.springframework.cache.annotation.Cacheable;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
-import java.time.Duration;
-import java.time.temporal.ChronoUnit;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -41,10 +42,11 @@ import java.util.stream.Collectors;
 @Transactional
 @Slf4j
 public class UserService {
+    private static final String DEFAULT_PROFILE_IMAGE = "blank-profile-picture.png";
+
     private final PasswordEncoder passwordEncoder;
     private final FileDbService fileDbService;
     private final SecretGenerator twoFactorSecretGenerator;
-    private final TokenRepository tokenRepository;
     private final AppProperties appProperties;
     private final TokenService tokenService;
     private final ResourceLoader resourceLoader;
@@ -53,21 +55,31 @@ public class UserService {
     private final UserMapper userMapper;
     private final TwoFactoryRecoveryCodeRepository twoFactoryRecoveryCodeRepository;
     private final MessageService messageService;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRepository tokenRepository;
+    private final FileDbRepository fileDbRepository;
+    private final UserAuditService userAuditService;
+    private final TwoFactorQrCodeService twoFactorQrCodeService;
+    private volatile byte[] defaultProfileImage;
 
     @Autowired
-    public UserService(PasswordEncoder passwordEncoder, FileDbService fileDbService, SecretGenerator twoFactorSecretGenerator, AppProperties appProperties, TokenService tokenService, TokenRepository tokenRepository, ResourceLoader resourceLoader, UserRepository userRepository, EmailService emailService, UserMapper userMapper, TwoFactoryRecoveryCodeRepository twoFactoryRecoveryCodeRepository, MessageService messageService) {
+    public UserService(PasswordEncoder passwordEncoder, FileDbService fileDbService, SecretGenerator twoFactorSecretGenerator, AppProperties appProperties, TokenService tokenService, ResourceLoader resourceLoader, UserRepository userRepository, EmailService emailService, UserMapper userMapper, TwoFactoryRecoveryCodeRepository twoFactoryRecoveryCodeRepository, MessageService messageService, RefreshTokenService refreshTokenService, TokenRepository tokenRepository, FileDbRepository fileDbRepository, UserAuditService userAuditService, TwoFactorQrCodeService twoFactorQrCodeService) {
         this.passwordEncoder = passwordEncoder;
         this.fileDbService = fileDbService;
         this.twoFactorSecretGenerator = twoFactorSecretGenerator;
         this.appProperties = appProperties;
         this.tokenService = tokenService;
-        this.tokenRepository = tokenRepository;
         this.resourceLoader = resourceLoader;
         this.userRepository = userRepository;
         this.emailService = emailService;
         this.userMapper = userMapper;
         this.twoFactoryRecoveryCodeRepository = twoFactoryRecoveryCodeRepository;
         this.messageService = messageService;
+        this.refreshTokenService = refreshTokenService;
+        this.tokenRepository = tokenRepository;
+        this.fileDbRepository = fileDbRepository;
+        this.userAuditService = userAuditService;
+        this.twoFactorQrCodeService = twoFactorQrCodeService;
     }
 
     public User createNewUser(SignUpRequestDto signUpRequestDto) throws IOException, URISyntaxException {
@@ -87,39 +99,91 @@ public class UserService {
         user.setPassword(passwordEncoder.encode(signUpRequestDto.getPassword()));
         user.setTwoFactorEnabled(false);
         user.setRole(Role.USER);
-        user.setProfileImage(fileDbService.save("blank-profile-picture.png", FileType.IMAGE_PNG, resourceLoader.getResource("classpath:images\\blank-profile-picture.png").getInputStream().readAllBytes()));
+        user.setProfileImage(fileDbService.save(DEFAULT_PROFILE_IMAGE, FileType.IMAGE_PNG, getDefaultProfileImage()));
         user = userRepository.save(user);
-        JwtToken jwtToken = tokenService.createToken(user, Duration.of(appProperties.getAuth().getVerificationTokenExpirationMsec(), ChronoUnit.MILLIS), TokenType.ACCOUNT_ACTIVATION);
+        String verificationToken = tokenService.createVerificationToken(user, TokenType.ACCOUNT_ACTIVATION);
         URIBuilder uriBuilder = new URIBuilder(appProperties.getAccountActivationUri())
-                .addParameter("token", jwtToken.getValue());
-        emailService.sendSimpleMessage(
+                .addParameter("token", verificationToken);
+        emailService.sendTemplatedMessage(
                 signUpRequestDto.getEmail(),
                 appProperties.getAppName() + " " + messageService.getMessage("activateAccountEmailSubject"),
-                String.format("%s %s", messageService.getMessage("activateAccountEmailBody"), uriBuilder.build().toURL().toString()));
+                EmailTemplate.ACCOUNT_ACTIVATION,
+                messageService.getLocaleForCurrentRequest(),
+                Map.of("appName", appProperties.getAppName(), "link", uriBuilder.build().toURL().toString()));
         return user;
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public byte[] getDefaultProfileImage() throws IOException {
+        byte[] profileImage = defaultProfileImage;
+        if (profileImage == null) {
+            try (InputStream inputStream = resourceLoader.getResource("classpath:images/" + DEFAULT_PROFILE_IMAGE).getInputStream()) {
+                profileImage = inputStream.readAllBytes();
+            }
+            defaultProfileImage = profileImage;
+        }
+        return profileImage;
+    }
+
     public User updateUserPassword(User user, String newPassword) {
         user.setPassword(passwordEncoder.encode(newPassword));
         return userRepository.save(user);
     }
 
     @Cacheable(cacheNames = "user", key = "#id")
+    @Transactional(readOnly = true)
     public Optional<User> findById(Long id) {
         return userRepository.findById(id);
     }
 
+    @Transactional(readOnly = true)
     public Optional<User> findByEmail(String email) {
         return userRepository.findByEmail(email);
     }
 
+    @Transactional(readOnly = true)
+    public Optional<UserRepository.LoginState> findLoginState(Long id) {
+        return userRepository.findLoginStateById(id);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<UserRepository.ProfileSummary> findProfileSummary(Long id) {
+        return userRepository.findProfileSummaryById(id);
+    }
+
     public void cancelUserAccount(Long userId) {
-        userRepository.deleteById(userId);
+        if (appProperties.getAccountDeletion().isDeferred()) {
+            // nothing may keep referencing the hidden user, deleted refresh tokens fail rotation like revoked ones
+            tokenRepository.deleteAllByUserId(userId);
+            twoFactoryRecoveryCodeRepository.deleteAllByUserId(userId);
+            userRepository.markDeleted(userId, Instant.now());
+        } else {
+            deleteUserAccount(userId);
+        }
+        userAuditService.recordAfterCommit(userId, userId, AuditAction.DELETED);
+    }
+
+    /**
+     * Removes the user together with all rows referencing it using one set based delete per table, without loading the
+     * user or its collections.
+     */
+    public void deleteUserAccount(Long userId) {
+        Optional<Long> profileImageId = userRepository.findProfileImageId(userId);
+        tokenRepository.deleteAllByUserId(userId);
+        twoFactoryRecoveryCodeRepository.deleteAllByUserId(userId);
+        userRepository.deleteUserRow(userId);
+        profileImageId.ifPresent(fileDbRepository::deleteFileById);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Long> findDeletedUserIds(int limit) {
+        return userRepository.findDeletedIds(limit);
     }
 
     public User updatePassword(User user, ChangePasswordDto changePasswordDto) {
         if (passwordEncoder.matches(changePasswordDto.getCurrentPassword(), user.getPassword())) {
             user.setPassword(passwordEncoder.encode(changePasswordDto.getNewPassword()));
+            refreshTokenService.revokeAllSessions(user.getId());
             return userRepository.save(user);
         } else {
             throw new UnauthorizedRequestException();
@@ -127,48 +191,41 @@ public class UserService {
     }
 
     public User activateUserAccount(TokenAccessRequestDto tokenAccessRequestDto) {
-        Optional<JwtToken> optionalVerificationToken = tokenRepository.findByValueAndTokenType(tokenAccessRequestDto.getToken(), TokenType.ACCOUNT_ACTIVATION);
-        if (optionalVerificationToken.isPresent()) {
-            User user = optionalVerificationToken.get().getUser();
-            if (!tokenService.validateJwtToken(tokenAccessRequestDto.getToken())) {
-                throw new BadRequestException("tokenExpired");
-            } else {
-                user.setEmailVerified(true);
-                userRepository.save(user);
-                tokenRepository.delete(optionalVerificationToken.get());
-            }
-            return userRepository.save(user);
-        }
-        throw new BadRequestException("invalidToken");
+        User user = findByVerificationToken(tokenAccessRequestDto.getToken(), TokenType.ACCOUNT_ACTIVATION);
+        user.setEmailVerified(true);
+        return userRepository.save(user);
+    }
+
+    private User findByVerificationToken(String token, TokenType tokenType) {
+        Long userId = tokenService.getUserIdFromVerificationToken(token, tokenType);
+        User user = userRepository.findById(userId).orElseThrow(() -> new BadRequestException("invalidToken"));
+        tokenService.verifyFingerprint(token, user, tokenType);
+        return user;
     }
 
     public User disableTwoFactorAuthentication(User user) {
+        twoFactorQrCodeService.evict(user.getTwoFactorSecret());
         user.setTwoFactorSecret(null);
         user.setTwoFactorEnabled(false);
-        user.getTwoFactorRecoveryCodes().clear();
+        // the user is detached, its lazy recovery codes are removed with a statement instead
+        twoFactoryRecoveryCodeRepository.deleteAllByUserId(user.getId());
         return userRepository.save(user);
     }
 
     public User enableTwoFactorAuthentication(User user) {
+        twoFactorQrCodeService.evict(user.getTwoFactorSecret());
         user.setTwoFactorEnabled(true);
         return userRepository.save(user);
     }
 
     public User activateRequestedEmail(TokenAccessRequestDto tokenAccessRequestDto) {
-        Optional<JwtToken> optionalVerificationToken = tokenRepository.findByValueAndTokenType(tokenAccessRequestDto.getToken(), TokenType.EMAIL_UPDATE);
-        if (optionalVerificationToken.isPresent()) {
-            User user = optionalVerificationToken.get().getUser();
-            if (!tokenService.validateJwtToken(tokenAccessRequestDto.getToken())) {
-                throw new BadRequestException("tokenExpired");
-            } else {
-                user.setEmail(user.getRequestedNewEmail());
-                user.setRequestedNewEmail(null);
-                userRepository.save(user);
-                tokenRepository.delete(optionalVerificationToken.get());
-                return user;
-            }
+        User user = findByVerificationToken(tokenAccessRequestDto.getToken(), TokenType.EMAIL_UPDATE);
+        if (user.getRequestedNewEmail() == null) {
+            throw new BadRequestException("invalidToken");
         }
-        throw new BadRequestException("invalidToken");
+        user.setEmail(user.getRequestedNewEmail());
+        user.setRequestedNewEmail(null);
+        return userRepository.save(user);
     }
 
     public User updateProfile(Long currentUserId, UserDto newUser) throws MalformedURLException, URISyntaxException {
@@ -182,55 +239,56 @@ public class UserService {
         String newEmail = newUser.getEmail();
         String oldEmail = user.getEmail();
         if (user.getEmail() != null && !user.getEmail().equals(newUser.getEmail())) {
-            JwtToken jwtToken = tokenService.createToken(user,  Duration.of(appProperties.getAuth().getVerificationTokenExpirationMsec(), ChronoUnit.MILLIS), TokenType.EMAIL_UPDATE);
+            user.setRequestedNewEmail(newEmail);
+            String verificationToken = tokenService.createVerificationToken(user, TokenType.EMAIL_UPDATE);
             URIBuilder uriBuilder = new URIBuilder(appProperties.getEmailChangeConfirmationUri())
-                    .addParameter("token", jwtToken.getValue());
-            emailService.sendSimpleMessage(
+                    .addParameter("token", verificationToken);
+            emailService.sendTemplatedMessage(
                     newEmail,
                     messageService.getMessage("confirmAccountEmailChangeEmailSubject", new Object[]{appProperties.getAppName()}),
-                    messageService.getMessage("confirmAccountEmailChangeEmailBody", new Object[]{oldEmail, newEmail, uriBuilder.build().toURL().toString()})
+                    EmailTemplate.EMAIL_CHANGE,
+                    messageService.getLocaleForCurrentRequest(),
+                    Map.of("appName", appProperties.getAppName(), "oldEmail", oldEmail, "newEmail", newEmail, "link", uriBuilder.build().toURL().toString())
             );
         }
-        return userRepository.save(userMapper.toEntity(currentUserId,newUser));
+        userMapper.updateEntity(newUser, user);
+        return user;
     }
 
     public User setNewTwoFactorSecret(User user){
         user.setTwoFactorSecret(twoFactorSecretGenerator.generate());
-        userRepository.save(user);
         return userRepository.save(user);
     }
 
     public void requestPasswordReset(User user) throws MalformedURLException, URISyntaxException {
-        Optional<JwtToken> forgottenPasswordToken = tokenRepository.findByUserAndTokenType(user, TokenType.FORGOTTEN_PASSWORD);
-        if (forgottenPasswordToken.isPresent()){
-            log.info("There already is token of type {} for user {}. Going to delete it and issue a new one",TokenType.FORGOTTEN_PASSWORD,user.getName());
-            tokenService.delete(forgottenPasswordToken.get());
-        }
-        JwtToken jwtToken = tokenService.createToken(user, Duration.of(appProperties.getAuth().getVerificationTokenExpirationMsec(), ChronoUnit.MILLIS), TokenType.FORGOTTEN_PASSWORD);
+        String verificationToken = tokenService.createVerificationToken(user, TokenType.FORGOTTEN_PASSWORD);
         URIBuilder uriBuilder = new URIBuilder(appProperties.getPasswordResetUri())
                 .addParameter("email", user.getEmail())
-                .addParameter("token", jwtToken.getValue());
-        emailService.sendSimpleMessage(
+                .addParameter("token", verificationToken);
+        emailService.sendTemplatedMessage(
                 user.getEmail(),
                 appProperties.getAppName() + " " + messageService.getMessage("passwordResetEmailSubject"),
-                String.format("%s %s", messageService.getMessage("passwordResetEmailBody"), uriBuilder.build().toURL().toString())
+                EmailTemplate.PASSWORD_RESET,
+                messageService.getLocaleForCurrentRequest(),
+                Map.of("appName", appProperties.getAppName(), "link", uriBuilder.build().toURL().toString())
         );
     }
 
     public void resetPassword(User user, PasswordResetRequestDto passwordResetRequestDto) {
-        Optional<JwtToken> forgottenPasswordToken = tokenRepository.findByUserAndTokenType(user, TokenType.FORGOTTEN_PASSWORD);
-        if (forgottenPasswordToken.isEmpty() || !forgottenPasswordToken.get().getValue().equals(passwordResetRequestDto.getToken())) {
+        Long userId = tokenService.getUserIdFromVerificationToken(passwordResetRequestDto.getToken(), TokenType.FORGOTTEN_PASSWORD);
+        if (!user.getId().equals(userId)) {
             throw new BadRequestException("invalidToken");
-        } else if (!tokenService.validateJwtToken(passwordResetRequestDto.getToken())) {
-            throw new BadRequestException("tokenExpired");
-        } else {
-            updateUserPassword(user, passwordResetRequestDto.getPassword());
-            tokenRepository.delete(forgottenPasswordToken.get());
         }
+        tokenService.verifyFingerprint(passwordResetRequestDto.getToken(), user, TokenType.FORGOTTEN_PASSWORD);
+        updateUserPassword(user, passwordResetRequestDto.getPassword());
+        refreshTokenService.revokeAllSessions(user.getId());
     }
 
-    public TwoFactorSetupDto getTwoFactorSetup(User user) throws QrGenerationException {
-        user = setNewTwoFactorSecret(user);
+    public TwoFactorSetupDto getTwoFactorSetup(User user, QrCodeFormat format) throws QrGenerationException {
+        // a pending secret is kept until it is verified, so retried setup requests show the same code
+        if (user.getTwoFactorEnabled() || user.getTwoFactorSecret() == null) {
+            user = setNewTwoFactorSecret(user);
+        }
         QrData data = new QrData.Builder()
                 .label(user.getEmail())
                 .secret(user.getTwoFactorSecret())
@@ -239,11 +297,7 @@ public class UserService {
                 .digits(6)
                 .period(30)
                 .build();
-        QrGenerator generator = new ZxingPngQrGenerator();
-        TwoFactorSetupDto twoFactorSetupDto = new TwoFactorSetupDto();
-        twoFactorSetupDto.setQrData(generator.generate(data));
-        twoFactorSetupDto.setMimeType(generator.getImageMimeType());
-        return twoFactorSetupDto;
+        return twoFactorQrCodeService.render(data, format);
     }
 
     public TwoFactorDto verifyTwoFactor(User user, String code){
@@ -272,10 +326,12 @@ public class UserService {
     }
 
 
+    @Transactional(readOnly = true)
     public boolean isUsernameUsed(String username) {
         return userRepository.existsByName(username);
     }
 
+    @Transactional(readOnly = true)
     public boolean isEmailUsed(String email) {
         return userRepository.existsByEmail(email);
     }
@@ -1,11 +1,8 @@
 package com.example.fullstacktemplate.util;
 
-import org.springframework.util.SerializationUtils;
-
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.util.Base64;
 import java.util.Optional;
 
 public class CookieUtils {
@@ -46,15 +43,4 @@ public class CookieUtils {
         }
     }
 
-    public static String serialize(Object object) {
-        return Base64.getUrlEncoder()
-                .encodeToString(SerializationUtils.serialize(object));
-    }
-
-    public static <T> T deserialize(Cookie cookie, Class<T> cls) {
-        return cls.cast(SerializationUtils.deserialize(
-                Base64.getUrlDecoder().decode(cookie.getValue())));
-    }
-
-
 }
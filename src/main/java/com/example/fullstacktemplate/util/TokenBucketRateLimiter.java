@@ -0,0 +1,128 @@
+package com.example.fullstacktemplate.util;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket implemented as a generic cell rate algorithm: every key holds a single
+ * theoretical arrival time that is advanced by compare-and-set, so no bucket is ever locked.
+ * Keys are spread over independent shards to keep map contention and eviction sweeps local.
+ * A full shard makes room for a new key by sampling a bounded number of its keys: idle ones are dropped, and if the
+ * sample holds none the key closest to being idle is evicted, so flooding a shard with new keys can neither lock out
+ * legitimate ones nor make every new key pay for a sweep of the whole shard. Full sweeps are left to {@link #evictIdle}.
+ */
+public class TokenBucketRateLimiter {
+
+    private static final int EVICTION_SAMPLE_SIZE = 8;
+
+    private final ConcurrentHashMap<String, AtomicLong>[] shards;
+    private final ConcurrentHashMap<String, Long> consumedTokens = new ConcurrentHashMap<>();
+    private final long emissionIntervalMsec;
+    private final long burstToleranceMsec;
+    private final int maxKeysPerShard;
+    private final boolean trackConsumedTokens;
+
+    @SuppressWarnings("unchecked")
+    public TokenBucketRateLimiter(int capacity, long periodMsec, int shardCount, int maxKeysPerShard, boolean trackConsumedTokens) {
+        this.emissionIntervalMsec = Math.max(1, periodMsec / capacity);
+        this.burstToleranceMsec = emissionIntervalMsec * capacity;
+        this.maxKeysPerShard = maxKeysPerShard;
+        this.trackConsumedTokens = trackConsumedTokens;
+        this.shards = new ConcurrentHashMap[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * @return 0 when a token was taken, otherwise the number of milliseconds until the next token is available
+     */
+    public long tryAcquire(String key, long nowMsec) {
+        ConcurrentHashMap<String, AtomicLong> shard = shardFor(key);
+        AtomicLong theoreticalArrivalTime = shard.get(key);
+        if (theoreticalArrivalTime == null) {
+            if (shard.size() >= maxKeysPerShard) {
+                evictSample(shard, nowMsec);
+            }
+            theoreticalArrivalTime = shard.computeIfAbsent(key, k -> new AtomicLong(nowMsec));
+        }
+        while (true) {
+            long current = theoreticalArrivalTime.get();
+            long next = Math.max(current, nowMsec) + emissionIntervalMsec;
+            long waitMsec = next - nowMsec - burstToleranceMsec;
+            if (waitMsec > 0) {
+                return waitMsec;
+            }
+            if (theoreticalArrivalTime.compareAndSet(current, next)) {
+                if (trackConsumedTokens) {
+                    consumedTokens.merge(key, 1L, Long::sum);
+                }
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Raises the local theoretical arrival time of a key to the one shared by all nodes, which already includes the
+     * tokens consumed locally.
+     */
+    public void merge(String key, long theoreticalArrivalTime, long nowMsec) {
+        if (theoreticalArrivalTime <= nowMsec) {
+            return;
+        }
+        AtomicLong local = shardFor(key).computeIfAbsent(key, k -> new AtomicLong(nowMsec));
+        local.accumulateAndGet(theoreticalArrivalTime, Math::max);
+    }
+
+    /**
+     * @return number of tokens taken per key since the previous call
+     */
+    public Map<String, Long> drainConsumed() {
+        Map<String, Long> drained = new HashMap<>();
+        for (String key : consumedTokens.keySet()) {
+            Long consumed = consumedTokens.remove(key);
+            if (consumed != null) {
+                drained.put(key, consumed);
+            }
+        }
+        return drained;
+    }
+
+    public long getEmissionIntervalMsec() {
+        return emissionIntervalMsec;
+    }
+
+    public void evictIdle(long nowMsec) {
+        for (ConcurrentHashMap<String, AtomicLong> shard : shards) {
+            shard.values().removeIf(theoreticalArrivalTime -> theoreticalArrivalTime.get() <= nowMsec);
+        }
+    }
+
+    private void evictSample(ConcurrentHashMap<String, AtomicLong> shard, long nowMsec) {
+        String evictedKey = null;
+        long evictedTheoreticalArrivalTime = Long.MAX_VALUE;
+        boolean idleEvicted = false;
+        int sampled = 0;
+        for (Iterator<Map.Entry<String, AtomicLong>> iterator = shard.entrySet().iterator(); iterator.hasNext() && sampled < EVICTION_SAMPLE_SIZE; sampled++) {
+            Map.Entry<String, AtomicLong> entry = iterator.next();
+            long theoreticalArrivalTime = entry.getValue().get();
+            if (theoreticalArrivalTime <= nowMsec) {
+                iterator.remove();
+                idleEvicted = true;
+            } else if (theoreticalArrivalTime < evictedTheoreticalArrivalTime) {
+                evictedKey = entry.getKey();
+                evictedTheoreticalArrivalTime = theoreticalArrivalTime;
+            }
+        }
+        if (!idleEvicted && evictedKey != null) {
+            shard.remove(evictedKey);
+        }
+    }
+
+    private ConcurrentHashMap<String, AtomicLong> shardFor(String key) {
+        return shards[(key.hashCode() & Integer.MAX_VALUE) % shards.length];
+    }
+}
@@ -0,0 +1,78 @@
+create sequence hibernate_sequence start with 1 increment by 1;
+
+create table file (
+    id bigint generated by default as identity,
+    name varchar(255),
+    type varchar(255),
+    data blob,
+    primary key (id)
+);
+
+create table users (
+    id bigint generated by default as identity,
+    name varchar(255) not null,
+    email varchar(255) not null,
+    requested_new_email varchar(255),
+    profile_image bigint,
+    email_verified boolean not null,
+    password varchar(255),
+    auth_provider varchar(255) not null,
+    role varchar(255) not null,
+    provider_id varchar(255),
+    two_factor_secret varchar(255),
+    two_factor_enabled boolean not null,
+    primary key (id),
+    constraint uk_users_email unique (email),
+    constraint uk_users_name unique (name),
+    constraint fk_users_profile_image foreign key (profile_image) references file (id)
+);
+
+create index idx_users_provider_id on users (provider_id);
+
+create table jwt_token (
+    id bigint not null,
+    token_type varchar(255) not null,
+    value varchar(2048),
+    user_id bigint not null,
+    expires_at timestamp,
+    revoked boolean not null,
+    family_id varchar(255),
+    created_at timestamp,
+    session_started_at timestamp,
+    user_agent varchar(512),
+    ip_address varchar(255),
+    primary key (id),
+    constraint fk_jwt_token_user foreign key (user_id) references users (id)
+);
+
+create index idx_jwt_token_user_type on jwt_token (user_id, token_type, revoked);
+create index idx_jwt_token_expires_at on jwt_token (expires_at);
+create index idx_jwt_token_family_id on jwt_token (family_id);
+
+create table two_factor_recovery_code (
+    id bigint not null,
+    recovery_code varchar(255),
+    user_id bigint not null,
+    primary key (id),
+    constraint fk_two_factor_recovery_code_user foreign key (user_id) references users (id)
+);
+
+create index idx_two_factor_recovery_code_user on two_factor_recovery_code (user_id);
+
+create table rate_limit_bucket (
+    bucket_key varchar(255) not null,
+    theoretical_arrival_time bigint not null,
+    primary key (bucket_key)
+);
+
+create index idx_rate_limit_bucket_tat on rate_limit_bucket (theoretical_arrival_time);
+
+create table signing_key (
+    key_id varchar(255) not null,
+    algorithm varchar(255) not null,
+    public_key varchar(1024) not null,
+    private_key varchar(4096) not null,
+    created_at timestamp not null,
+    expires_at timestamp not null,
+    primary key (key_id)
+);
@@ -0,0 +1,2 @@
+-- admin user directory filters by provider and seeks by id
+create index idx_users_auth_provider_id on users (auth_provider, id);
@@ -0,0 +1,11 @@
+create table user_audit_event (
+    id bigint not null,
+    user_id bigint not null,
+    actor_id bigint,
+    action varchar(255) not null,
+    changes clob not null,
+    created_at timestamp not null,
+    primary key (id)
+);
+
+create index idx_user_audit_event_user on user_audit_event (user_id, id);
@@ -0,0 +1,3 @@
+alter table users add column deleted_at timestamp;
+
+create index idx_users_deleted_at on users (deleted_at);
@@ -0,0 +1,11 @@
+create table idempotency_record (
+    idempotency_key varchar(512) not null,
+    fingerprint varchar(255) not null,
+    status integer,
+    content_type varchar(255),
+    body blob,
+    expires_at timestamp not null,
+    primary key (idempotency_key)
+);
+
+create index idx_idempotency_record_expires_at on idempotency_record (expires_at);
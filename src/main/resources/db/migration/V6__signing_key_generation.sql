@@ -0,0 +1,10 @@
+alter table signing_key add column generation bigint;
+
+update signing_key s set generation = (
+    select count(*) from signing_key o
+    where o.created_at < s.created_at or (o.created_at = s.created_at and o.key_id < s.key_id)
+);
+
+alter table signing_key alter column generation set not null;
+
+alter table signing_key add constraint uk_signing_key_generation unique (generation);
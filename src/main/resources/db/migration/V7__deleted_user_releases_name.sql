@@ -0,0 +1,8 @@
+-- cancelled accounts release their name and email, multiple nulls are allowed by the unique constraints
+alter table users alter column name drop not null;
+alter table users alter column email drop not null;
+
+update users set name = null, email = null where deleted_at is not null;
+
+alter table users add constraint ck_users_name check (deleted_at is not null or name is not null);
+alter table users add constraint ck_users_email check (deleted_at is not null or email is not null);
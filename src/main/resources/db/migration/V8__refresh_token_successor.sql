@@ -0,0 +1,3 @@
+-- a rotated refresh token links to the token it was rotated to, only that direct predecessor gets the reuse grace period
+alter table jwt_token add column rotated_at timestamp;
+alter table jwt_token add column successor_id bigint;
@@ -0,0 +1,116 @@
+package com.example.fullstacktemplate;
+
+import com.example.fullstacktemplate.model.AuthProvider;
+import com.example.fullstacktemplate.model.Role;
+import com.example.fullstacktemplate.model.User;
+import com.example.fullstacktemplate.repository.UserRepository;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The user directory is only served to administrators and binds every search filter from the query string.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AdminControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private String namePrefix;
+
+    @BeforeEach
+    void setUp() {
+        namePrefix = "directory-" + UUID.randomUUID() + "-";
+        save(namePrefix + "a", AuthProvider.local, true);
+        save(namePrefix + "b", AuthProvider.github, true);
+        save(namePrefix + "c", AuthProvider.local, false);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void pagesMatchingUsers() throws Exception {
+        MvcResult firstPage = mockMvc.perform(get("/admin/users").param("namePrefix", namePrefix).param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users", hasSize(2)))
+                .andExpect(jsonPath("$.users[0].name").value(namePrefix + "a"))
+                .andExpect(jsonPath("$.nextAfterId").exists())
+                .andReturn();
+        String nextAfterId = JsonPath.read(firstPage.getResponse().getContentAsString(), "$.nextAfterId").toString();
+
+        mockMvc.perform(get("/admin/users").param("namePrefix", namePrefix).param("size", "2").param("afterId", nextAfterId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users", hasSize(1)))
+                .andExpect(jsonPath("$.users[0].name").value(namePrefix + "c"))
+                .andExpect(jsonPath("$.nextAfterId").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void bindsEveryFilter() throws Exception {
+        mockMvc.perform(get("/admin/users")
+                        .param("namePrefix", namePrefix)
+                        .param("emailPrefix", namePrefix)
+                        .param("provider", "local")
+                        .param("emailVerified", "true")
+                        .param("twoFactorEnabled", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users", hasSize(1)))
+                .andExpect(jsonPath("$.users[0].name").value(namePrefix + "a"))
+                .andExpect(jsonPath("$.users[0].password").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void exportsMatchingUsersAsJsonLines() throws Exception {
+        MvcResult result = mockMvc.perform(get("/admin/users/export").param("namePrefix", namePrefix).param("provider", "local"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string(matchesPattern("(?s)\\{[^\\n]*\"name\":\"" + namePrefix + "a\"[^\\n]*}\\n\\{[^\\n]*\"name\":\"" + namePrefix + "c\"[^\\n]*}\\n")));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void rejectsUsersWithoutTheAdminRole() throws Exception {
+        mockMvc.perform(get("/admin/users")).andExpect(status().isForbidden());
+        mockMvc.perform(get("/admin/users/export")).andExpect(status().isForbidden());
+    }
+
+    private void save(String name, AuthProvider authProvider, boolean emailVerified) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "@example.com");
+        user.setAuthProvider(authProvider);
+        user.setRole(Role.USER);
+        user.setEmailVerified(emailVerified);
+        user.setTwoFactorEnabled(false);
+        userRepository.save(user);
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.fullstacktemplate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import springfox.documentation.spring.web.plugins.Docket;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ApplicationStartupTest {
+
+    private static final String CONTROLLER_PACKAGE = "com.example.fullstacktemplate.controller";
+
+    @Test
+    void startsWithinBudgetWithoutRuntimeApiDocs() {
+        SpringApplication application = new SpringApplication(SpringSocialApplication.class);
+        BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(4096);
+        application.setApplicationStartup(applicationStartup);
+
+        long started = System.nanoTime();
+        try (ConfigurableApplicationContext context = application.run("--spring.profiles.active=test", "--server.port=0")) {
+            long startupMsec = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+            assertThat(startupMsec).isLessThan(context.getEnvironment().getRequiredProperty("app.startup-budget-msec", Long.class));
+            assertThat(applicationStartup.getBufferedTimeline().getEvents()).isNotEmpty();
+            assertThat(context.getBeansOfType(Docket.class)).isEmpty();
+        }
+    }
+
+    @Test
+    void firstRequestTimeIgnoresActuatorRequests() throws Exception {
+        SpringApplication application = new SpringApplication(SpringSocialApplication.class);
+        try (ConfigurableApplicationContext context = application.run("--spring.profiles.active=test", "--server.port=0")) {
+            String baseUri = "http://localhost:" + context.getEnvironment().getRequiredProperty("local.server.port");
+            HttpClient httpClient = HttpClient.newHttpClient();
+            TimeGauge firstRequestTime = context.getBean(MeterRegistry.class).get("application.first.request.time").timeGauge();
+
+            httpClient.send(HttpRequest.newBuilder(URI.create(baseUri + "/actuator/health/liveness")).GET().build(), HttpResponse.BodyHandlers.discarding());
+            assertThat(firstRequestTime.value()).isZero();
+
+            httpClient.send(HttpRequest.newBuilder(URI.create(baseUri + "/auth/access-token")).GET().build(), HttpResponse.BodyHandlers.discarding());
+            // the event is published once the servlet returns, possibly after the client got the response
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (firstRequestTime.value() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(firstRequestTime.value()).isPositive();
+        }
+    }
+
+    /**
+     * The api-docs maven profile generates the production document from the runtime documentation, which therefore
+     * has to cover every controller mapping.
+     */
+    @Test
+    void runtimeApiDocsCoverEveryControllerMapping() throws Exception {
+        SpringApplication application = new SpringApplication(SpringSocialApplication.class);
+        try (ConfigurableApplicationContext context = application.run("--spring.profiles.active=test", "--server.port=0", "--springfox.documentation.enabled=true")) {
+            URI uri = URI.create("http://localhost:" + context.getEnvironment().getRequiredProperty("local.server.port") + "/v3/api-docs");
+            HttpResponse<InputStream> response = HttpClient.newHttpClient().send(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.ofInputStream());
+            JsonNode paths;
+            try (InputStream inputStream = response.body()) {
+                paths = new ObjectMapper().readTree(inputStream).path("paths");
+            }
+
+            assertThat(response.statusCode()).isEqualTo(200);
+            assertThat(getUndocumentedMappings(context, paths)).isEmpty();
+        }
+    }
+
+    private List<String> getUndocumentedMappings(ConfigurableApplicationContext context, JsonNode paths) {
+        List<String> undocumented = new ArrayList<>();
+        Map<RequestMappingInfo, HandlerMethod> handlerMethods = context.getBean("requestMappingHandlerMapping", RequestMappingHandlerMapping.class).getHandlerMethods();
+        handlerMethods.forEach((mappingInfo, handlerMethod) -> {
+            if (!handlerMethod.getBeanType().getPackageName().equals(CONTROLLER_PACKAGE)) {
+                return;
+            }
+            for (String pattern : mappingInfo.getPatternsCondition().getPatterns()) {
+                for (RequestMethod method : mappingInfo.getMethodsCondition().getMethods()) {
+                    if (!paths.path(pattern).has(method.name().toLowerCase())) {
+                        undocumented.add(method + " " + pattern);
+                    }
+                }
+            }
+        });
+        return undocumented;
+    }
+}
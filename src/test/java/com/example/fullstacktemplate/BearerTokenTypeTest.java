@@ -0,0 +1,87 @@
+package com.example.fullstacktemplate;
+
+import com.example.fullstacktemplate.model.AuthProvider;
+import com.example.fullstacktemplate.model.JwtToken;
+import com.example.fullstacktemplate.model.Role;
+import com.example.fullstacktemplate.model.TokenType;
+import com.example.fullstacktemplate.model.User;
+import com.example.fullstacktemplate.repository.UserRepository;
+import com.example.fullstacktemplate.service.RefreshTokenService;
+import com.example.fullstacktemplate.service.TokenService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Only access tokens authenticate bearer requests, refresh and verification tokens are signed with the same keys but
+ * must not.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class BearerTokenTypeTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        String name = "bearer-" + UUID.randomUUID();
+        user = new User();
+        user.setName(name);
+        user.setEmail(name + "@example.com");
+        user.setEmailVerified(false);
+        user.setAuthProvider(AuthProvider.local);
+        user.setRole(Role.USER);
+        user.setTwoFactorEnabled(false);
+        user = userRepository.save(user);
+    }
+
+    @Test
+    void acceptsAccessToken() throws Exception {
+        assertThat(getMe(tokenService.createJwtTokenValue(user.getId(), Duration.ofMinutes(5)))).isEqualTo(200);
+    }
+
+    @Test
+    void rejectsRefreshToken() throws Exception {
+        JwtToken refreshToken = refreshTokenService.issue(user, "test", "203.0.113.1");
+
+        assertThat(getMe(refreshToken.getValue())).isEqualTo(401);
+    }
+
+    @Test
+    void rejectsVerificationToken() throws Exception {
+        assertThat(getMe(tokenService.createVerificationToken(user, TokenType.ACCOUNT_ACTIVATION))).isEqualTo(401);
+    }
+
+    private int getMe(String bearerToken) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/user/me"))
+                .header("Authorization", "Bearer " + bearerToken)
+                .GET()
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.fullstacktemplate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Clients behind the same trusted proxy are told apart by their forwarded address.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "app.rate-limit.client-capacity=2")
+class ClientAddressRateLimitTest {
+
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @Test
+    void limitsEachForwardedClientSeparately() throws Exception {
+        assertThat(login("203.0.113.1")).isNotEqualTo(SC_TOO_MANY_REQUESTS);
+        assertThat(login("203.0.113.1")).isNotEqualTo(SC_TOO_MANY_REQUESTS);
+        assertThat(login("203.0.113.1")).isEqualTo(SC_TOO_MANY_REQUESTS);
+
+        assertThat(login("203.0.113.2")).isNotEqualTo(SC_TOO_MANY_REQUESTS);
+    }
+
+    private int login(String forwardedFor) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/auth/login"))
+                .header("X-Forwarded-For", forwardedFor)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"nobody@example.com\",\"password\":\"password\"}"))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.fullstacktemplate;
+
+import com.example.fullstacktemplate.model.AuthProvider;
+import com.example.fullstacktemplate.model.FileDb;
+import com.example.fullstacktemplate.model.FileType;
+import com.example.fullstacktemplate.model.Role;
+import com.example.fullstacktemplate.model.User;
+import com.example.fullstacktemplate.repository.UserRepository;
+import com.example.fullstacktemplate.service.AuthenticationService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Statements issued by the hottest endpoints, counted through Hibernate statistics over the whole request. Both read
+ * the user through projections, neither loads the user entity or the profile image blob as an entity. Rate limiting
+ * and auditing are off, their statements are not part of the request path being measured.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(properties = {"app.rate-limit.enabled=false", "app.audit.enabled=false"})
+class EndpointStatementCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private AuthenticationService authenticationService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        user = new User();
+        String name = "statements-" + UUID.randomUUID();
+        user.setName(name);
+        user.setEmail(name + "@example.com");
+        user.setPassword(passwordEncoder.encode("password"));
+        user.setEmailVerified(true);
+        user.setAuthProvider(AuthProvider.local);
+        user.setRole(Role.USER);
+        user.setTwoFactorEnabled(false);
+        user.setProfileImage(new FileDb("avatar.png", FileType.IMAGE_PNG, new byte[]{1, 2, 3}));
+        user = userRepository.save(user);
+    }
+
+    @Test
+    void currentUserIsReadWithOneStatementPerProjection() throws Exception {
+        String accessToken = authenticationService.createAccessToken(user);
+        statistics.clear();
+
+        mockMvc.perform(get("/user/me").servletPath("/user/me").header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.profileImage.data").exists());
+
+        // the bearer principal and the profile summary, which joins the image instead of loading it
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getEntityStatistics(FileDb.class.getName()).getLoadCount()).isZero();
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+    }
+
+    @Test
+    void loginReadsTheUserWithoutLoadingEntities() throws Exception {
+        statistics.clear();
+
+        mockMvc.perform(post("/auth/login").servletPath("/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"" + user.getEmail() + "\",\"password\":\"password\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accessToken").exists());
+
+        // principal by email, login state, active sessions, then the id and the insert of the refresh token
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(5);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getEntityStatistics(FileDb.class.getName()).getLoadCount()).isZero();
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+    }
+}
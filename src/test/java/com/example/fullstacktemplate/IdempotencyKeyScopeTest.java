@@ -0,0 +1,53 @@
+package com.example.fullstacktemplate;
+
+import com.example.fullstacktemplate.config.security.IdempotencyFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The same idempotency key sent by different clients identifies different requests.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class IdempotencyKeyScopeTest {
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @Test
+    void replaysOnlyToTheSameClient() throws Exception {
+        String key = UUID.randomUUID().toString();
+
+        HttpResponse<String> first = forgottenPassword("203.0.113.1", key);
+        HttpResponse<String> retry = forgottenPassword("203.0.113.1", key);
+        HttpResponse<String> otherClient = forgottenPassword("203.0.113.2", key);
+
+        assertThat(first.headers().firstValue(IdempotencyFilter.REPLAYED_HEADER)).isEmpty();
+        assertThat(retry.headers().firstValue(IdempotencyFilter.REPLAYED_HEADER)).hasValue("true");
+        assertThat(retry.statusCode()).isEqualTo(first.statusCode());
+        assertThat(retry.body()).isEqualTo(first.body());
+        assertThat(otherClient.headers().firstValue(IdempotencyFilter.REPLAYED_HEADER)).isEmpty();
+    }
+
+    private HttpResponse<String> forgottenPassword(String forwardedFor, String key) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/auth/forgotten-password"))
+                .header("X-Forwarded-For", forwardedFor)
+                .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"nobody@example.com\"}"))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
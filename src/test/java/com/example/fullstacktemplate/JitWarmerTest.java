@@ -0,0 +1,58 @@
+package com.example.fullstacktemplate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The warm-up reaches the auth endpoints and leaves the rate limits of the loopback client untouched.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "app.warm-up.enabled=true",
+        "app.warm-up.max-rounds=1",
+        "app.warm-up.iterations-per-round=1",
+        "app.warm-up.password-checks-per-round=1",
+        "app.warm-up.requests-per-round=30",
+        "app.rate-limit.client-capacity=5",
+        "app.rate-limit.account-capacity=5"
+})
+class JitWarmerTest {
+
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @Test
+    void exercisesAuthEndpointsWithoutConsumingRateLimits() throws Exception {
+        assertThat(meterRegistry.get("http.server.requests").tag("uri", "/auth/login").tag("status", "401").timer().count()).isEqualTo(15);
+        assertThat(meterRegistry.get("http.server.requests").tag("uri", "/auth/access-token").tag("status", "400").timer().count()).isEqualTo(15);
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/auth/login"))
+                .header("X-Warm-Up", "guessed")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"warm-up@localhost\",\"password\":\"password\"}"))
+                .build();
+        for (int i = 0; i < 5; i++) {
+            assertThat(httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode()).isNotEqualTo(SC_TOO_MANY_REQUESTS);
+        }
+        assertThat(httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode()).isEqualTo(SC_TOO_MANY_REQUESTS);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.fullstacktemplate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * Every route of {@code app.max-request-size-per-route} rejects bodies over its limit with 413 before any other filter
+ * runs, while bodies of up to the limit reach the application. Limits are resolved from the servlet path, which
+ * MockMvc leaves empty unless it is set explicitly. Bodies without a {@code Content-Length} are sent chunked over HTTP,
+ * MockMvc always derives the length from the content.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(properties = {"app.max-request-size=1048576", "app.rate-limit.enabled=false"})
+class RequestSizeLimitTest {
+
+    private static final int SC_PAYLOAD_TOO_LARGE = 413;
+    private static final int AUTH_LIMIT = 16384;
+    private static final int UPDATE_PROFILE_LIMIT = 15000000;
+    private static final int DEFAULT_LIMIT = 1048576;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @Test
+    void authRouteRejectsBodiesOverItsLimit() throws Exception {
+        assertThat(postStatus("/auth/login", AUTH_LIMIT + 1)).isEqualTo(SC_PAYLOAD_TOO_LARGE);
+    }
+
+    @Test
+    void authRouteAcceptsBodiesUpToItsLimit() throws Exception {
+        assertThat(postStatus("/auth/login", AUTH_LIMIT)).isNotEqualTo(SC_PAYLOAD_TOO_LARGE);
+    }
+
+    @Test
+    void oauth2RouteRejectsBodiesOverItsLimit() throws Exception {
+        assertThat(postStatus("/oauth2/authorize/github", AUTH_LIMIT + 1)).isEqualTo(SC_PAYLOAD_TOO_LARGE);
+    }
+
+    @Test
+    void oauth2RouteAcceptsBodiesUpToItsLimit() throws Exception {
+        assertThat(postStatus("/oauth2/authorize/github", AUTH_LIMIT)).isNotEqualTo(SC_PAYLOAD_TOO_LARGE);
+    }
+
+    @Test
+    void updateProfileRejectsBodiesOverItsLimit() throws Exception {
+        assertThat(putStatus("/update-profile", UPDATE_PROFILE_LIMIT + 1)).isEqualTo(SC_PAYLOAD_TOO_LARGE);
+    }
+
+    @Test
+    void updateProfileAcceptsBodiesUpToItsLimit() throws Exception {
+        assertThat(putStatus("/update-profile", UPDATE_PROFILE_LIMIT)).isNotEqualTo(SC_PAYLOAD_TOO_LARGE);
+    }
+
+    @Test
+    void otherRoutesRejectBodiesOverTheDefaultLimit() throws Exception {
+        assertThat(postStatus("/user/me", DEFAULT_LIMIT + 1)).isEqualTo(SC_PAYLOAD_TOO_LARGE);
+    }
+
+    @Test
+    void otherRoutesAcceptBodiesUpToTheDefaultLimit() throws Exception {
+        assertThat(postStatus("/user/me", DEFAULT_LIMIT)).isNotEqualTo(SC_PAYLOAD_TOO_LARGE);
+    }
+
+    @Test
+    void chunkedBodyOverTheRouteLimitIsAbortedWhileReading() throws Exception {
+        assertThat(postChunkedStatus("/auth/login", AUTH_LIMIT + 1)).isEqualTo(SC_PAYLOAD_TOO_LARGE);
+    }
+
+    @Test
+    void chunkedBodyUpToTheRouteLimitIsRead() throws Exception {
+        assertThat(postChunkedStatus("/auth/login", AUTH_LIMIT)).isNotEqualTo(SC_PAYLOAD_TOO_LARGE);
+    }
+
+    private int postStatus(String path, int bodySize) throws Exception {
+        return mockMvc.perform(post(path).servletPath(path).contentType(MediaType.APPLICATION_JSON).content(jsonBody(bodySize)))
+                .andReturn().getResponse().getStatus();
+    }
+
+    private int putStatus(String path, int bodySize) throws Exception {
+        return mockMvc.perform(put(path).servletPath(path).contentType(MediaType.APPLICATION_JSON).content(jsonBody(bodySize)))
+                .andReturn().getResponse().getStatus();
+    }
+
+    private int postChunkedStatus(String path, int bodySize) throws Exception {
+        byte[] body = jsonBody(bodySize);
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofInputStream(() -> new ByteArrayInputStream(body)))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static byte[] jsonBody(int size) {
+        String prefix = "{\"email\":\"nobody@example.com\",\"password\":\"password\",\"padding\":\"";
+        String suffix = "\"}";
+        return (prefix + "x".repeat(size - prefix.length() - suffix.length()) + suffix).getBytes();
+    }
+}
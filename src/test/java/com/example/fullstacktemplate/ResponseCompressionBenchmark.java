@@ -0,0 +1,98 @@
+package com.example.fullstacktemplate;
+
+import com.example.fullstacktemplate.model.AuthProvider;
+import com.example.fullstacktemplate.model.FileDb;
+import com.example.fullstacktemplate.model.FileType;
+import com.example.fullstacktemplate.model.Role;
+import com.example.fullstacktemplate.model.User;
+import com.example.fullstacktemplate.repository.UserRepository;
+import com.example.fullstacktemplate.service.AuthenticationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the two-factor setup formats over a real connector, with and without {@code Accept-Encoding: gzip}. The
+ * bytes on the wire of each combination are printed once per trial. Run with
+ * {@code ./mvnw -Pbenchmark test -Dbenchmark=ResponseCompressionBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseCompressionBenchmark {
+
+    @Param({"png", "svg", "uri"})
+    private String format;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    private ConfigurableApplicationContext context;
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private HttpRequest request;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = new SpringApplicationBuilder(SpringSocialApplication.class)
+                .profiles("test")
+                .properties("server.port=0", "app.rate-limit.enabled=false")
+                .run();
+        User user = new User();
+        String name = "compression-" + UUID.randomUUID();
+        user.setName(name);
+        user.setEmail(name + "@example.com");
+        user.setEmailVerified(true);
+        user.setAuthProvider(AuthProvider.local);
+        user.setRole(Role.USER);
+        user.setTwoFactorEnabled(false);
+        try (InputStream inputStream = new ClassPathResource("images/blank-profile-picture.png").getInputStream()) {
+            user.setProfileImage(new FileDb("blank-profile-picture.png", FileType.IMAGE_PNG, inputStream.readAllBytes()));
+        }
+        String accessToken = context.getBean(AuthenticationService.class).createAccessToken(context.getBean(UserRepository.class).save(user));
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/two-factor-setup?format=" + format))
+                .header("Authorization", "Bearer " + accessToken)
+                .POST(HttpRequest.BodyPublishers.noBody());
+        if (gzip) {
+            requestBuilder.header("Accept-Encoding", "gzip");
+        }
+        request = requestBuilder.build();
+        HttpResponse<byte[]> response = twoFactorSetup();
+        System.out.printf("format=%s gzip=%s status=%d bytes=%d content-encoding=%s%n", format, gzip, response.statusCode(),
+                response.body().length, response.headers().firstValue("Content-Encoding").orElse("identity"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public HttpResponse<byte[]> twoFactorSetup() throws Exception {
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.fullstacktemplate;
+
+import com.example.fullstacktemplate.model.AuthProvider;
+import com.example.fullstacktemplate.model.FileDb;
+import com.example.fullstacktemplate.model.FileType;
+import com.example.fullstacktemplate.model.Role;
+import com.example.fullstacktemplate.model.User;
+import com.example.fullstacktemplate.repository.UserRepository;
+import com.example.fullstacktemplate.service.AuthenticationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the response compression settings over a real connector, with and without {@code Accept-Encoding: gzip}.
+ * Bytes on the wire and latency are measured by {@code ResponseCompressionBenchmark}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class ResponseCompressionTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AuthenticationService authenticationService;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private String accessToken;
+
+    /**
+     * The api document is only generated by the api-docs profile, so the tests serve a stand-in of similar size from
+     * a temporary static location, next to its gzip variant like the profile does.
+     */
+    @DynamicPropertySource
+    static void staticApiDocument(DynamicPropertyRegistry registry) throws IOException {
+        Path staticLocation = Files.createTempDirectory("static");
+        StringBuilder document = new StringBuilder("{\"openapi\":\"3.0.3\",\"paths\":{");
+        for (int i = 0; i < 200; i++) {
+            document.append(i == 0 ? "" : ",").append("\"/path-").append(i).append("\":{\"get\":{\"responses\":{\"200\":{\"description\":\"OK\"}}}}");
+        }
+        byte[] bytes = document.append("}}").toString().getBytes(StandardCharsets.UTF_8);
+        Files.write(staticLocation.resolve("openapi.json"), bytes);
+        try (OutputStream outputStream = new GZIPOutputStream(Files.newOutputStream(staticLocation.resolve("openapi.json.gz")))) {
+            outputStream.write(bytes);
+        }
+        staticLocation.toFile().deleteOnExit();
+        registry.add("spring.web.resources.static-locations", () -> "classpath:/static/," + staticLocation.toUri());
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        User user = new User();
+        String name = "compression-" + UUID.randomUUID();
+        user.setName(name);
+        user.setEmail(name + "@example.com");
+        user.setEmailVerified(true);
+        user.setAuthProvider(AuthProvider.local);
+        user.setRole(Role.USER);
+        user.setTwoFactorEnabled(false);
+        try (InputStream inputStream = new ClassPathResource("images/blank-profile-picture.png").getInputStream()) {
+            user.setProfileImage(new FileDb("blank-profile-picture.png", FileType.IMAGE_PNG, inputStream.readAllBytes()));
+        }
+        accessToken = authenticationService.createAccessToken(userRepository.save(user));
+    }
+
+    @Test
+    void compressesLargeJsonResponses() throws Exception {
+        Measurement identity = measure(get("/user/me"), false);
+        Measurement gzip = measure(get("/user/me"), true);
+
+        assertThat(identity.contentEncoding).isNull();
+        assertThat(gzip.contentEncoding).isEqualTo("gzip");
+        assertThat(gzip.bytes).isLessThan(identity.bytes);
+    }
+
+    @Test
+    void compressesTheStaticApiDocument() throws Exception {
+        Measurement identity = measure(get("/openapi.json"), false);
+        Measurement gzip = measure(get("/openapi.json"), true);
+
+        assertThat(gzip.contentEncoding).isEqualTo("gzip");
+        assertThat(gzip.bytes).isLessThan(identity.bytes / 2);
+    }
+
+    @Test
+    void compressesSvgTwoFactorSetup() throws Exception {
+        Measurement gzip = measure(twoFactorSetup("svg"), true);
+
+        assertThat(gzip.status).isEqualTo(200);
+        assertThat(gzip.contentEncoding).isEqualTo("gzip");
+    }
+
+    @Test
+    void leavesPngAndUriTwoFactorSetupUncompressed() throws Exception {
+        // the png is already compressed and its response stays below the minimum size
+        Measurement png = measure(twoFactorSetup("png"), true);
+        Measurement uri = measure(twoFactorSetup("uri"), true);
+
+        assertThat(png.status).isEqualTo(200);
+        assertThat(png.contentEncoding).isNull();
+        assertThat(uri.status).isEqualTo(200);
+        assertThat(uri.contentEncoding).isNull();
+    }
+
+    @Test
+    void leavesSmallResponsesUncompressed() throws Exception {
+        Measurement gzip = measure(HttpRequest.newBuilder(uri("/auth/access-token")).GET(), true);
+
+        assertThat(gzip.bytes).isLessThan(2048);
+        assertThat(gzip.contentEncoding).isNull();
+    }
+
+    @Nested
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT) // not inherited by nested classes
+    @TestPropertySource(properties = "server.http2.enabled=true")
+    class Http2 {
+
+        // the enclosing instance is bound to the context without http2
+        @LocalServerPort
+        private int http2Port;
+
+        @Test
+        void upgradesCleartextConnectionsToH2c() throws Exception {
+            HttpClient http2Client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build();
+            URI uri = URI.create("http://localhost:" + http2Port + "/openapi.json");
+
+            HttpResponse<byte[]> response = http2Client.send(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.ofByteArray());
+
+            assertThat(response.statusCode()).isEqualTo(200);
+            assertThat(response.version()).isEqualTo(HttpClient.Version.HTTP_2);
+        }
+    }
+
+    private HttpRequest.Builder twoFactorSetup(String format) {
+        return authorized("/two-factor-setup?format=" + format).POST(HttpRequest.BodyPublishers.noBody());
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return authorized(path).GET();
+    }
+
+    private HttpRequest.Builder authorized(String path) {
+        return HttpRequest.newBuilder(uri(path)).header("Authorization", "Bearer " + accessToken);
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private Measurement measure(HttpRequest.Builder requestBuilder, boolean gzip) throws Exception {
+        if (gzip) {
+            requestBuilder.header("Accept-Encoding", "gzip");
+        }
+        HttpResponse<byte[]> response = httpClient.send(requestBuilder.build(), HttpResponse.BodyHandlers.ofByteArray());
+        return new Measurement(response.statusCode(), response.body().length, response.headers().firstValue("Content-Encoding").orElse(null));
+    }
+
+    private static class Measurement {
+        private final int status;
+        private final int bytes;
+        private final String contentEncoding;
+
+        private Measurement(int status, int bytes, String contentEncoding) {
+            this.status = status;
+            this.bytes = bytes;
+            this.contentEncoding = contentEncoding;
+        }
+    }
+}
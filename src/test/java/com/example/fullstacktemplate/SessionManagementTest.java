@@ -0,0 +1,174 @@
+package com.example.fullstacktemplate;
+
+import com.example.fullstacktemplate.model.AuthProvider;
+import com.example.fullstacktemplate.model.Role;
+import com.example.fullstacktemplate.model.User;
+import com.example.fullstacktemplate.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.UUID;
+
+import static com.example.fullstacktemplate.service.AuthenticationService.REFRESH_TOKEN_COOKIE_NAME;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lists and revokes the sessions of a user that signed in from two clients.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class SessionManagementTest {
+
+    private static final String PASSWORD = "Password1";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private Client first;
+    private Client second;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String name = "sessions-" + UUID.randomUUID();
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "@example.com");
+        user.setPassword(passwordEncoder.encode(PASSWORD));
+        user.setEmailVerified(true);
+        user.setAuthProvider(AuthProvider.local);
+        user.setRole(Role.USER);
+        user.setTwoFactorEnabled(false);
+        userRepository.save(user);
+        first = login(user.getEmail(), "203.0.113.1");
+        second = login(user.getEmail(), "203.0.113.2");
+    }
+
+    @Test
+    void listsEverySessionAndMarksTheCurrentOne() throws Exception {
+        JsonNode sessions = getSessions(first);
+
+        assertThat(sessions).hasSize(2);
+        JsonNode current = find(sessions, "203.0.113.1");
+        assertThat(current.get("current").asBoolean()).isTrue();
+        assertThat(current.get("userAgent").asText()).isEqualTo("first");
+        assertThat(find(sessions, "203.0.113.2").get("current").asBoolean()).isFalse();
+    }
+
+    @Test
+    void revokesOneSession() throws Exception {
+        String secondSessionId = find(getSessions(first), "203.0.113.2").get("id").asText();
+
+        assertThat(send(first, "DELETE", "/sessions/" + secondSessionId).statusCode()).isEqualTo(200);
+
+        assertThat(getSessions(first)).hasSize(1);
+        assertThat(refresh(second)).isEqualTo(400);
+        assertThat(refresh(first)).isEqualTo(200);
+    }
+
+    @Test
+    void rejectsUnknownSession() throws Exception {
+        assertThat(send(first, "DELETE", "/sessions/" + UUID.randomUUID()).statusCode()).isEqualTo(400);
+        assertThat(getSessions(first)).hasSize(2);
+    }
+
+    @Test
+    void revokesAllSessions() throws Exception {
+        HttpResponse<String> response = send(first, "DELETE", "/sessions");
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Set-Cookie")).hasValueSatisfying(cookie -> assertThat(cookie).startsWith(REFRESH_TOKEN_COOKIE_NAME + "=;"));
+        assertThat(getSessions(first)).isEmpty();
+        assertThat(refresh(first)).isEqualTo(400);
+        assertThat(refresh(second)).isEqualTo(400);
+    }
+
+    private Client login(String email, String forwardedFor) throws Exception {
+        String userAgent = forwardedFor.endsWith(".1") ? "first" : "second";
+        HttpRequest request = HttpRequest.newBuilder(uri("/auth/login"))
+                .header("X-Forwarded-For", forwardedFor)
+                .header("User-Agent", userAgent)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"" + email + "\",\"password\":\"" + PASSWORD + "\"}"))
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).isEqualTo(200);
+        String refreshToken = response.headers().firstValue("Set-Cookie")
+                .map(cookie -> cookie.substring(REFRESH_TOKEN_COOKIE_NAME.length() + 1, cookie.indexOf(';')))
+                .orElseThrow();
+        return new Client(forwardedFor, userAgent, objectMapper.readTree(response.body()).get("accessToken").asText(), refreshToken);
+    }
+
+    private JsonNode getSessions(Client client) throws Exception {
+        HttpResponse<String> response = send(client, "GET", "/sessions");
+        assertThat(response.statusCode()).isEqualTo(200);
+        return objectMapper.readTree(response.body());
+    }
+
+    private int refresh(Client client) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri("/auth/access-token"))
+                .header("X-Forwarded-For", client.forwardedFor)
+                .header("Cookie", REFRESH_TOKEN_COOKIE_NAME + "=" + client.refreshToken)
+                .GET()
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private HttpResponse<String> send(Client client, String method, String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri(path))
+                .header("X-Forwarded-For", client.forwardedFor)
+                .header("User-Agent", client.userAgent)
+                .header("Authorization", "Bearer " + client.accessToken)
+                .header("Cookie", REFRESH_TOKEN_COOKIE_NAME + "=" + client.refreshToken)
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static JsonNode find(JsonNode sessions, String ipAddress) {
+        for (JsonNode session : sessions) {
+            if (ipAddress.equals(session.get("ipAddress").asText())) {
+                return session;
+            }
+        }
+        throw new AssertionError("No session from " + ipAddress);
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static class Client {
+        private final String forwardedFor;
+        private final String userAgent;
+        private final String accessToken;
+        private final String refreshToken;
+
+        Client(String forwardedFor, String userAgent, String accessToken, String refreshToken) {
+            this.forwardedFor = forwardedFor;
+            this.userAgent = userAgent;
+            this.accessToken = accessToken;
+            this.refreshToken = refreshToken;
+        }
+    }
+}
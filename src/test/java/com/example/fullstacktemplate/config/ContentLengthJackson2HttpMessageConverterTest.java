@@ -0,0 +1,37 @@
+package com.example.fullstacktemplate.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContentLengthJackson2HttpMessageConverterTest {
+
+    private final MappingJackson2HttpMessageConverter converter = new JsonConfig.ContentLengthJackson2HttpMessageConverter(new ObjectMapper(), 64);
+
+    @Test
+    void smallBodyCarriesContentLength() throws Exception {
+        MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+
+        converter.write(Map.of("message", "ok"), MediaType.APPLICATION_JSON, outputMessage);
+
+        assertThat(outputMessage.getBodyAsString()).isEqualTo("{\"message\":\"ok\"}");
+        assertThat(outputMessage.getHeaders().getContentLength()).isEqualTo(outputMessage.getBodyAsBytes().length);
+    }
+
+    @Test
+    void largeBodyIsStreamedWithoutContentLength() throws Exception {
+        MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+        String message = "x".repeat(1000);
+
+        converter.write(Map.of("message", message), MediaType.APPLICATION_JSON, outputMessage);
+
+        assertThat(outputMessage.getBodyAsString()).isEqualTo("{\"message\":\"" + message + "\"}");
+        assertThat(outputMessage.getHeaders().getContentLength()).isEqualTo(-1);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.fullstacktemplate.config.datasource;
+
+import com.example.fullstacktemplate.model.AuthProvider;
+import com.example.fullstacktemplate.model.Role;
+import com.example.fullstacktemplate.model.User;
+import com.example.fullstacktemplate.repository.UserRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two separate H2 instances stand in for the primary and the replica, so the database a statement ran on can be told
+ * from the rows it sees.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "app.replica-datasource.url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "app.replica-datasource.username=sa",
+        "app.replica-datasource.password=",
+        "app.replica-datasource.migrate=true"
+})
+class ReadWriteRoutingDataSourceTest {
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private HikariDataSource primaryDataSource;
+    @Autowired
+    private HikariDataSource replicaDataSource;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+    private TransactionTemplate readOnlyTransaction;
+
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        new JdbcTemplate(primaryDataSource).update("delete from users where email like 'routing-%'");
+        new JdbcTemplate(replicaDataSource).update("delete from users where email like 'routing-%'");
+    }
+
+    @Test
+    void writesGoToPrimaryAndReadOnlyTransactionsToReplica() {
+        transaction.execute(status -> userRepository.save(newUser("routing-write")));
+
+        assertThat(countOn(primaryDataSource, "routing-write")).isOne();
+        assertThat(countOn(replicaDataSource, "routing-write")).isZero();
+        Boolean foundOnReplica = readOnlyTransaction.execute(status -> userRepository.findByEmail("routing-write@example.com").isPresent());
+        Boolean foundOnPrimary = transaction.execute(status -> userRepository.findByEmail("routing-write@example.com").isPresent());
+        assertThat(foundOnReplica).isFalse();
+        assertThat(foundOnPrimary).isTrue();
+    }
+
+    /**
+     * A session spanning several transactions, as with open-in-view, must not keep the replica connection of a
+     * read-only transaction for a following write.
+     */
+    @Test
+    void writeAfterReadOnlyTransactionInSameSessionGoesToPrimary() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+        try {
+            readOnlyTransaction.execute(status -> userRepository.findByEmail("routing-session@example.com"));
+            transaction.execute(status -> userRepository.save(newUser("routing-session")));
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            entityManager.close();
+        }
+
+        assertThat(countOn(primaryDataSource, "routing-session")).isOne();
+        assertThat(countOn(replicaDataSource, "routing-session")).isZero();
+    }
+
+    private static int countOn(HikariDataSource dataSource, String name) {
+        return new JdbcTemplate(dataSource).queryForObject("select count(*) from users where name = ?", Integer.class, name);
+    }
+
+    private static User newUser(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "@example.com");
+        user.setEmailVerified(true);
+        user.setAuthProvider(AuthProvider.local);
+        user.setRole(Role.USER);
+        user.setTwoFactorEnabled(false);
+        return user;
+    }
+}
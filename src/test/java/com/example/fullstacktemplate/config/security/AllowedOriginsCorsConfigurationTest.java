@@ -0,0 +1,45 @@
+package com.example.fullstacktemplate.config.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AllowedOriginsCorsConfigurationTest {
+
+    private final AllowedOriginsCorsConfiguration configuration =
+            new AllowedOriginsCorsConfiguration(List.of("https://app.example.com/", "https://*.preview.example.com"));
+
+    @Test
+    void allowsExactOriginsIgnoringCaseAndTrailingSlash() {
+        assertThat(configuration.checkOrigin("https://app.example.com")).isEqualTo("https://app.example.com");
+        assertThat(configuration.checkOrigin("HTTPS://App.Example.com/")).isEqualTo("HTTPS://App.Example.com/");
+    }
+
+    @Test
+    void allowsOriginsMatchingAWildcard() {
+        assertThat(configuration.checkOrigin("https://pr-1.preview.example.com")).isEqualTo("https://pr-1.preview.example.com");
+    }
+
+    @Test
+    void rejectsOtherOrigins() {
+        assertThat(configuration.checkOrigin("https://evil.example.com")).isNull();
+        assertThat(configuration.checkOrigin("http://app.example.com")).isNull();
+        assertThat(configuration.checkOrigin("https://preview.example.com.evil.com")).isNull();
+        assertThat(configuration.checkOrigin("")).isNull();
+        assertThat(configuration.checkOrigin(null)).isNull();
+    }
+
+    @Test
+    void decisionsStayCorrectOnceTheCacheIsFull() {
+        for (int i = 0; i < 5000; i++) {
+            assertThat(configuration.checkOrigin("https://random-" + i + ".example.org")).isNull();
+            assertThat(configuration.checkOrigin("https://pr-" + i + ".preview.example.com")).isNotNull();
+        }
+
+        assertThat(configuration.checkOrigin("https://app.example.com")).isEqualTo("https://app.example.com");
+        assertThat(configuration.checkOrigin("https://pr-new.preview.example.com")).isNotNull();
+        assertThat(configuration.checkOrigin("https://random-0.example.org")).isNull();
+    }
+}
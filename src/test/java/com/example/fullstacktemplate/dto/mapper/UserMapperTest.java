@@ -0,0 +1,123 @@
+package com.example.fullstacktemplate.dto.mapper;
+
+import com.example.fullstacktemplate.dto.FileDbDto;
+import com.example.fullstacktemplate.dto.UserDto;
+import com.example.fullstacktemplate.model.AuthProvider;
+import com.example.fullstacktemplate.model.FileDb;
+import com.example.fullstacktemplate.model.FileType;
+import com.example.fullstacktemplate.model.Role;
+import com.example.fullstacktemplate.model.User;
+import com.example.fullstacktemplate.service.FileDbService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({UserMapperImpl.class, FileDbMapperImpl.class, FileDbMapperResolver.class, FileDbService.class})
+class UserMapperTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    private Statistics statistics;
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        User user = new User();
+        user.setName("user");
+        user.setEmail("user@example.com");
+        user.setEmailVerified(true);
+        user.setAuthProvider(AuthProvider.local);
+        user.setRole(Role.USER);
+        user.setTwoFactorEnabled(false);
+        user.setProfileImage(new FileDb("avatar.png", FileType.IMAGE_PNG, new byte[]{1, 2, 3}));
+        userId = entityManager.persistAndFlush(user).getId();
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    @Test
+    void changedNameIsOneUpdate() {
+        User user = entityManager.find(User.class, userId);
+
+        userMapper.updateEntity(profile("renamed", null), user);
+        entityManager.flush();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(1);
+        assertThat(statistics.getEntityUpdateCount()).isEqualTo(1);
+    }
+
+    @Test
+    void unchangedProfileIssuesNoUpdate() {
+        User user = entityManager.find(User.class, userId);
+
+        userMapper.updateEntity(profile("user", image(new byte[]{1, 2, 3})), user);
+        entityManager.flush();
+
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+        assertThat(statistics.getEntityInsertCount()).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void changedImageUpdatesTheExistingFileRow() {
+        User user = entityManager.find(User.class, userId);
+        Long imageId = user.getProfileImage().getId();
+
+        userMapper.updateEntity(profile("user", image(new byte[]{4, 5})), user);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(statistics.getEntityUpdateCount()).isEqualTo(1);
+        assertThat(statistics.getEntityInsertCount()).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        FileDb image = entityManager.find(User.class, userId).getProfileImage();
+        assertThat(image.getId()).isEqualTo(imageId);
+        assertThat(image.getData()).containsExactly(4, 5);
+    }
+
+    @Test
+    void missingImageKeepsTheCurrentOne() {
+        User user = entityManager.find(User.class, userId);
+
+        userMapper.updateEntity(profile("renamed", null), user);
+        entityManager.flush();
+        entityManager.clear();
+
+        User reloaded = entityManager.find(User.class, userId);
+        assertThat(reloaded.getName()).isEqualTo("renamed");
+        assertThat(reloaded.getProfileImage()).isNotNull();
+        assertThat(reloaded.getProfileImage().getData()).containsExactly(1, 2, 3);
+    }
+
+    private UserDto profile(String name, FileDbDto image) {
+        UserDto userDto = new UserDto();
+        userDto.setName(name);
+        userDto.setEmail("user@example.com");
+        userDto.setProfileImage(image);
+        return userDto;
+    }
+
+    private FileDbDto image(byte[] data) {
+        FileDbDto fileDbDto = new FileDbDto();
+        fileDbDto.setName("avatar.png");
+        fileDbDto.setType(FileType.IMAGE_PNG.getMimeType());
+        fileDbDto.setData(data);
+        return fileDbDto;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.fullstacktemplate.repository;
+
+import com.example.fullstacktemplate.model.AuthProvider;
+import com.example.fullstacktemplate.model.FileDb;
+import com.example.fullstacktemplate.model.FileType;
+import com.example.fullstacktemplate.model.JwtToken;
+import com.example.fullstacktemplate.model.Role;
+import com.example.fullstacktemplate.model.TokenType;
+import com.example.fullstacktemplate.model.TwoFactorRecoveryCode;
+import com.example.fullstacktemplate.model.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class UserRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Statistics statistics;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        user = persistUser(entityManager, "user@example.com", 5, 10);
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    @Test
+    void authPrincipalIsOneNarrowSelect() {
+        UserRepository.AuthPrincipal principal = userRepository.findAuthPrincipalByEmail("user@example.com").orElseThrow();
+
+        assertThat(principal.getId()).isEqualTo(user.getId());
+        assertThat(principal.getRole()).isEqualTo(Role.USER);
+        assertThat(userRepository.findAuthPrincipalById(user.getId())).isPresent();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void loginStateIsOneNarrowSelect() {
+        UserRepository.LoginState loginState = userRepository.findLoginStateById(user.getId()).orElseThrow();
+
+        assertThat(loginState.getTwoFactorSecret()).isEqualTo("secret");
+        assertThat(loginState.getEmailVerified()).isTrue();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+    }
+
+    @Test
+    void profileSummaryJoinsTheImageInOneSelect() {
+        UserRepository.ProfileSummary summary = userRepository.findProfileSummaryById(user.getId()).orElseThrow();
+
+        assertThat(summary.getEmail()).isEqualTo("user@example.com");
+        assertThat(summary.getPasswordSet()).isTrue();
+        assertThat(summary.getProfileImageName()).isEqualTo("avatar.png");
+        assertThat(summary.getProfileImageData()).containsExactly(1, 2, 3);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+    }
+
+    static User persistUser(TestEntityManager entityManager, String email, int recoveryCodes, int tokens) {
+        User user = new User();
+        user.setName(email.substring(0, email.indexOf('@')));
+        user.setEmail(email);
+        user.setPassword("password-hash");
+        user.setEmailVerified(true);
+        user.setAuthProvider(AuthProvider.local);
+        user.setRole(Role.USER);
+        user.setTwoFactorEnabled(true);
+        user.setTwoFactorSecret("secret");
+        user.setProfileImage(new FileDb("avatar.png", FileType.IMAGE_PNG, new byte[]{1, 2, 3}));
+        entityManager.persist(user);
+        for (int i = 0; i < recoveryCodes; i++) {
+            TwoFactorRecoveryCode recoveryCode = new TwoFactorRecoveryCode();
+            recoveryCode.setRecoveryCode("code-" + i);
+            recoveryCode.setUser(user);
+            entityManager.persist(recoveryCode);
+        }
+        for (int i = 0; i < tokens; i++) {
+            JwtToken token = new JwtToken();
+            token.setTokenType(TokenType.REFRESH);
+            token.setValue("token-" + email + "-" + i);
+            token.setUser(user);
+            token.setExpiresAt(Instant.now().plusSeconds(60));
+            token.setCreatedAt(Instant.now());
+            entityManager.persist(token);
+        }
+        entityManager.flush();
+        return user;
+    }
+}
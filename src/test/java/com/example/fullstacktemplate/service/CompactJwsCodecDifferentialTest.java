@@ -0,0 +1,184 @@
+package com.example.fullstacktemplate.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.SigningKeyResolver;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.security.Key;
+import java.security.KeyPair;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.SoftAssertions.assertSoftly;
+
+/**
+ * Compares {@link CompactJwsCodec} with the jjwt parser it replaced, configured the way {@code TokenService} used
+ * to configure it. Inputs the old parser accepted with last-wins or missing-claim semantics are covered by
+ * {@link CompactJwsCodecTest} instead.
+ */
+class CompactJwsCodecDifferentialTest {
+
+    private static final String BASE64URL_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+
+    private KeyPair keyPair;
+    private SigningKeyService signingKeyService;
+    private CompactJwsCodec codec;
+    private SigningKeyResolver signingKeyResolver;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        keyPair = TestSigningKeys.generateKeyPair();
+        signingKeyService = TestSigningKeys.signingKeyService(keyPair);
+        codec = new CompactJwsCodec(signingKeyService);
+        signingKeyResolver = new SigningKeyResolverAdapter() {
+            @Override
+            public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                if (!SignatureAlgorithm.RS256.getValue().equals(header.getAlgorithm())) {
+                    throw new UnsupportedJwtException("Unsupported signature algorithm " + header.getAlgorithm());
+                }
+                Key key = signingKeyService.getVerificationKey(header.getKeyId());
+                if (key == null) {
+                    throw new SignatureException("Unknown signing key " + header.getKeyId());
+                }
+                return key;
+            }
+        };
+    }
+
+    @Test
+    void readsTokensIssuedByTheReferenceBuilder() {
+        Instant issuedAt = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        String token = Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, TestSigningKeys.KEY_ID)
+                .claim(TokenService.FAMILY_ID_CLAIM, "family")
+                .claim(TokenService.SESSION_STARTED_AT_CLAIM, issuedAt.getEpochSecond())
+                .claim("unrelated", List.of(1, 2, 3))
+                .setId("jti")
+                .setSubject("subject")
+                .setIssuedAt(Date.from(issuedAt))
+                .setExpiration(Date.from(issuedAt.plusSeconds(3600)))
+                .setIssuer("Full-stack template")
+                .signWith(SignatureAlgorithm.RS256, keyPair.getPrivate())
+                .compact();
+
+        CompactJwsCodec.Result result = codec.verify(token, Instant.now());
+        Claims reference = parse(token);
+
+        assertThat(result.getStatus()).isEqualTo(CompactJwsCodec.Status.VALID);
+        assertThat(result.getClaims().getId()).isEqualTo(reference.getId());
+        assertThat(result.getClaims().getSubject()).isEqualTo(reference.getSubject());
+        assertThat(result.getClaims().getIssuer()).isEqualTo(reference.getIssuer());
+        assertThat(Date.from(result.getClaims().getIssuedAt())).isEqualTo(reference.getIssuedAt());
+        assertThat(Date.from(result.getClaims().getExpiresAt())).isEqualTo(reference.getExpiration());
+        assertThat(result.getClaims().getFamilyId()).isEqualTo((String) reference.get(TokenService.FAMILY_ID_CLAIM));
+        assertThat(result.getClaims().getSessionStartedAt().getEpochSecond()).isEqualTo(((Number) reference.get(TokenService.SESSION_STARTED_AT_CLAIM)).longValue());
+    }
+
+    @Test
+    void referenceParserReadsCodecTokens() {
+        JwtClaims claims = claims(Instant.now().plusSeconds(3600));
+
+        Claims reference = parse(codec.sign(claims));
+
+        assertThat(reference.getId()).isEqualTo(claims.getId());
+        assertThat(reference.getSubject()).isEqualTo(claims.getSubject());
+        assertThat(reference.getExpiration()).isEqualTo(Date.from(claims.getExpiresAt()));
+        assertThat((String) reference.get(TokenService.PURPOSE_CLAIM)).isEqualTo(claims.getPurpose());
+    }
+
+    @Test
+    void agreesOnMutatedTokens() throws Exception {
+        List<String> corpus = new ArrayList<>();
+        Instant now = Instant.now();
+        String valid = codec.sign(claims(now.plusSeconds(3600)));
+        String expired = codec.sign(claims(now.minusSeconds(3600)));
+        corpus.add(valid);
+        corpus.add(expired);
+        for (String token : List.of(valid, expired)) {
+            corpus.addAll(substitutions(token));
+            String[] parts = token.split("\\.");
+            corpus.add(parts[0] + "." + parts[1]);
+            corpus.add(parts[0] + "." + parts[1] + ".");
+            corpus.add(token + "." + parts[2]);
+            corpus.add(parts[1] + "." + parts[0] + "." + parts[2]);
+        }
+        String payload = "{\"sub\":\"1\",\"exp\":" + now.plusSeconds(3600).getEpochSecond() + "}";
+        corpus.add(CompactJwsCodecTest.encode("{\"alg\":\"none\"}") + "." + CompactJwsCodecTest.encode(payload) + ".");
+        corpus.add(CompactJwsCodecTest.signed("{\"alg\":\"RS512\",\"kid\":\"" + TestSigningKeys.KEY_ID + "\"}", payload, keyPair.getPrivate()));
+        corpus.add(CompactJwsCodecTest.signed("{\"alg\":\"RS256\",\"kid\":\"other\"}", payload, keyPair.getPrivate()));
+        corpus.add(CompactJwsCodecTest.signed("{\"alg\":\"RS256\",\"kid\":\"" + TestSigningKeys.KEY_ID + "\"}", payload, TestSigningKeys.generateKeyPair().getPrivate()));
+
+        assertSoftly(softly -> {
+            for (String token : corpus) {
+                softly.assertThat(codecOutcome(token)).as(token).isEqualTo(referenceOutcome(token));
+            }
+        });
+    }
+
+    private List<String> substitutions(String token) {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < token.length(); i++) {
+            char original = token.charAt(i);
+            if (original == '.') {
+                continue;
+            }
+            char replacement = BASE64URL_ALPHABET.charAt((BASE64URL_ALPHABET.indexOf(original) + 1 + i % 63) % BASE64URL_ALPHABET.length());
+            tokens.add(token.substring(0, i) + replacement + token.substring(i + 1));
+        }
+        return tokens;
+    }
+
+    private Outcome codecOutcome(String token) {
+        CompactJwsCodec.Status status = codec.verify(token, Instant.now()).getStatus();
+        if (status == CompactJwsCodec.Status.VALID) {
+            return Outcome.ACCEPTED;
+        }
+        return status == CompactJwsCodec.Status.EXPIRED ? Outcome.EXPIRED : Outcome.REJECTED;
+    }
+
+    private Outcome referenceOutcome(String token) {
+        try {
+            parse(token);
+            return Outcome.ACCEPTED;
+        } catch (ExpiredJwtException e) {
+            // jjwt checks exp before it notices that parseClaimsJws got an unsigned token
+            return token.endsWith(".") ? Outcome.REJECTED : Outcome.EXPIRED;
+        } catch (RuntimeException e) {
+            return Outcome.REJECTED;
+        }
+    }
+
+    private Claims parse(String token) {
+        return Jwts.parser().setSigningKeyResolver(signingKeyResolver).parseClaimsJws(token).getBody();
+    }
+
+    private JwtClaims claims(Instant expiresAt) {
+        JwtClaims claims = new JwtClaims();
+        claims.setId(UUID.randomUUID().toString());
+        claims.setSubject("subject");
+        claims.setIssuer("Full-stack template");
+        claims.setIssuedAt(Instant.now().truncatedTo(ChronoUnit.SECONDS));
+        claims.setExpiresAt(expiresAt.truncatedTo(ChronoUnit.SECONDS));
+        claims.setPurpose("PASSWORD_RESET");
+        return claims;
+    }
+
+    private enum Outcome {
+        ACCEPTED,
+        EXPIRED,
+        REJECTED
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.fullstacktemplate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactJwsCodecTest {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Instant NOW = Instant.ofEpochSecond(1_700_000_000);
+    private static final String HEADER = "{\"alg\":\"RS256\",\"kid\":\"" + TestSigningKeys.KEY_ID + "\"}";
+
+    private KeyPair keyPair;
+    private CompactJwsCodec codec;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        keyPair = TestSigningKeys.generateKeyPair();
+        codec = new CompactJwsCodec(TestSigningKeys.signingKeyService(keyPair));
+    }
+
+    @Test
+    void roundTripKeepsAllClaims() {
+        JwtClaims claims = claims(NOW.plusSeconds(60));
+        claims.setId("jti");
+        claims.setIssuer("issuer");
+        claims.setIssuedAt(NOW);
+        claims.setFamilyId("family");
+        claims.setSessionStartedAt(NOW.minusSeconds(30));
+        claims.setPurpose("ACCOUNT_ACTIVATION");
+        claims.setFingerprint("fingerprint");
+
+        CompactJwsCodec.Result result = codec.verify(codec.sign(claims), NOW);
+
+        assertThat(result.getStatus()).isEqualTo(CompactJwsCodec.Status.VALID);
+        assertThat(result.getClaims()).usingRecursiveComparison().isEqualTo(claims);
+    }
+
+    @Test
+    void expiryEdges() {
+        assertThat(codec.verify(codec.sign(claims(NOW.plusSeconds(1))), NOW).getStatus()).isEqualTo(CompactJwsCodec.Status.VALID);
+        assertThat(codec.verify(codec.sign(claims(NOW)), NOW).getStatus()).isEqualTo(CompactJwsCodec.Status.EXPIRED);
+        assertThat(codec.verify(codec.sign(claims(NOW.minusSeconds(1))), NOW).getStatus()).isEqualTo(CompactJwsCodec.Status.EXPIRED);
+    }
+
+    @Test
+    void rejectsMissingRequiredClaims() throws Exception {
+        assertThat(codec.verify(signed(HEADER, "{\"sub\":\"1\"}"), NOW).getStatus()).isEqualTo(CompactJwsCodec.Status.MALFORMED);
+        assertThat(codec.verify(signed(HEADER, "{\"exp\":" + NOW.plusSeconds(60).getEpochSecond() + "}"), NOW).getStatus()).isEqualTo(CompactJwsCodec.Status.MALFORMED);
+    }
+
+    @Test
+    void rejectsDuplicateClaims() throws Exception {
+        String payload = "{\"sub\":\"1\",\"sub\":\"2\",\"exp\":" + NOW.plusSeconds(60).getEpochSecond() + "}";
+
+        assertThat(codec.verify(signed(HEADER, payload), NOW).getStatus()).isEqualTo(CompactJwsCodec.Status.MALFORMED);
+    }
+
+    @Test
+    void rejectsDuplicateHeaderMembers() throws Exception {
+        String header = "{\"alg\":\"none\",\"alg\":\"RS256\",\"kid\":\"" + TestSigningKeys.KEY_ID + "\"}";
+
+        assertThat(codec.verify(signed(header, validPayload()), NOW).getStatus()).isEqualTo(CompactJwsCodec.Status.MALFORMED);
+    }
+
+    @Test
+    void rejectsAlgorithmConfusion() throws Exception {
+        String unsigned = encode("{\"alg\":\"none\",\"kid\":\"" + TestSigningKeys.KEY_ID + "\"}") + "." + encode(validPayload()) + ".";
+        assertThat(codec.verify(unsigned, NOW).getStatus()).isEqualTo(CompactJwsCodec.Status.UNSUPPORTED);
+
+        String signingInput = encode("{\"alg\":\"HS256\",\"kid\":\"" + TestSigningKeys.KEY_ID + "\"}") + "." + encode(validPayload());
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(keyPair.getPublic().getEncoded(), "HmacSHA256"));
+        String hmacSigned = signingInput + "." + ENCODER.encodeToString(mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII)));
+        assertThat(codec.verify(hmacSigned, NOW).getStatus()).isEqualTo(CompactJwsCodec.Status.UNSUPPORTED);
+    }
+
+    @Test
+    void rejectsWrongSegmentCount() {
+        String token = codec.sign(claims(NOW.plusSeconds(60)));
+        String withoutSignature = token.substring(0, token.lastIndexOf('.'));
+
+        assertThat(codec.verify(withoutSignature, NOW).getStatus()).isEqualTo(CompactJwsCodec.Status.MALFORMED);
+        assertThat(codec.verify(token + ".extra", NOW).getStatus()).isEqualTo(CompactJwsCodec.Status.MALFORMED);
+        assertThat(codec.verify("." + token, NOW).getStatus()).isEqualTo(CompactJwsCodec.Status.MALFORMED);
+        assertThat(codec.verify("", NOW).getStatus()).isEqualTo(CompactJwsCodec.Status.MALFORMED);
+        assertThat(codec.verify(null, NOW).getStatus()).isEqualTo(CompactJwsCodec.Status.MALFORMED);
+    }
+
+    @Test
+    void rejectsBadBase64() throws Exception {
+        String token = codec.sign(claims(NOW.plusSeconds(60)));
+        String signingInput = encode(HEADER) + ".*" + encode(validPayload());
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(keyPair.getPrivate());
+        signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+        String badPayload = signingInput + "." + ENCODER.encodeToString(signature.sign());
+
+        assertThat(codec.verify("%%%" + token.substring(token.indexOf('.')), NOW).getStatus()).isEqualTo(CompactJwsCodec.Status.MALFORMED);
+        assertThat(codec.verify(badPayload, NOW).getStatus()).isEqualTo(CompactJwsCodec.Status.MALFORMED);
+        assertThat(codec.verify(token + "*", NOW).getStatus()).isEqualTo(CompactJwsCodec.Status.MALFORMED);
+    }
+
+    @Test
+    void rejectsNonJsonSegments() throws Exception {
+        assertThat(codec.verify(signed("[]", validPayload()), NOW).getStatus()).isEqualTo(CompactJwsCodec.Status.MALFORMED);
+        assertThat(codec.verify(signed(HEADER, "\"text\""), NOW).getStatus()).isEqualTo(CompactJwsCodec.Status.MALFORMED);
+        assertThat(codec.verify(signed(HEADER, "{\"sub\":1,\"exp\":" + NOW.plusSeconds(60).getEpochSecond() + "}"), NOW).getStatus()).isEqualTo(CompactJwsCodec.Status.MALFORMED);
+    }
+
+    @Test
+    void rejectsTamperedTokens() throws Exception {
+        String token = codec.sign(claims(NOW.plusSeconds(60)));
+        String[] parts = token.split("\\.");
+        String tamperedPayload = parts[0] + "." + encode("{\"sub\":\"2\",\"exp\":" + NOW.plusSeconds(60).getEpochSecond() + "}") + "." + parts[2];
+
+        assertThat(codec.verify(tamperedPayload, NOW).getStatus()).isEqualTo(CompactJwsCodec.Status.INVALID_SIGNATURE);
+        assertThat(codec.verify(signed(HEADER, validPayload(), TestSigningKeys.generateKeyPair().getPrivate()), NOW).getStatus()).isEqualTo(CompactJwsCodec.Status.INVALID_SIGNATURE);
+        assertThat(codec.verify(signed("{\"alg\":\"RS256\",\"kid\":\"unknown\"}", validPayload()), NOW).getStatus()).isEqualTo(CompactJwsCodec.Status.INVALID_SIGNATURE);
+        assertThat(codec.verify(signed("{\"alg\":\"RS256\"}", validPayload()), NOW).getStatus()).isEqualTo(CompactJwsCodec.Status.INVALID_SIGNATURE);
+    }
+
+    private JwtClaims claims(Instant expiresAt) {
+        JwtClaims claims = new JwtClaims();
+        claims.setSubject("subject");
+        claims.setExpiresAt(expiresAt);
+        return claims;
+    }
+
+    private String validPayload() {
+        return "{\"sub\":\"1\",\"exp\":" + NOW.plusSeconds(60).getEpochSecond() + "}";
+    }
+
+    private String signed(String header, String payload) throws Exception {
+        return signed(header, payload, keyPair.getPrivate());
+    }
+
+    static String signed(String header, String payload, PrivateKey privateKey) throws Exception {
+        String signingInput = encode(header) + "." + encode(payload);
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(privateKey);
+        signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+        return signingInput + "." + ENCODER.encodeToString(signature.sign());
+    }
+
+    static String encode(String json) {
+        return ENCODER.encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
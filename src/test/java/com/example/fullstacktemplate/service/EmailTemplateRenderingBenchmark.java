@@ -0,0 +1,52 @@
+package com.example.fullstacktemplate.service;
+
+import com.example.fullstacktemplate.config.i18nConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.servlet.i18n.AcceptHeaderLocaleResolver;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering throughput for bulk sends, cycling through every template and supported locale with distinct variables
+ * per email. Run with {@code ./mvnw -Pbenchmark test -Dbenchmark=EmailTemplateRenderingBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmailTemplateRenderingBenchmark {
+
+    private EmailTemplateService emailTemplateService;
+    private EmailTemplate[] templates;
+    private int email;
+
+    @Setup
+    public void setUp() {
+        emailTemplateService = new EmailTemplateService(new MessageService(new AcceptHeaderLocaleResolver()));
+        templates = EmailTemplate.values();
+    }
+
+    @Benchmark
+    public EmailTemplateService.RenderedEmail render() {
+        int i = email++;
+        Locale locale = i18nConfig.SUPPORTED_LOCALES.get(i % i18nConfig.SUPPORTED_LOCALES.size());
+        return emailTemplateService.render(templates[i % templates.length], locale, Map.of(
+                "appName", "Template",
+                "oldEmail", "old" + i + "@example.com",
+                "newEmail", "new" + i + "@example.com",
+                "link", "http://localhost:3000/confirm?token=" + i));
+    }
+}
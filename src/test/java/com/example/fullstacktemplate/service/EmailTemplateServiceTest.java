@@ -0,0 +1,37 @@
+package com.example.fullstacktemplate.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.i18n.AcceptHeaderLocaleResolver;
+
+import java.util.Locale;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmailTemplateServiceTest {
+
+    private static final String LINK = "http://localhost:3000/activate-account?token=a&b";
+
+    private final EmailTemplateService emailTemplateService = new EmailTemplateService(new MessageService(new AcceptHeaderLocaleResolver()));
+
+    @Test
+    void rendersHtmlAndTextParts() {
+        EmailTemplateService.RenderedEmail renderedEmail = emailTemplateService.render(EmailTemplate.ACCOUNT_ACTIVATION, Locale.ENGLISH,
+                Map.of("appName", "Template", "link", LINK, "subject", "Template account activation"));
+
+        assertThat(renderedEmail.getHtml())
+                .contains("<title>Template account activation</title>")
+                .contains("Activate your account using following link")
+                .contains("href=\"http://localhost:3000/activate-account?token=a&amp;b\"");
+        assertThat(renderedEmail.getText()).contains("Activate your account using following link " + LINK);
+    }
+
+    @Test
+    void resolvesMessagesForTheRecipientLocale() {
+        EmailTemplateService.RenderedEmail renderedEmail = emailTemplateService.render(EmailTemplate.EMAIL_CHANGE, new Locale("cs"),
+                Map.of("appName", "Template", "oldEmail", "old@example.com", "newEmail", "new@example.com", "link", LINK));
+
+        assertThat(renderedEmail.getHtml()).contains("lang=\"cs\"").contains("old@example.com");
+        assertThat(renderedEmail.getText()).startsWith("Obdrželi jsme").contains(LINK);
+    }
+}
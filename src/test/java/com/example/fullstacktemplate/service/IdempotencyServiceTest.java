@@ -0,0 +1,123 @@
+package com.example.fullstacktemplate.service;
+
+import com.example.fullstacktemplate.config.AppProperties;
+import com.example.fullstacktemplate.model.IdempotencyRecord;
+import com.example.fullstacktemplate.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // a failed reservation must not roll back the test transaction
+class IdempotencyServiceTest {
+
+    private static final String KEY = "/auth/signup 6f1c2f5e";
+    private static final byte[] BODY = "{\"success\":true}".getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private AppProperties appProperties;
+    private IdempotencyService firstNode;
+    private IdempotencyService secondNode;
+
+    @BeforeEach
+    void setUp() {
+        appProperties = new AppProperties();
+        firstNode = new IdempotencyService(idempotencyRecordRepository, appProperties, transactionManager);
+        secondNode = new IdempotencyService(idempotencyRecordRepository, appProperties, transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        idempotencyRecordRepository.deleteAll();
+    }
+
+    @Test
+    void reservesKeyOnce() {
+        assertThat(firstNode.reserve(KEY, "fingerprint")).isTrue();
+        assertThat(secondNode.reserve(KEY, "fingerprint")).isFalse();
+        assertThat(secondNode.find(KEY)).hasValueSatisfying(record -> assertThat(record.isCompleted()).isFalse());
+    }
+
+    @Test
+    void completedResponseIsCachedAndSharedBetweenNodes() {
+        firstNode.reserve(KEY, "fingerprint");
+        firstNode.complete(KEY, "fingerprint", 200, "application/json", BODY);
+
+        assertThat(firstNode.findCached(KEY)).isPresent();
+        assertThat(secondNode.findCached(KEY)).isEmpty();
+        IdempotencyRecord record = secondNode.find(KEY).orElseThrow();
+        assertThat(record.getStatus()).isEqualTo(200);
+        assertThat(record.getBody()).isEqualTo(BODY);
+        assertThat(secondNode.findCached(KEY)).isPresent();
+    }
+
+    @Test
+    void releasedKeyCanBeReservedAgain() {
+        firstNode.reserve(KEY, "fingerprint");
+        firstNode.release(KEY);
+
+        assertThat(secondNode.reserve(KEY, "fingerprint")).isTrue();
+    }
+
+    @Test
+    void expiredRecordIsReplacedByNewReservation() {
+        appProperties.getIdempotency().setTtlMsec(-1);
+        firstNode.reserve(KEY, "fingerprint");
+        firstNode.complete(KEY, "fingerprint", 200, "application/json", BODY);
+        appProperties.getIdempotency().setTtlMsec(60000);
+
+        assertThat(secondNode.reserve(KEY, "other-fingerprint")).isTrue();
+        assertThat(firstNode.find(KEY)).hasValueSatisfying(record -> {
+            assertThat(record.getFingerprint()).isEqualTo("other-fingerprint");
+            assertThat(record.isCompleted()).isFalse();
+        });
+    }
+
+    @Test
+    void pendingReservationWithExpiredLeaseIsReplaced() {
+        appProperties.getIdempotency().setPendingLeaseMsec(-1);
+        firstNode.reserve(KEY, "fingerprint");
+        appProperties.getIdempotency().setPendingLeaseMsec(60000);
+
+        assertThat(secondNode.reserve(KEY, "fingerprint")).isTrue();
+        assertThat(firstNode.reserve(KEY, "fingerprint")).isFalse();
+    }
+
+    @Test
+    void completedRecordIsKeptForTheTtl() {
+        firstNode.reserve(KEY, "fingerprint");
+        Instant leaseExpiresAt = idempotencyRecordRepository.findById(KEY).orElseThrow().getExpiresAt();
+        firstNode.complete(KEY, "fingerprint", 200, "application/json", BODY);
+
+        assertThat(leaseExpiresAt).isBefore(Instant.now().plus(Duration.ofMinutes(2)));
+        assertThat(idempotencyRecordRepository.findById(KEY).orElseThrow().getExpiresAt()).isAfter(Instant.now().plus(Duration.ofHours(23)));
+    }
+
+    @Test
+    void expiredRecordsAreDeleted() {
+        appProperties.getIdempotency().setTtlMsec(-1);
+        firstNode.reserve(KEY, "fingerprint");
+        firstNode.complete(KEY, "fingerprint", 200, "application/json", BODY);
+
+        assertThat(firstNode.find(KEY)).isEmpty();
+        firstNode.deleteExpired();
+        assertThat(idempotencyRecordRepository.count()).isZero();
+    }
+}
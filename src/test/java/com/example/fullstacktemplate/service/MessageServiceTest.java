@@ -0,0 +1,74 @@
+package com.example.fullstacktemplate.service;
+
+import com.example.fullstacktemplate.config.i18nConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.Cookie;
+import java.util.Locale;
+
+import static com.example.fullstacktemplate.service.CookieOAuth2AuthorizationRequestService.LANGUAGE_COOKIE_NAME;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageServiceTest {
+
+    private static final Locale CZECH = new Locale("cs");
+
+    private final MessageService messageService = new MessageService(new i18nConfig().acceptHeaderLocaleResolver());
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void resolvesMessagesOfEverySupportedLocale() {
+        assertThat(messageService.getMessage("email.blank", null, null, Locale.ENGLISH)).isEqualTo("Email not filled");
+        assertThat(messageService.getMessage("email.blank", null, null, CZECH)).isEqualTo("Email není vyplněn");
+    }
+
+    @Test
+    void formatsArguments() {
+        assertThat(messageService.getMessage("alreadyHaveAccountO2AuthTemplate", new Object[]{"user@example.com", "github"}, null, CZECH))
+                .isEqualTo("Pro email user@example.com existuje github učet. Prosím přihlašte se přes tohoto poskytovatele.");
+    }
+
+    @Test
+    void unsupportedLocaleFallsBackToDefaultLocale() {
+        assertThat(messageService.getMessage("email.blank", null, null, Locale.GERMAN)).isEqualTo("Email not filled");
+    }
+
+    @Test
+    void unknownCodeFallsBackToDefaultMessageOrCode() {
+        assertThat(messageService.getMessage("unknown.code", new Object[]{"x"}, "Default {0}", Locale.ENGLISH)).isEqualTo("Default x");
+        assertThat(messageService.getMessage("unknown.code", null, null, CZECH)).isEqualTo("unknown.code");
+    }
+
+    @Test
+    void resolvesLocaleFromLanguageCookieBeforeAcceptLanguage() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Language", "en");
+        request.setCookies(new Cookie(LANGUAGE_COOKIE_NAME, "cs"));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        assertThat(messageService.getMessage("email.blank")).isEqualTo("Email není vyplněn");
+    }
+
+    @Test
+    void unsupportedRequestLocaleFallsBackToDefaultLocale() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Language", "de-DE");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        assertThat(messageService.getLocaleForCurrentRequest()).isEqualTo(Locale.ENGLISH);
+        assertThat(messageService.getMessage("email.blank")).isEqualTo("Email not filled");
+    }
+
+    @Test
+    void usesDefaultLocaleOutsideOfRequests() {
+        assertThat(messageService.getMessage("email.blank")).isEqualTo("Email not filled");
+    }
+}
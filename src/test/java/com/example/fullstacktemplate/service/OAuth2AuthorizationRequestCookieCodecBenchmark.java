@@ -0,0 +1,82 @@
+package com.example.fullstacktemplate.service;
+
+import com.example.fullstacktemplate.config.AppProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.util.SerializationUtils;
+
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OAuth2AuthorizationRequestCookieCodec} against the Java serialization the cookie repository used before,
+ * on the authorization request of a Google login. Run with
+ * {@code ./mvnw -Pbenchmark test -Dbenchmark=OAuth2AuthorizationRequestCookieCodecBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OAuth2AuthorizationRequestCookieCodecBenchmark {
+
+    private OAuth2AuthorizationRequestCookieCodec codec;
+    private OAuth2AuthorizationRequest authorizationRequest;
+    private String encoded;
+    private String serialized;
+
+    @Setup
+    public void setUp() throws Exception {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getAuth().setTokenSecret("benchmark-secret");
+        codec = new OAuth2AuthorizationRequestCookieCodec(appProperties);
+        authorizationRequest = OAuth2AuthorizationRequest.authorizationCode()
+                .authorizationUri("https://accounts.google.com/o/oauth2/v2/auth")
+                .clientId("client-id.apps.googleusercontent.com")
+                .redirectUri("http://localhost:8080/oauth2/callback/google")
+                .scopes(Set.of("email", "profile"))
+                .state("bXfOV0p7Qm1zZkFvN2tRb1R4WmR4cUdBc2VyTmh0dz0=")
+                .attributes(Map.of(OAuth2ParameterNames.REGISTRATION_ID, "google"))
+                .build();
+        encoded = codec.encode(authorizationRequest);
+        serialized = serialize();
+    }
+
+    @Benchmark
+    public String cookieCodecEncode() {
+        return codec.encode(authorizationRequest);
+    }
+
+    @Benchmark
+    public Optional<OAuth2AuthorizationRequest> cookieCodecDecode() {
+        return codec.decode(encoded);
+    }
+
+    @Benchmark
+    public String javaSerializationEncode() {
+        return serialize();
+    }
+
+    @Benchmark
+    public Object javaSerializationDecode() {
+        return SerializationUtils.deserialize(Base64.getUrlDecoder().decode(serialized));
+    }
+
+    private String serialize() {
+        return Base64.getUrlEncoder().encodeToString(SerializationUtils.serialize(authorizationRequest));
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.fullstacktemplate.service;
+
+import com.example.fullstacktemplate.config.AppProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.util.SerializationUtils;
+
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OAuth2AuthorizationRequestCookieCodecTest {
+
+    private OAuth2AuthorizationRequestCookieCodec codec;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getAuth().setTokenSecret("test-secret");
+        codec = new OAuth2AuthorizationRequestCookieCodec(appProperties);
+    }
+
+    @Test
+    void roundTrip() {
+        OAuth2AuthorizationRequest authorizationRequest = authorizationRequest(Map.of(OAuth2ParameterNames.REGISTRATION_ID, "google"));
+
+        OAuth2AuthorizationRequest decoded = codec.decode(codec.encode(authorizationRequest)).orElseThrow();
+
+        assertThat(decoded.getAuthorizationUri()).isEqualTo(authorizationRequest.getAuthorizationUri());
+        assertThat(decoded.getClientId()).isEqualTo(authorizationRequest.getClientId());
+        assertThat(decoded.getRedirectUri()).isEqualTo(authorizationRequest.getRedirectUri());
+        assertThat(decoded.getScopes()).isEqualTo(authorizationRequest.getScopes());
+        assertThat(decoded.getState()).isEqualTo(authorizationRequest.getState());
+        assertThat(decoded.getAttributes()).isEqualTo(authorizationRequest.getAttributes());
+        assertThat(decoded.getAuthorizationRequestUri()).isEqualTo(authorizationRequest.getAuthorizationRequestUri());
+    }
+
+    @Test
+    void keepsParameterOrderOfTheAuthorizationRequestUri() {
+        for (int i = 0; i < 20; i++) {
+            Map<String, Object> additionalParameters = new LinkedHashMap<>();
+            additionalParameters.put("nonce", "nonce-" + i);
+            additionalParameters.put("prompt", "consent");
+            additionalParameters.put("access_type", "offline");
+            OAuth2AuthorizationRequest authorizationRequest = OAuth2AuthorizationRequest.from(authorizationRequest(Map.of()))
+                    .scopes(Set.of("openid", "email", "profile", "scope-" + i))
+                    .additionalParameters(additionalParameters)
+                    .build();
+
+            OAuth2AuthorizationRequest decoded = codec.decode(codec.encode(authorizationRequest)).orElseThrow();
+
+            assertThat(decoded.getAuthorizationRequestUri()).isEqualTo(authorizationRequest.getAuthorizationRequestUri());
+        }
+    }
+
+    @Test
+    void cookieIsSmallerThanJavaSerialization() {
+        OAuth2AuthorizationRequest authorizationRequest = authorizationRequest(Map.of(OAuth2ParameterNames.REGISTRATION_ID, "google"));
+        String serialized = Base64.getUrlEncoder().encodeToString(SerializationUtils.serialize(authorizationRequest));
+
+        assertThat(codec.encode(authorizationRequest).length()).isLessThan(serialized.length() / 2);
+    }
+
+    @Test
+    void rejectsTamperedCookie() {
+        byte[] bytes = Base64.getUrlDecoder().decode(codec.encode(authorizationRequest(Map.of())));
+        bytes[bytes.length - 1] ^= 1;
+
+        assertThat(codec.decode(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes))).isEmpty();
+    }
+
+    @Test
+    void rejectsUnknownVersionAndGarbage() {
+        byte[] bytes = Base64.getUrlDecoder().decode(codec.encode(authorizationRequest(Map.of())));
+        bytes[0] = 2;
+
+        assertThat(codec.decode(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes))).isEmpty();
+        assertThat(codec.decode("not base64 !")).isEmpty();
+        assertThat(codec.decode("")).isEmpty();
+    }
+
+    @Test
+    void rejectsNonStringAttributes() {
+        OAuth2AuthorizationRequest authorizationRequest = authorizationRequest(Map.of("count", 1));
+
+        assertThatThrownBy(() -> codec.encode(authorizationRequest)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private OAuth2AuthorizationRequest authorizationRequest(Map<String, Object> attributes) {
+        return OAuth2AuthorizationRequest.authorizationCode()
+                .authorizationUri("https://accounts.google.com/o/oauth2/v2/auth")
+                .clientId("client-id")
+                .redirectUri("http://localhost:8080/oauth2/callback/google")
+                .scopes(Set.of("email", "profile"))
+                .state("state-value")
+                .attributes(attributes)
+                .build();
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.fullstacktemplate.service;
+
+import com.example.fullstacktemplate.config.AppProperties;
+import com.example.fullstacktemplate.exception.TooManyRequestsException;
+import com.example.fullstacktemplate.model.RateLimitBucket;
+import com.example.fullstacktemplate.repository.RateLimitBucketRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class RateLimitServiceTest {
+
+    private static final String EMAIL = "user@example.com";
+
+    @Autowired
+    private RateLimitBucketRepository rateLimitBucketRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private RateLimitService firstNode;
+    private RateLimitService secondNode;
+
+    @BeforeEach
+    void setUp() {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getRateLimit().setReplicated(true);
+        appProperties.getRateLimit().setAccountCapacity(2);
+        appProperties.getRateLimit().setAccountPeriodMsec(60000);
+        firstNode = new RateLimitService(appProperties, rateLimitBucketRepository);
+        secondNode = new RateLimitService(appProperties, rateLimitBucketRepository);
+    }
+
+    @Test
+    void nodesCreatingTheSameBucketAddUpTheirTokens() {
+        long before = System.currentTimeMillis();
+        firstNode.checkAccount(EMAIL);
+        secondNode.checkAccount(EMAIL);
+
+        synchronize(firstNode);
+        synchronize(secondNode);
+
+        RateLimitBucket bucket = rateLimitBucketRepository.findById("account:" + EMAIL).orElseThrow();
+        assertThat(bucket.getTheoreticalArrivalTime()).isBetween(before + 60000, System.currentTimeMillis() + 60000);
+    }
+
+    @Test
+    void tokensTakenOnOtherNodesCountAfterSynchronization() {
+        firstNode.checkAccount(EMAIL);
+        synchronize(firstNode);
+        secondNode.checkAccount(EMAIL);
+        synchronize(secondNode);
+        synchronize(firstNode);
+
+        assertThatThrownBy(() -> firstNode.checkAccount(EMAIL)).isInstanceOf(TooManyRequestsException.class);
+        assertThatThrownBy(() -> secondNode.checkAccount(EMAIL)).isInstanceOf(TooManyRequestsException.class);
+    }
+
+    @Test
+    void keepsTheLaterOfStoredAndCurrentTime() {
+        RateLimitBucket idle = new RateLimitBucket();
+        idle.setBucketKey("account:" + EMAIL);
+        idle.setTheoreticalArrivalTime(1L);
+        rateLimitBucketRepository.saveAndFlush(idle);
+
+        long now = System.currentTimeMillis();
+        rateLimitBucketRepository.addConsumed("account:" + EMAIL, 30000L, now);
+
+        assertThat(rateLimitBucketRepository.findAllByTheoreticalArrivalTimeGreaterThan(now + 29999)).hasSize(1);
+    }
+
+    private void synchronize(RateLimitService node) {
+        // every scheduled run has its own transaction and persistence context
+        node.synchronizeBuckets();
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.fullstacktemplate.service;
+
+import com.example.fullstacktemplate.config.AppProperties;
+import com.example.fullstacktemplate.model.AuthProvider;
+import com.example.fullstacktemplate.model.JwtToken;
+import com.example.fullstacktemplate.model.Role;
+import com.example.fullstacktemplate.model.User;
+import com.example.fullstacktemplate.repository.TokenRepository;
+import com.example.fullstacktemplate.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class RefreshTokenServiceTest {
+
+    private static final String USER_AGENT = "test";
+    private static final String IP_ADDRESS = "203.0.113.1";
+
+    @Autowired
+    private TokenRepository tokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final AppProperties appProperties = new AppProperties();
+    private RefreshTokenService refreshTokenService;
+    private User user;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        appProperties.getAuth().setTokenSecret("test-token-secret");
+        appProperties.getAuth().setRefreshTokenExpirationMsec(900000);
+        TokenService tokenService = new TokenService(appProperties, tokenRepository, new CryptoService(),
+                new CompactJwsCodec(TestSigningKeys.signingKeyService(TestSigningKeys.generateKeyPair())));
+        refreshTokenService = new RefreshTokenService(tokenService, tokenRepository, userRepository, new RefreshTokenRevocationIndex(), appProperties);
+
+        user = new User();
+        user.setName("user");
+        user.setEmail("user@example.com");
+        user.setEmailVerified(true);
+        user.setAuthProvider(AuthProvider.local);
+        user.setRole(Role.USER);
+        user.setTwoFactorEnabled(false);
+        user = userRepository.save(user);
+    }
+
+    @Test
+    void concurrentRefreshWithinTheGracePeriodGetsTheSuccessor() {
+        JwtToken issued = refreshTokenService.issue(user, USER_AGENT, IP_ADDRESS);
+
+        Optional<JwtToken> first = refreshTokenService.rotate(issued.getValue(), USER_AGENT, IP_ADDRESS);
+        Optional<JwtToken> second = refreshTokenService.rotate(issued.getValue(), USER_AGENT, IP_ADDRESS);
+
+        assertThat(first).isPresent();
+        assertThat(second).map(JwtToken::getValue).contains(first.get().getValue());
+        assertThat(refreshTokenService.rotate(first.get().getValue(), USER_AGENT, IP_ADDRESS)).as("the session stays valid").isPresent();
+    }
+
+    @Test
+    void olderGenerationReplayedWithinTheGracePeriodRevokesTheSession() {
+        JwtToken issued = refreshTokenService.issue(user, USER_AGENT, IP_ADDRESS);
+        Optional<JwtToken> first = refreshTokenService.rotate(issued.getValue(), USER_AGENT, IP_ADDRESS);
+        assertThat(first).isPresent();
+        Optional<JwtToken> second = refreshTokenService.rotate(first.get().getValue(), USER_AGENT, IP_ADDRESS);
+        assertThat(second).isPresent();
+
+        assertThat(refreshTokenService.rotate(issued.getValue(), USER_AGENT, IP_ADDRESS)).isEmpty();
+        assertThat(refreshTokenService.rotate(second.get().getValue(), USER_AGENT, IP_ADDRESS)).as("the family is revoked").isEmpty();
+    }
+
+    @Test
+    void reuseAfterTheGracePeriodRevokesTheSession() {
+        appProperties.getAuth().setRefreshTokenReuseGraceMsec(0);
+        JwtToken issued = refreshTokenService.issue(user, USER_AGENT, IP_ADDRESS);
+        Optional<JwtToken> rotated = refreshTokenService.rotate(issued.getValue(), USER_AGENT, IP_ADDRESS);
+
+        assertThat(refreshTokenService.rotate(issued.getValue(), USER_AGENT, IP_ADDRESS)).isEmpty();
+        assertThat(rotated).isPresent();
+        assertThat(refreshTokenService.rotate(rotated.get().getValue(), USER_AGENT, IP_ADDRESS)).isEmpty();
+    }
+
+    @Test
+    void revokedSessionIsNotResumedWithinTheGracePeriod() {
+        JwtToken issued = refreshTokenService.issue(user, USER_AGENT, IP_ADDRESS);
+        assertThat(refreshTokenService.rotate(issued.getValue(), USER_AGENT, IP_ADDRESS)).isPresent();
+
+        refreshTokenService.revokeSession(user.getId(), issued.getFamilyId());
+
+        assertThat(refreshTokenService.rotate(issued.getValue(), USER_AGENT, IP_ADDRESS)).isEmpty();
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.fullstacktemplate.service;
+
+import com.example.fullstacktemplate.config.AppProperties;
+import com.example.fullstacktemplate.model.SigningKey;
+import com.example.fullstacktemplate.repository.SigningKeyRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // a lost rotation must not roll back the test transaction
+class SigningKeyServiceTest {
+
+    // keys are published for 10 minutes, the successor of a key is generated once it is 50 minutes old
+    private static final Duration ROTATION_PERIOD = Duration.ofHours(1);
+    private static final Duration RELOAD_PERIOD = Duration.ofMinutes(5);
+
+    @Autowired
+    private SigningKeyRepository signingKeyRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private AppProperties appProperties;
+
+    @BeforeEach
+    void setUp() {
+        appProperties = new AppProperties();
+        appProperties.getAuth().setTokenSecret("test-secret");
+        appProperties.getAuth().setAccessTokenExpirationMsec(300000);
+        appProperties.getAuth().setRefreshTokenExpirationMsec(900000);
+        appProperties.getAuth().setVerificationTokenExpirationMsec(60000);
+        appProperties.getAuth().setSigningKeyRotationPeriodMsec(ROTATION_PERIOD.toMillis());
+        appProperties.getAuth().setSigningKeyReloadMsec(RELOAD_PERIOD.toMillis());
+    }
+
+    @AfterEach
+    void tearDown() {
+        signingKeyRepository.deleteAll();
+    }
+
+    @Test
+    void firstStartSignsWithNewKey() throws Exception {
+        SigningKeyService replica = replica(signingKeyRepository);
+
+        assertThat(signingKeyRepository.count()).isEqualTo(1);
+        assertThat(replica.getVerificationKey(replica.getActiveSigningKey().getKeyId())).isNotNull();
+    }
+
+    @Test
+    void successorSignsOnlyOncePublished() throws Exception {
+        SigningKeyService replica = replica(signingKeyRepository);
+        String firstKeyId = replica.getActiveSigningKey().getKeyId();
+        age(firstKeyId, Duration.ofMinutes(55));
+
+        replica.scheduledReload();
+        replica.scheduledReload();
+
+        assertThat(signingKeyRepository.count()).isEqualTo(2);
+        assertThat(replica.getActiveSigningKey().getKeyId()).isEqualTo(firstKeyId);
+
+        String successorKeyId = newestKeyId();
+        age(successorKeyId, Duration.ofMinutes(11));
+        replica.scheduledReload();
+
+        assertThat(signingKeyRepository.count()).isEqualTo(2);
+        assertThat(replica.getActiveSigningKey().getKeyId()).isEqualTo(successorKeyId);
+    }
+
+    @Test
+    void replicasRotatingAtTheSameTimeAgreeOnOneKey() throws Exception {
+        SigningKeyService first = replica(signingKeyRepository);
+        String firstKeyId = first.getActiveSigningKey().getKeyId();
+        age(firstKeyId, Duration.ofMinutes(55));
+        List<SigningKey> beforeRotation = signingKeyRepository.findAllByExpiresAtAfterOrderByGenerationDesc(Instant.now());
+        first.scheduledReload();
+        String successorKeyId = newestKeyId();
+        // the second replica still sees the keyset from before the rotation and generates its own successor
+        SigningKeyRepository staleRepository = mock(SigningKeyRepository.class, delegatesTo(signingKeyRepository));
+        doAnswer(invocation -> beforeRotation)
+                .doAnswer(delegatesTo(signingKeyRepository))
+                .when(staleRepository).findAllByExpiresAtAfterOrderByGenerationDesc(any());
+
+        SigningKeyService second = replica(staleRepository);
+
+        assertThat(signingKeyRepository.count()).isEqualTo(2);
+        assertThat(newestKeyId()).isEqualTo(successorKeyId);
+        assertThat(second.getActiveSigningKey().getKeyId()).isEqualTo(firstKeyId);
+        assertThat(second.getVerificationKey(successorKeyId)).isNotNull();
+    }
+
+    @Test
+    void unknownKeyIdReloadsKeysAtMostOncePerInterval() throws Exception {
+        SigningKeyRepository repository = mock(SigningKeyRepository.class, delegatesTo(signingKeyRepository));
+        SigningKeyService first = replica(signingKeyRepository);
+        SigningKeyService second = replica(repository);
+        age(first.getActiveSigningKey().getKeyId(), Duration.ofMinutes(55));
+        first.scheduledReload();
+
+        assertThat(second.getVerificationKey(newestKeyId())).isNotNull();
+        assertThat(second.getVerificationKey("unknown")).isNull();
+        assertThat(second.getVerificationKey("unknown")).isNull();
+
+        verify(repository, times(2)).findAllByExpiresAtAfterOrderByGenerationDesc(any());
+    }
+
+    private SigningKeyService replica(SigningKeyRepository repository) throws Exception {
+        SigningKeyService signingKeyService = new SigningKeyService(repository, appProperties, transactionManager);
+        signingKeyService.init();
+        return signingKeyService;
+    }
+
+    private void age(String keyId, Duration age) {
+        SigningKey signingKey = signingKeyRepository.findById(keyId).orElseThrow();
+        signingKey.setCreatedAt(signingKey.getCreatedAt().minus(age));
+        signingKeyRepository.save(signingKey);
+    }
+
+    private String newestKeyId() {
+        return signingKeyRepository.findAllByExpiresAtAfterOrderByGenerationDesc(Instant.now()).get(0).getKeyId();
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.fullstacktemplate.service;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+final class TestSigningKeys {
+
+    static final String KEY_ID = "test-key";
+
+    private TestSigningKeys() {
+    }
+
+    static KeyPair generateKeyPair() throws GeneralSecurityException {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        return keyPairGenerator.generateKeyPair();
+    }
+
+    static SigningKeyService signingKeyService(KeyPair keyPair) {
+        SigningKeyService signingKeyService = mock(SigningKeyService.class);
+        when(signingKeyService.getActiveSigningKey()).thenReturn(new SigningKeyService.ActiveSigningKey(KEY_ID, keyPair.getPrivate()));
+        when(signingKeyService.getVerificationKey(KEY_ID)).thenReturn(keyPair.getPublic());
+        return signingKeyService;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.fullstacktemplate.service;
+
+import com.example.fullstacktemplate.config.AppProperties;
+import com.example.fullstacktemplate.exception.BadRequestException;
+import com.example.fullstacktemplate.model.TokenType;
+import com.example.fullstacktemplate.model.User;
+import com.example.fullstacktemplate.repository.TokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class TokenServiceTest {
+
+    private final AppProperties appProperties = new AppProperties();
+    private TokenService tokenService;
+    private User user;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        appProperties.getAuth().setTokenSecret("test-token-secret");
+        appProperties.getAuth().setVerificationTokenExpirationMsec(3600000);
+        tokenService = new TokenService(appProperties, mock(TokenRepository.class), new CryptoService(),
+                new CompactJwsCodec(TestSigningKeys.signingKeyService(TestSigningKeys.generateKeyPair())));
+        user = new User();
+        user.setId(42L);
+        user.setEmail("user@example.com");
+        user.setEmailVerified(false);
+        user.setPassword("password-hash");
+    }
+
+    @Test
+    void issuedTokenIdentifiesTheUser() {
+        String token = tokenService.createVerificationToken(user, TokenType.ACCOUNT_ACTIVATION);
+
+        assertThat(tokenService.getUserIdFromVerificationToken(token, TokenType.ACCOUNT_ACTIVATION)).isEqualTo(42L);
+        tokenService.verifyFingerprint(token, user, TokenType.ACCOUNT_ACTIVATION);
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        appProperties.getAuth().setVerificationTokenExpirationMsec(-60000);
+        String token = tokenService.createVerificationToken(user, TokenType.ACCOUNT_ACTIVATION);
+
+        assertThatThrownBy(() -> tokenService.getUserIdFromVerificationToken(token, TokenType.ACCOUNT_ACTIVATION))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("tokenExpired");
+    }
+
+    @Test
+    void tamperedTokenIsRejected() {
+        String token = tokenService.createVerificationToken(user, TokenType.FORGOTTEN_PASSWORD);
+        int payloadStart = token.indexOf('.') + 1;
+        char replaced = token.charAt(payloadStart + 5) == 'A' ? 'B' : 'A';
+        String tampered = token.substring(0, payloadStart + 5) + replaced + token.substring(payloadStart + 6);
+
+        assertThatThrownBy(() -> tokenService.getUserIdFromVerificationToken(tampered, TokenType.FORGOTTEN_PASSWORD))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("invalidToken");
+        assertThatThrownBy(() -> tokenService.verifyFingerprint(tampered, user, TokenType.FORGOTTEN_PASSWORD))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("invalidToken");
+    }
+
+    @Test
+    void tokenIsRejectedForAnotherPurpose() {
+        String token = tokenService.createVerificationToken(user, TokenType.ACCOUNT_ACTIVATION);
+
+        assertThatThrownBy(() -> tokenService.getUserIdFromVerificationToken(token, TokenType.FORGOTTEN_PASSWORD))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("invalidToken");
+        assertThatThrownBy(() -> tokenService.verifyFingerprint(token, user, TokenType.FORGOTTEN_PASSWORD))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("invalidToken");
+    }
+
+    @Test
+    void activationTokenCanBeUsedOnlyOnce() {
+        String token = tokenService.createVerificationToken(user, TokenType.ACCOUNT_ACTIVATION);
+        tokenService.verifyFingerprint(token, user, TokenType.ACCOUNT_ACTIVATION);
+
+        user.setEmailVerified(true);
+
+        assertThatThrownBy(() -> tokenService.verifyFingerprint(token, user, TokenType.ACCOUNT_ACTIVATION))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("invalidToken");
+    }
+
+    @Test
+    void passwordResetTokenCanBeUsedOnlyOnce() {
+        String token = tokenService.createVerificationToken(user, TokenType.FORGOTTEN_PASSWORD);
+        tokenService.verifyFingerprint(token, user, TokenType.FORGOTTEN_PASSWORD);
+
+        user.setPassword("new-password-hash");
+
+        assertThatThrownBy(() -> tokenService.verifyFingerprint(token, user, TokenType.FORGOTTEN_PASSWORD))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("invalidToken");
+    }
+
+    @Test
+    void emailChangeTokenCanBeUsedOnlyOnce() {
+        user.setRequestedNewEmail("new@example.com");
+        String token = tokenService.createVerificationToken(user, TokenType.EMAIL_UPDATE);
+        tokenService.verifyFingerprint(token, user, TokenType.EMAIL_UPDATE);
+
+        user.setEmail("new@example.com");
+        user.setRequestedNewEmail(null);
+
+        assertThatThrownBy(() -> tokenService.verifyFingerprint(token, user, TokenType.EMAIL_UPDATE))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("invalidToken");
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.fullstacktemplate.service;
+
+import com.example.fullstacktemplate.dto.QrCodeFormat;
+import com.example.fullstacktemplate.dto.TwoFactorSetupDto;
+import dev.samstevens.totp.code.HashingAlgorithm;
+import dev.samstevens.totp.qr.QrData;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TwoFactorQrCodeServiceTest {
+
+    private final TwoFactorQrCodeService twoFactorQrCodeService = new TwoFactorQrCodeService();
+
+    @Test
+    void rendersSvgOncePerPendingSecret() throws Exception {
+        TwoFactorSetupDto first = twoFactorQrCodeService.render(qrData("SECRET"), QrCodeFormat.svg);
+        TwoFactorSetupDto second = twoFactorQrCodeService.render(qrData("SECRET"), QrCodeFormat.svg);
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.getMimeType()).isEqualTo(TwoFactorQrCodeService.SVG_MIME_TYPE);
+        assertThat(new String(first.getQrData(), StandardCharsets.UTF_8)).startsWith("<svg").endsWith("</svg>");
+        assertThat(first.getOtpAuthUri()).startsWith("otpauth://totp/").contains("secret=SECRET");
+    }
+
+    @Test
+    void rendersAgainAfterEviction() throws Exception {
+        TwoFactorSetupDto first = twoFactorQrCodeService.render(qrData("SECRET"), QrCodeFormat.svg);
+
+        twoFactorQrCodeService.evict("SECRET");
+
+        assertThat(twoFactorQrCodeService.render(qrData("SECRET"), QrCodeFormat.svg)).isNotSameAs(first);
+    }
+
+    @Test
+    void keepsPngAsFallbackAndUriWithoutImage() throws Exception {
+        TwoFactorSetupDto png = twoFactorQrCodeService.render(qrData("SECRET"), QrCodeFormat.png);
+        TwoFactorSetupDto uri = twoFactorQrCodeService.render(qrData("SECRET"), QrCodeFormat.uri);
+
+        assertThat(png.getMimeType()).isEqualTo("image/png");
+        assertThat(png.getQrData()).isNotEmpty();
+        assertThat(uri.getQrData()).isNull();
+        assertThat(uri.getOtpAuthUri()).isEqualTo(png.getOtpAuthUri());
+    }
+
+    private static QrData qrData(String secret) {
+        return new QrData.Builder()
+                .label("user@example.com")
+                .secret(secret)
+                .issuer("Full stack template")
+                .algorithm(HashingAlgorithm.SHA512)
+                .digits(6)
+                .period(30)
+                .build();
+    }
+}
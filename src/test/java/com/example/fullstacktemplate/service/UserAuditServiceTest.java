@@ -0,0 +1,106 @@
+package com.example.fullstacktemplate.service;
+
+import com.example.fullstacktemplate.config.AppProperties;
+import com.example.fullstacktemplate.dto.UserAuditEventDto;
+import com.example.fullstacktemplate.dto.UserDto;
+import com.example.fullstacktemplate.model.AuditAction;
+import com.example.fullstacktemplate.model.AuthProvider;
+import com.example.fullstacktemplate.model.Role;
+import com.example.fullstacktemplate.model.User;
+import com.example.fullstacktemplate.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UserAuditServiceTest {
+
+    private static final int UPDATES = 500;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserAuditService userAuditService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private AppProperties appProperties;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        String name = "audit-" + UUID.randomUUID();
+        user.setName(name);
+        user.setEmail(name + "@example.com");
+        user.setPassword("password-hash");
+        user.setEmailVerified(true);
+        user.setAuthProvider(AuthProvider.local);
+        user.setRole(Role.USER);
+        user.setTwoFactorEnabled(false);
+        user = userRepository.save(user);
+    }
+
+    @Test
+    void recordsProfileUpdatesWithMaskedSecrets() throws Exception {
+        userService.updateProfile(user.getId(), profile("renamed-" + user.getId()));
+        user = userRepository.findById(user.getId()).orElseThrow();
+        user.setPassword("changed-hash");
+        userRepository.save(user);
+        userAuditService.flush();
+
+        List<UserAuditEventDto> events = userAuditService.getHistory(user.getId(), Long.MAX_VALUE, 10).getEvents();
+
+        // the scheduled flush may write part of the queue concurrently, so the ids are not necessarily in commit order
+        assertThat(events).extracting(UserAuditEventDto::getAction).containsExactlyInAnyOrder(AuditAction.CREATED, AuditAction.UPDATED, AuditAction.UPDATED);
+        assertThat(events).extracting(UserAuditEventDto::getChanges)
+                .anySatisfy(changes -> assertThat(changes).contains("renamed-" + user.getId()))
+                .anySatisfy(changes -> assertThat(changes).contains("password").contains("***"))
+                .noneSatisfy(changes -> assertThat(changes).contains("changed-hash"));
+    }
+
+    @Test
+    void captureOnUpdateProfileStaysWithinBudget() throws Exception {
+        Timer captureTimer = meterRegistry.get("audit.capture").timer();
+        for (int i = 0; i < UPDATES; i++) {
+            userService.updateProfile(user.getId(), profile("warm-up-" + i + "-" + user.getId()));
+        }
+        long countBefore = captureTimer.count();
+        double totalBefore = captureTimer.totalTime(TimeUnit.MICROSECONDS);
+
+        for (int i = 0; i < UPDATES; i++) {
+            userService.updateProfile(user.getId(), profile("measured-" + i + "-" + user.getId()));
+        }
+        long captured = captureTimer.count() - countBefore;
+        double meanMicros = (captureTimer.totalTime(TimeUnit.MICROSECONDS) - totalBefore) / captured;
+        userAuditService.flush();
+
+        assertThat(captured).isGreaterThanOrEqualTo(UPDATES);
+        assertThat(meanMicros).isLessThan(appProperties.getAudit().getCaptureBudgetMicros());
+    }
+
+    private UserDto profile(String name) {
+        UserDto userDto = new UserDto();
+        userDto.setName(name);
+        userDto.setEmail(user.getEmail());
+        return userDto;
+    }
+}
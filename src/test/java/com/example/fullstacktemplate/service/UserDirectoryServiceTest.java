@@ -0,0 +1,151 @@
+package com.example.fullstacktemplate.service;
+
+import com.example.fullstacktemplate.dto.UserDirectoryEntryDto;
+import com.example.fullstacktemplate.dto.UserDirectoryPageDto;
+import com.example.fullstacktemplate.dto.UserSearchDto;
+import com.example.fullstacktemplate.dto.mapper.FileDbMapperImpl;
+import com.example.fullstacktemplate.dto.mapper.FileDbMapperResolver;
+import com.example.fullstacktemplate.dto.mapper.UserMapper;
+import com.example.fullstacktemplate.dto.mapper.UserMapperImpl;
+import com.example.fullstacktemplate.model.AuthProvider;
+import com.example.fullstacktemplate.model.Role;
+import com.example.fullstacktemplate.model.User;
+import com.example.fullstacktemplate.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({UserMapperImpl.class, FileDbMapperImpl.class, FileDbMapperResolver.class, FileDbService.class})
+class UserDirectoryServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+    private UserDirectoryService userDirectoryService;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        userDirectoryService = new UserDirectoryService(userRepository, userMapper, transactionManager, new ObjectMapper());
+        persist("alice", AuthProvider.local, true, false);
+        persist("albert", AuthProvider.github, true, true);
+        persist("al_x", AuthProvider.google, false, false);
+        persist("bob", AuthProvider.local, false, false);
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    @Test
+    void returnsEveryUserWithoutFilters() {
+        assertThat(names(userDirectoryService.findPage(new UserSearchDto(), 0, 10))).isEqualTo("alice,albert,al_x,bob");
+    }
+
+    @Test
+    void combinesOnlyTheFiltersThatAreSet() {
+        UserSearchDto search = new UserSearchDto();
+        search.setNamePrefix("al");
+        search.setEmailVerified(true);
+
+        assertThat(names(userDirectoryService.findPage(search, 0, 10))).isEqualTo("alice,albert");
+        assertThat(statistics.getQueries()).hasSize(1);
+        String where = statistics.getQueries()[0].substring(statistics.getQueries()[0].indexOf(" where "));
+        assertThat(where).contains(".name like", ".emailVerified=").doesNotContain("authProvider", "twoFactorEnabled", ".email like", "null");
+    }
+
+    @Test
+    void filtersByProviderAndTwoFactor() {
+        UserSearchDto search = new UserSearchDto();
+        search.setProvider(AuthProvider.github);
+        search.setTwoFactorEnabled(true);
+
+        assertThat(names(userDirectoryService.findPage(search, 0, 10))).isEqualTo("albert");
+    }
+
+    @Test
+    void matchesPrefixesLiterally() {
+        UserSearchDto search = new UserSearchDto();
+        search.setNamePrefix("al_");
+
+        assertThat(names(userDirectoryService.findPage(search, 0, 10))).isEqualTo("al_x");
+
+        search.setNamePrefix(null);
+        search.setEmailPrefix("bob@");
+        assertThat(names(userDirectoryService.findPage(search, 0, 10))).isEqualTo("bob");
+    }
+
+    @Test
+    void pagesByLastSeenId() {
+        UserDirectoryPageDto firstPage = userDirectoryService.findPage(new UserSearchDto(), 0, 3);
+        assertThat(names(firstPage)).isEqualTo("alice,albert,al_x");
+        assertThat(firstPage.getNextAfterId()).isNotNull();
+
+        UserDirectoryPageDto lastPage = userDirectoryService.findPage(new UserSearchDto(), firstPage.getNextAfterId(), 3);
+        assertThat(names(lastPage)).isEqualTo("bob");
+        assertThat(lastPage.getNextAfterId()).isNull();
+    }
+
+    @Test
+    void hidesMarkedUsers() {
+        Long bobId = userDirectoryService.findPage(new UserSearchDto(), 0, 10).getUsers().get(3).getId();
+        userRepository.markDeleted(bobId, Instant.now());
+
+        assertThat(names(userDirectoryService.findPage(new UserSearchDto(), 0, 10))).isEqualTo("alice,albert,al_x");
+    }
+
+    @Test
+    void exportsOneJsonLinePerUser() throws Exception {
+        UserSearchDto search = new UserSearchDto();
+        search.setProvider(AuthProvider.local);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        userDirectoryService.export(search, outputStream);
+
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).contains("\"name\":\"alice\"");
+        assertThat(lines[1]).contains("\"name\":\"bob\"");
+    }
+
+    private void persist(String name, AuthProvider authProvider, boolean emailVerified, boolean twoFactorEnabled) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "@example.com");
+        user.setAuthProvider(authProvider);
+        user.setRole(Role.USER);
+        user.setEmailVerified(emailVerified);
+        user.setTwoFactorEnabled(twoFactorEnabled);
+        entityManager.persist(user);
+    }
+
+    private static String names(UserDirectoryPageDto page) {
+        return page.getUsers().stream().map(UserDirectoryEntryDto::getName).collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.fullstacktemplate.service;
+
+import com.example.fullstacktemplate.config.AppProperties;
+import com.example.fullstacktemplate.dto.mapper.UserMapper;
+import com.example.fullstacktemplate.model.AuthProvider;
+import com.example.fullstacktemplate.model.FileDb;
+import com.example.fullstacktemplate.model.FileType;
+import com.example.fullstacktemplate.model.JwtToken;
+import com.example.fullstacktemplate.model.Role;
+import com.example.fullstacktemplate.model.TokenType;
+import com.example.fullstacktemplate.model.TwoFactorRecoveryCode;
+import com.example.fullstacktemplate.model.User;
+import com.example.fullstacktemplate.repository.FileDbRepository;
+import com.example.fullstacktemplate.repository.TokenRepository;
+import com.example.fullstacktemplate.repository.TwoFactoryRecoveryCodeRepository;
+import com.example.fullstacktemplate.repository.UserRepository;
+import dev.samstevens.totp.secret.SecretGenerator;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class UserServiceAccountDeletionTest {
+
+    private static final int TOKENS = 1000;
+    private static final int RECOVERY_CODES = 10;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TokenRepository tokenRepository;
+
+    @Autowired
+    private TwoFactoryRecoveryCodeRepository twoFactoryRecoveryCodeRepository;
+
+    @Autowired
+    private FileDbRepository fileDbRepository;
+
+    private final AppProperties appProperties = new AppProperties();
+    private Statistics statistics;
+    private UserService userService;
+    private Long userId;
+    private Long profileImageId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        userService = new UserService(mock(PasswordEncoder.class), new FileDbService(fileDbRepository), mock(SecretGenerator.class), appProperties,
+                mock(TokenService.class), new DefaultResourceLoader(), userRepository, mock(EmailService.class), mock(UserMapper.class),
+                twoFactoryRecoveryCodeRepository, mock(MessageService.class), mock(RefreshTokenService.class), tokenRepository, fileDbRepository,
+                mock(UserAuditService.class), mock(TwoFactorQrCodeService.class));
+
+        User user = new User();
+        user.setName("deleted");
+        user.setEmail("deleted@example.com");
+        user.setEmailVerified(true);
+        user.setAuthProvider(AuthProvider.local);
+        user.setRole(Role.USER);
+        user.setTwoFactorEnabled(true);
+        user.setProfileImage(new FileDb("avatar.png", FileType.IMAGE_PNG, new byte[]{1, 2, 3}));
+        entityManager.persist(user);
+        for (int i = 0; i < RECOVERY_CODES; i++) {
+            TwoFactorRecoveryCode recoveryCode = new TwoFactorRecoveryCode();
+            recoveryCode.setRecoveryCode("code-" + i);
+            recoveryCode.setUser(user);
+            entityManager.persist(recoveryCode);
+        }
+        for (int i = 0; i < TOKENS; i++) {
+            JwtToken token = new JwtToken();
+            token.setTokenType(TokenType.REFRESH);
+            token.setValue("token-" + i);
+            token.setUser(user);
+            token.setRevoked(true);
+            token.setExpiresAt(Instant.now().plusSeconds(60));
+            entityManager.persist(token);
+        }
+        entityManager.flush();
+        userId = user.getId();
+        profileImageId = user.getProfileImage().getId();
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    @Test
+    void deletesWithOneStatementPerTable() {
+        userService.cancelUserAccount(userId);
+        entityManager.flush();
+
+        // profile image lookup, then tokens, recovery codes, user row and profile image
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(5);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+        assertThat(tokenRepository.count()).isZero();
+        assertThat(twoFactoryRecoveryCodeRepository.count()).isZero();
+        assertThat(userRepository.findDeletedIds(10)).isEmpty();
+        assertThat(fileDbRepository.findById(profileImageId)).isEmpty();
+    }
+
+    @Test
+    void deferredDeletionOnlyMarksTheUser() {
+        appProperties.getAccountDeletion().setDeferred(true);
+
+        userService.cancelUserAccount(userId);
+        entityManager.flush();
+
+        // tokens, recovery codes and the user row
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(userRepository.findById(userId)).isEmpty();
+        assertThat(userRepository.findDeletedIds(10)).containsExactly(userId);
+        assertThat(tokenRepository.count()).isZero();
+        assertThat(twoFactoryRecoveryCodeRepository.count()).isZero();
+    }
+
+    @Test
+    void markedUsersReleaseTheirNameAndEmail() {
+        appProperties.getAccountDeletion().setDeferred(true);
+        userService.cancelUserAccount(userId);
+        entityManager.flush();
+
+        assertThat(userRepository.existsByName("deleted")).isFalse();
+        assertThat(userRepository.existsByEmail("deleted@example.com")).isFalse();
+        User user = new User();
+        user.setName("deleted");
+        user.setEmail("deleted@example.com");
+        user.setEmailVerified(false);
+        user.setAuthProvider(AuthProvider.local);
+        user.setRole(Role.USER);
+        user.setTwoFactorEnabled(false);
+        entityManager.persist(user);
+        entityManager.flush();
+
+        assertThat(userRepository.findDeletedIds(10)).containsExactly(userId);
+    }
+
+    @Test
+    void purgeRemovesMarkedUsers() {
+        appProperties.getAccountDeletion().setDeferred(true);
+        userService.cancelUserAccount(userId);
+        entityManager.flush();
+        statistics.clear();
+
+        userService.deleteUserAccount(userId);
+        entityManager.flush();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(5);
+        assertThat(tokenRepository.count()).isZero();
+        assertThat(userRepository.findDeletedIds(10)).isEmpty();
+        assertThat(fileDbRepository.findById(profileImageId)).isEmpty();
+    }
+}
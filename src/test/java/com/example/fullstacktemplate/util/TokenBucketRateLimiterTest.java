@@ -0,0 +1,63 @@
+package com.example.fullstacktemplate.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketRateLimiterTest {
+
+    private static final long NOW = 1_000_000;
+
+    @Test
+    void rejectsOnceCapacityIsUsed() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(3, 3000, 1, 100, false);
+        assertThat(limiter.tryAcquire("a", NOW)).isZero();
+        assertThat(limiter.tryAcquire("a", NOW)).isZero();
+        assertThat(limiter.tryAcquire("a", NOW)).isZero();
+        assertThat(limiter.tryAcquire("a", NOW)).isEqualTo(1000);
+        assertThat(limiter.tryAcquire("a", NOW + 1000)).isZero();
+    }
+
+    @Test
+    void fullShardEvictsTheKeyClosestToIdleInsteadOfRejecting() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(2, 120000, 1, 2, false);
+        assertThat(limiter.tryAcquire("a", NOW)).isZero();
+        assertThat(limiter.tryAcquire("a", NOW)).isZero();
+        assertThat(limiter.tryAcquire("b", NOW)).isZero();
+        assertThat(limiter.tryAcquire("c", NOW)).isZero();
+        assertThat(limiter.tryAcquire("c", NOW)).isZero();
+        assertThat(limiter.tryAcquire("c", NOW)).isPositive();
+        assertThat(limiter.tryAcquire("a", NOW)).as("the most used key is kept").isPositive();
+    }
+
+    @Test
+    void fullShardMakesRoomByEvictingIdleKeys() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 1000, 1, 2, false);
+        assertThat(limiter.tryAcquire("a", NOW)).isZero();
+        assertThat(limiter.tryAcquire("b", NOW)).isZero();
+        assertThat(limiter.tryAcquire("c", NOW + 1000)).isZero();
+    }
+
+    @Test
+    void drainsConsumedTokensOnce() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(5, 5000, 4, 100, true);
+        limiter.tryAcquire("a", NOW);
+        limiter.tryAcquire("a", NOW);
+        limiter.tryAcquire("b", NOW);
+        assertThat(limiter.drainConsumed()).isEqualTo(Map.of("a", 2L, "b", 1L));
+        assertThat(limiter.drainConsumed()).isEmpty();
+    }
+
+    @Test
+    void sharedStateLimitsTheRateAcrossNodes() {
+        TokenBucketRateLimiter first = new TokenBucketRateLimiter(2, 2000, 1, 100, true);
+        TokenBucketRateLimiter second = new TokenBucketRateLimiter(2, 2000, 1, 100, true);
+        assertThat(first.tryAcquire("a", NOW)).isZero();
+        assertThat(first.tryAcquire("a", NOW)).isZero();
+        long sharedTheoreticalArrivalTime = NOW + first.drainConsumed().get("a") * first.getEmissionIntervalMsec();
+        second.merge("a", sharedTheoreticalArrivalTime, NOW);
+        assertThat(second.tryAcquire("a", NOW)).isPositive();
+    }
+}